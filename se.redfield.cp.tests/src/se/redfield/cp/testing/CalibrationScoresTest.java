@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.testing;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.hamcrest.MatcherAssert;
+import org.junit.Test;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+
+import se.redfield.cp.core.ClassDictionary;
+import se.redfield.cp.core.prediction.CalibrationScores;
+import se.redfield.cp.core.prediction.PredictorException;
+
+/**
+ * Compares the run-length compressed scores with the sorted list
+ * implementation used by the predictor before.
+ */
+public class CalibrationScoresTest {
+
+	private static final double[] TIED = { 0.5, 0.1, 0.2, 0.5, 0.9, 0.2, 0.5, 0.5, 1.0, 0.0 };
+
+	/**
+	 * The rank of the previous implementation: the position of the first
+	 * occurrence of p in the list sorted in descending order.
+	 */
+	private static int listRank(List<Double> probabilities, double p) {
+		int idx = Collections.binarySearch(probabilities, p, Collections.reverseOrder());
+		if (idx < 0) {
+			return -(idx + 1);
+		}
+		while (idx >= 0 && probabilities.get(idx) == p) {
+			idx -= 1;
+		}
+		return idx + 1;
+	}
+
+	private static int listSmallerRank(List<Double> probabilities, int rank, double p) {
+		int idx = rank;
+		while (idx < probabilities.size() && probabilities.get(idx) == p) {
+			idx += 1;
+		}
+		return idx - 1;
+	}
+
+	private static double listPValue(List<Double> probabilities, double p, double random) {
+		int rank = listRank(probabilities, p);
+		int smallerRank = listSmallerRank(probabilities, rank, p);
+		return (((double) probabilities.size() - smallerRank) + random * ((double) smallerRank - rank))
+				/ (probabilities.size() + 1);
+	}
+
+	private static CalibrationScores create(ClassDictionary dictionary, int[] codes, double[] values)
+			throws CanceledExecutionException {
+		return CalibrationScores.create(dictionary, codes, values, values.length, new ExecutionMonitor());
+	}
+
+	private static void assertSameAsList(CalibrationScores scores, int code, List<Double> probabilities,
+			double[] queries) {
+		Collections.sort(probabilities, Collections.reverseOrder());
+		MatcherAssert.assertThat(scores.size(code), is(probabilities.size()));
+		for (double p : queries) {
+			int rank = listRank(probabilities, p);
+			int smallerRank = listSmallerRank(probabilities, rank, p);
+			MatcherAssert.assertThat("Rank of " + p, scores.getRank(code, p), is(rank));
+			MatcherAssert.assertThat("Smaller rank of " + p, scores.getSmallerRank(code, p), is(smallerRank));
+			for (double random : new double[] { 0, 0.25, 0.999 }) {
+				MatcherAssert.assertThat("P-value of " + p, scores.getPValue(code, p, random),
+						equalTo(listPValue(probabilities, p, random)));
+			}
+		}
+	}
+
+	@Test
+	public void testTies() throws CanceledExecutionException {
+		ClassDictionary dictionary = new ClassDictionary();
+		dictionary.add("A");
+		CalibrationScores scores = create(dictionary, new int[TIED.length], TIED);
+
+		List<Double> probabilities = new ArrayList<>();
+		for (double p : TIED) {
+			probabilities.add(p);
+		}
+		assertSameAsList(scores, 0, probabilities,
+				new double[] { -0.1, 0.0, 0.05, 0.1, 0.15, 0.2, 0.3, 0.5, 0.7, 0.9, 0.95, 1.0, 1.1 });
+	}
+
+	@Test
+	public void testRuns() throws CanceledExecutionException {
+		ClassDictionary dictionary = new ClassDictionary();
+		dictionary.add("A");
+		CalibrationScores scores = create(dictionary, new int[TIED.length], TIED);
+
+		// ranks are counted in the descending order: 1.0, 0.9, 0.5 x 4, 0.2 x 2, 0.1, 0.0
+		MatcherAssert.assertThat(scores.getRank(0, 1.0), is(0));
+		MatcherAssert.assertThat(scores.getRank(0, 0.5), is(2));
+		MatcherAssert.assertThat(scores.getSmallerRank(0, 0.5), is(5));
+		MatcherAssert.assertThat(scores.getRank(0, 0.3), is(6));
+		MatcherAssert.assertThat(scores.getSmallerRank(0, 0.3), is(5));
+		MatcherAssert.assertThat(scores.getRank(0, 0.0), is(9));
+		MatcherAssert.assertThat(scores.getSmallerRank(0, 0.0), is(9));
+		MatcherAssert.assertThat(scores.getRank(0, -1), is(10));
+		MatcherAssert.assertThat(scores.getSmallerRank(0, -1), is(9));
+		MatcherAssert.assertThat(scores.getPValue(0, 2.0, 0), equalTo(1.0));
+		MatcherAssert.assertThat(scores.getPValue(0, -1, 0), equalTo(1.0 / 11));
+	}
+
+	@Test
+	public void testSeveralClasses() throws CanceledExecutionException {
+		ClassDictionary dictionary = new ClassDictionary();
+		dictionary.add("A");
+		dictionary.add("B");
+		dictionary.add("C");
+
+		// few distinct values, so that every class has long runs of ties
+		Random rand = new Random(1);
+		int size = 5000;
+		int[] codes = new int[size];
+		double[] values = new double[size];
+		List<List<Double>> lists = new ArrayList<>();
+		for (int i = 0; i < dictionary.size(); i++) {
+			lists.add(new ArrayList<>());
+		}
+		for (int i = 0; i < size; i++) {
+			codes[i] = rand.nextInt(dictionary.size());
+			values[i] = rand.nextInt(20) / 20.0;
+			lists.get(codes[i]).add(values[i]);
+		}
+		CalibrationScores scores = create(dictionary, codes, values);
+
+		double[] queries = new double[45];
+		for (int i = 0; i < queries.length; i++) {
+			queries[i] = (i - 2) / 40.0;
+		}
+		for (int code = 0; code < dictionary.size(); code++) {
+			assertSameAsList(scores, code, lists.get(code), queries);
+		}
+	}
+
+	@Test
+	public void testDistinctValues() throws CanceledExecutionException {
+		ClassDictionary dictionary = new ClassDictionary();
+		dictionary.add("A");
+
+		Random rand = new Random(2);
+		double[] values = new double[1000];
+		List<Double> probabilities = new ArrayList<>();
+		for (int i = 0; i < values.length; i++) {
+			values[i] = rand.nextDouble();
+			probabilities.add(values[i]);
+		}
+		CalibrationScores scores = create(dictionary, new int[values.length], values);
+
+		double[] queries = new double[200];
+		for (int i = 0; i < queries.length; i++) {
+			queries[i] = i % 2 == 0 ? values[i] : rand.nextDouble();
+		}
+		assertSameAsList(scores, 0, probabilities, queries);
+	}
+
+	@Test(expected = PredictorException.class)
+	public void testMissingClass() throws CanceledExecutionException {
+		ClassDictionary dictionary = new ClassDictionary();
+		dictionary.add("A");
+		dictionary.add("B");
+		CalibrationScores scores = create(dictionary, new int[] { 0, 0 }, new double[] { 0.1, 0.2 });
+
+		MatcherAssert.assertThat(scores.size(1), is(0));
+		scores.getRank(1, 0.5);
+	}
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.testing;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.hamcrest.MatcherAssert;
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnDomainCreator;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+
+import se.redfield.cp.core.ClassDictionary;
+
+public class ClassDictionaryTest {
+
+	@Test
+	public void testCodes() {
+		ClassDictionary dictionary = new ClassDictionary();
+		MatcherAssert.assertThat(dictionary.add("b"), is(0));
+		MatcherAssert.assertThat(dictionary.add(new StringCell("a")), is(1));
+		MatcherAssert.assertThat(dictionary.add("c"), is(2));
+		MatcherAssert.assertThat(dictionary.add(new StringCell("b")), is(0));
+		MatcherAssert.assertThat(dictionary.add("a"), is(1));
+
+		MatcherAssert.assertThat(dictionary.size(), is(3));
+		MatcherAssert.assertThat(dictionary.getLabel(0), equalTo("b"));
+		MatcherAssert.assertThat(dictionary.getLabel(1), equalTo("a"));
+		MatcherAssert.assertThat(dictionary.getLabel(2), equalTo("c"));
+	}
+
+	@Test
+	public void testLookup() {
+		ClassDictionary dictionary = new ClassDictionary();
+		dictionary.add(new StringCell("1"));
+		dictionary.add("2");
+
+		MatcherAssert.assertThat(dictionary.indexOf("1"), is(0));
+		MatcherAssert.assertThat(dictionary.indexOf(new StringCell("2")), is(1));
+		// labels are compared by their string representation
+		MatcherAssert.assertThat(dictionary.indexOf(new IntCell(1)), is(0));
+		MatcherAssert.assertThat(dictionary.add(new IntCell(2)), is(1));
+		MatcherAssert.assertThat(dictionary.indexOf("3"), is(-1));
+		MatcherAssert.assertThat(dictionary.indexOf(new StringCell("3")), is(-1));
+		MatcherAssert.assertThat(dictionary.size(), is(2));
+	}
+
+	@Test
+	public void testFromDomain() {
+		Set<DataCell> values = new LinkedHashSet<>();
+		values.add(new StringCell("yes"));
+		values.add(new StringCell("no"));
+		DataColumnSpecCreator creator = new DataColumnSpecCreator("Target", StringCell.TYPE);
+		creator.setDomain(new DataColumnDomainCreator(values).createDomain());
+
+		ClassDictionary dictionary = ClassDictionary.fromDomain(creator.createSpec());
+		MatcherAssert.assertThat(dictionary.size(), is(2));
+		MatcherAssert.assertThat(dictionary.indexOf(new StringCell("yes")), is(0));
+		MatcherAssert.assertThat(dictionary.indexOf(new StringCell("no")), is(1));
+	}
+
+	@Test
+	public void testEmptyDomain() {
+		ClassDictionary dictionary = ClassDictionary
+				.fromDomain(new DataColumnSpecCreator("Target", StringCell.TYPE).createSpec());
+		MatcherAssert.assertThat(dictionary.size(), is(0));
+	}
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.testing;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.hamcrest.MatcherAssert;
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+
+import se.redfield.cp.core.FoldCellFactory;
+
+public class FoldCellFactoryTest {
+
+	private static final int FOLDS = 5;
+
+	private static int[] assign(FoldCellFactory factory, DataCell[] classes) {
+		int[] folds = new int[classes.length];
+		for (int i = 0; i < classes.length; i++) {
+			folds[i] = ((IntCell) factory.getCell(new DefaultRow("Row" + i, classes[i]))).getIntValue();
+		}
+		return folds;
+	}
+
+	private static void assertBalanced(String message, int[] sizes) {
+		int min = Integer.MAX_VALUE;
+		int max = Integer.MIN_VALUE;
+		for (int size : sizes) {
+			min = Math.min(min, size);
+			max = Math.max(max, size);
+		}
+		MatcherAssert.assertThat(message + ": " + min + " - " + max, max - min <= 1, is(true));
+	}
+
+	@Test
+	public void testStratified() {
+		Map<DataCell, Long> strataSizes = new LinkedHashMap<>();
+		strataSizes.put(new StringCell("A"), 103L);
+		strataSizes.put(new StringCell("B"), 51L);
+		strataSizes.put(new StringCell("C"), 17L);
+		strataSizes.put(new StringCell("D"), 3L);
+
+		// classes are interleaved in the table
+		DataCell[] classes = new DataCell[174];
+		Map<DataCell, Long> remaining = new LinkedHashMap<>(strataSizes);
+		int idx = 0;
+		while (idx < classes.length) {
+			for (Map.Entry<DataCell, Long> e : remaining.entrySet()) {
+				if (e.getValue() > 0) {
+					classes[idx++] = e.getKey();
+					e.setValue(e.getValue() - 1);
+				}
+			}
+		}
+
+		int[] folds = assign(new FoldCellFactory("Fold", FOLDS, 0, strataSizes, new Random(1), classes.length,
+				false), classes);
+
+		int[] sizes = new int[FOLDS];
+		for (int fold : folds) {
+			sizes[fold] += 1;
+		}
+		assertBalanced("Fold sizes", sizes);
+
+		for (DataCell c : strataSizes.keySet()) {
+			int[] classSizes = new int[FOLDS];
+			for (int i = 0; i < classes.length; i++) {
+				if (classes[i].equals(c)) {
+					classSizes[folds[i]] += 1;
+				}
+			}
+			assertBalanced("Fold sizes of the class " + c, classSizes);
+		}
+	}
+
+	@Test
+	public void testRandom() {
+		DataCell[] classes = new DataCell[103];
+		Collections.nCopies(classes.length, new StringCell("A")).toArray(classes);
+
+		int[] folds = assign(new FoldCellFactory("Fold", FOLDS, -1, Collections.emptyMap(), new Random(2),
+				classes.length, false), classes);
+		int[] sizes = new int[FOLDS];
+		for (int fold : folds) {
+			sizes[fold] += 1;
+		}
+		assertBalanced("Fold sizes", sizes);
+
+		// the same seed gives the same assignment
+		int[] again = assign(new FoldCellFactory("Fold", FOLDS, -1, Collections.emptyMap(), new Random(2),
+				classes.length, false), classes);
+		for (int i = 0; i < folds.length; i++) {
+			MatcherAssert.assertThat(again[i], equalTo(folds[i]));
+		}
+	}
+
+	@Test
+	public void testContiguous() {
+		DataCell[] classes = new DataCell[23];
+		Collections.nCopies(classes.length, new StringCell("A")).toArray(classes);
+
+		int[] folds = assign(new FoldCellFactory("Fold", FOLDS, -1, Collections.emptyMap(), null, classes.length,
+				true), classes);
+		int[] sizes = new int[FOLDS];
+		for (int i = 0; i < folds.length; i++) {
+			if (i > 0) {
+				MatcherAssert.assertThat(folds[i] - folds[i - 1] <= 1 && folds[i] >= folds[i - 1], is(true));
+			}
+			sizes[folds[i]] += 1;
+		}
+		assertBalanced("Fold sizes", sizes);
+	}
+
+	@Test
+	public void testLinear() {
+		DataCell[] classes = new DataCell[23];
+		Collections.nCopies(classes.length, new StringCell("A")).toArray(classes);
+
+		int[] folds = assign(new FoldCellFactory("Fold", FOLDS, -1, Collections.emptyMap(), null, classes.length,
+				false), classes);
+		for (int i = 0; i < folds.length; i++) {
+			MatcherAssert.assertThat(folds[i], equalTo(i % FOLDS));
+		}
+	}
+}
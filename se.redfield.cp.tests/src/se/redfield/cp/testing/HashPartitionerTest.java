@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.testing;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+
+import org.hamcrest.MatcherAssert;
+import org.junit.Test;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.StringCell;
+
+import se.redfield.cp.core.HashPartitioner;
+
+public class HashPartitionerTest {
+
+	private static DataRow row(long idx) {
+		return new DefaultRow("Row" + idx, new StringCell("id" + idx));
+	}
+
+	@Test
+	public void testDeterministic() {
+		int size = 1000;
+		boolean[] selected = new boolean[size];
+		HashPartitioner first = new HashPartitioner(0.5, 42, -1);
+		for (int i = 0; i < size; i++) {
+			selected[i] = first.isSelected(row(i));
+		}
+
+		// a new instance visiting the rows in the reverse order makes the same decisions
+		HashPartitioner second = new HashPartitioner(0.5, 42, -1);
+		for (int i = size - 1; i >= 0; i--) {
+			MatcherAssert.assertThat(second.isSelected(row(i)), equalTo(selected[i]));
+		}
+	}
+
+	@Test
+	public void testSeed() {
+		HashPartitioner first = new HashPartitioner(0.5, 1, -1);
+		HashPartitioner second = new HashPartitioner(0.5, 2, -1);
+		int differences = 0;
+		for (int i = 0; i < 1000; i++) {
+			if (first.isSelected(row(i)) != second.isSelected(row(i))) {
+				differences += 1;
+			}
+		}
+		MatcherAssert.assertThat("Differences: " + differences, differences > 400 && differences < 600, is(true));
+	}
+
+	@Test
+	public void testFraction() {
+		int size = 100000;
+		for (double fraction : new double[] { 0.1, 0.3, 0.8 }) {
+			HashPartitioner partitioner = new HashPartitioner(fraction, 7, -1);
+			int selected = 0;
+			for (int i = 0; i < size; i++) {
+				if (partitioner.isSelected(row(i))) {
+					selected += 1;
+				}
+			}
+			double actual = (double) selected / size;
+			MatcherAssert.assertThat("Fraction " + fraction + ": " + actual, Math.abs(actual - fraction) < 0.01,
+					is(true));
+		}
+	}
+
+	@Test
+	public void testBounds() {
+		HashPartitioner none = new HashPartitioner(0, 3, -1);
+		HashPartitioner all = new HashPartitioner(1, 3, -1);
+		for (int i = 0; i < 1000; i++) {
+			MatcherAssert.assertThat(none.isSelected(row(i)), is(false));
+			MatcherAssert.assertThat(all.isSelected(row(i)), is(true));
+		}
+	}
+
+	@Test
+	public void testIdColumn() {
+		HashPartitioner byRowId = new HashPartitioner(0.5, 5, -1);
+		HashPartitioner byColumn = new HashPartitioner(0.5, 5, 0);
+		for (int i = 0; i < 1000; i++) {
+			// the row ID doesn't matter when the ID column is used
+			DataRow renamed = new DefaultRow("Other" + i, new StringCell("id" + i));
+			MatcherAssert.assertThat(byColumn.isSelected(renamed), equalTo(byColumn.isSelected(row(i))));
+			// hashing the column value is the same as hashing the row ID with the same value
+			DataRow keyed = new DefaultRow("id" + i, new StringCell("x"));
+			MatcherAssert.assertThat(byRowId.isSelected(keyed), equalTo(byColumn.isSelected(row(i))));
+		}
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.testing;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.hamcrest.MatcherAssert;
+import org.junit.Test;
+
+import se.redfield.cp.core.scoring.QuantileSketch;
+
+public class QuantileSketchTest {
+
+	private static double[] shuffledRange(int size, long seed) {
+		double[] values = new double[size];
+		for (int i = 0; i < size; i++) {
+			values[i] = i;
+		}
+		Random rand = new Random(seed);
+		for (int i = size - 1; i > 0; i--) {
+			int j = rand.nextInt(i + 1);
+			double tmp = values[i];
+			values[i] = values[j];
+			values[j] = tmp;
+		}
+		return values;
+	}
+
+	@Test
+	public void testEmpty() {
+		QuantileSketch sketch = new QuantileSketch();
+		MatcherAssert.assertThat(Double.isNaN(sketch.getQuantile(0.5)), is(true));
+	}
+
+	@Test
+	public void testExact() {
+		double[] values = shuffledRange(1000, 1);
+		QuantileSketch sketch = new QuantileSketch(1024, 64);
+		for (double v : values) {
+			sketch.add(v);
+		}
+
+		double[] sorted = values.clone();
+		Arrays.sort(sorted);
+		MatcherAssert.assertThat(sketch.isExact(), is(true));
+		MatcherAssert.assertThat(sketch.getCount(), is(1000L));
+		for (double q : new double[] { 0, 0.05, 0.1, 0.5, 0.9, 0.95 }) {
+			MatcherAssert.assertThat(sketch.getQuantile(q), equalTo(sorted[(int) Math.floor(q * sorted.length)]));
+		}
+		MatcherAssert.assertThat(sketch.getQuantile(1), equalTo(sorted[sorted.length - 1]));
+	}
+
+	@Test
+	public void testExactMerge() {
+		double[] values = shuffledRange(1000, 2);
+		QuantileSketch first = new QuantileSketch(1024, 64);
+		QuantileSketch second = new QuantileSketch(1024, 64);
+		for (int i = 0; i < values.length; i++) {
+			(i % 2 == 0 ? first : second).add(values[i]);
+		}
+		first.merge(second);
+
+		MatcherAssert.assertThat(first.isExact(), is(true));
+		MatcherAssert.assertThat(first.getCount(), is(1000L));
+		MatcherAssert.assertThat(first.getQuantile(0.1), equalTo(100.0));
+		MatcherAssert.assertThat(first.getQuantile(0.9), equalTo(900.0));
+	}
+
+	@Test
+	public void testCompacted() {
+		int size = 100000;
+		double[] values = shuffledRange(size, 3);
+		QuantileSketch sketch = new QuantileSketch(512, 256);
+		for (double v : values) {
+			sketch.add(v);
+		}
+
+		MatcherAssert.assertThat(sketch.isExact(), is(false));
+		MatcherAssert.assertThat(sketch.getCount(), is((long) size));
+		for (double q : new double[] { 0.05, 0.1, 0.5, 0.9, 0.95 }) {
+			// the values are the ranks themselves, so the error is the rank error
+			double error = Math.abs(sketch.getQuantile(q) - Math.floor(q * size)) / size;
+			MatcherAssert.assertThat("Rank error for " + q + ": " + error, error < 0.01, is(true));
+		}
+	}
+
+	@Test
+	public void testCompactedMergeAndLoad() {
+		int size = 100000;
+		double[] values = shuffledRange(size, 4);
+		QuantileSketch first = new QuantileSketch(512, 256);
+		QuantileSketch second = new QuantileSketch(512, 256);
+		for (int i = 0; i < values.length; i++) {
+			(i < size / 3 ? first : second).add(values[i]);
+		}
+		first.merge(second);
+
+		MatcherAssert.assertThat(first.isExact(), is(false));
+		MatcherAssert.assertThat(first.getCount(), is((long) size));
+		double error = Math.abs(first.getQuantile(0.9) - 0.9 * size) / size;
+		MatcherAssert.assertThat("Rank error: " + error, error < 0.01, is(true));
+
+		QuantileSketch loaded = new QuantileSketch(512, 256);
+		loaded.load(first.getLevels(), first.getCount(), first.isExact());
+		MatcherAssert.assertThat(loaded.isExact(), is(false));
+		MatcherAssert.assertThat(loaded.getCount(), is(first.getCount()));
+		MatcherAssert.assertThat(loaded.getQuantile(0.9), equalTo(first.getQuantile(0.9)));
+	}
+}
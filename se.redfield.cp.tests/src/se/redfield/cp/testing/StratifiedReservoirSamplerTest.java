@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.testing;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.hamcrest.MatcherAssert;
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.def.StringCell;
+
+import se.redfield.cp.core.RowSelection;
+import se.redfield.cp.core.StratifiedReservoirSampler;
+
+public class StratifiedReservoirSamplerTest {
+
+	private static DataCell[] createStrata(Map<DataCell, Long> sizes, long seed) {
+		int total = 0;
+		for (long size : sizes.values()) {
+			total += size;
+		}
+		DataCell[] strata = new DataCell[total];
+		int idx = 0;
+		for (Map.Entry<DataCell, Long> e : sizes.entrySet()) {
+			for (long i = 0; i < e.getValue(); i++) {
+				strata[idx++] = e.getKey();
+			}
+		}
+		Random rand = new Random(seed);
+		for (int i = total - 1; i > 0; i--) {
+			int j = rand.nextInt(i + 1);
+			DataCell tmp = strata[i];
+			strata[i] = strata[j];
+			strata[j] = tmp;
+		}
+		return strata;
+	}
+
+	private static RowSelection sample(DataCell[] strata, long sampleSize, long seed) {
+		StratifiedReservoirSampler sampler = new StratifiedReservoirSampler(strata.length, sampleSize,
+				new Random(seed));
+		for (int i = 0; i < strata.length; i++) {
+			sampler.add(strata[i], i);
+		}
+		RowSelection selection = new RowSelection(strata.length);
+		sampler.collect(selection);
+		return selection;
+	}
+
+	private static Map<DataCell, Long> countSelected(DataCell[] strata, RowSelection selection) {
+		Map<DataCell, Long> result = new HashMap<>();
+		for (int i = 0; i < strata.length; i++) {
+			if (selection.isSelected(i)) {
+				result.merge(strata[i], 1L, Long::sum);
+			}
+		}
+		return result;
+	}
+
+	@Test
+	public void testExactQuotas() {
+		Map<DataCell, Long> sizes = new LinkedHashMap<>();
+		sizes.put(new StringCell("A"), 1000L);
+		sizes.put(new StringCell("B"), 600L);
+		sizes.put(new StringCell("C"), 400L);
+		DataCell[] strata = createStrata(sizes, 1);
+
+		RowSelection selection = sample(strata, 200, 42);
+		Map<DataCell, Long> selected = countSelected(strata, selection);
+
+		MatcherAssert.assertThat(selection.getSelectedCount(), is(200L));
+		MatcherAssert.assertThat(selected.get(new StringCell("A")), equalTo(100L));
+		MatcherAssert.assertThat(selected.get(new StringCell("B")), equalTo(60L));
+		MatcherAssert.assertThat(selected.get(new StringCell("C")), equalTo(40L));
+	}
+
+	@Test
+	public void testRoundedQuotas() {
+		Map<DataCell, Long> sizes = new LinkedHashMap<>();
+		sizes.put(new StringCell("A"), 1000L);
+		sizes.put(new StringCell("B"), 300L);
+		sizes.put(new StringCell("C"), 7L);
+		DataCell[] strata = createStrata(sizes, 2);
+
+		long sampleSize = 130;
+		double fraction = (double) sampleSize / strata.length;
+		Map<DataCell, Long> selected = countSelected(strata, sample(strata, sampleSize, 42));
+
+		for (Map.Entry<DataCell, Long> e : sizes.entrySet()) {
+			MatcherAssert.assertThat(e.getKey().toString(), selected.getOrDefault(e.getKey(), 0L),
+					equalTo(Math.round(fraction * e.getValue())));
+		}
+	}
+
+	@Test
+	public void testDeterministic() {
+		Map<DataCell, Long> sizes = new LinkedHashMap<>();
+		sizes.put(new StringCell("A"), 500L);
+		sizes.put(new StringCell("B"), 250L);
+		DataCell[] strata = createStrata(sizes, 3);
+
+		RowSelection first = sample(strata, 75, 7);
+		RowSelection second = sample(strata, 75, 7);
+		for (int i = 0; i < strata.length; i++) {
+			MatcherAssert.assertThat(first.isSelected(i), equalTo(second.isSelected(i)));
+		}
+	}
+
+	@Test
+	public void testFullSample() {
+		Map<DataCell, Long> sizes = new LinkedHashMap<>();
+		sizes.put(new StringCell("A"), 20L);
+		sizes.put(new StringCell("B"), 5L);
+		DataCell[] strata = createStrata(sizes, 4);
+
+		RowSelection selection = sample(strata, strata.length, 1);
+		MatcherAssert.assertThat(selection.getSelectedCount(), is((long) strata.length));
+	}
+
+	@Test
+	public void testReservoirBound() {
+		Map<DataCell, Long> sizes = new LinkedHashMap<>();
+		for (int i = 0; i < 50; i++) {
+			sizes.put(new StringCell("C" + i), 2000L);
+		}
+		DataCell[] strata = createStrata(sizes, 5);
+
+		long sampleSize = 1000;
+		StratifiedReservoirSampler sampler = new StratifiedReservoirSampler(strata.length, sampleSize,
+				new Random(11));
+		long maxSize = 0;
+		for (int i = 0; i < strata.length; i++) {
+			sampler.add(strata[i], i);
+			maxSize = Math.max(maxSize, sampler.getReservoirSize());
+		}
+		MatcherAssert.assertThat(maxSize < 3 * sampleSize, is(true));
+
+		RowSelection selection = new RowSelection(strata.length);
+		sampler.collect(selection);
+		MatcherAssert.assertThat(selection.getSelectedCount(), is(sampleSize));
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpec;
+
+/**
+ * Maps class labels to dense integer codes. Codes are assigned in the order the
+ * labels are added, starting from 0, so they can be used to index arrays holding
+ * per-class data. Labels are compared by their string representation, the
+ * lookup by {@link DataCell} is served from a cell map to avoid converting every
+ * cell into a string.<br />
+ * 
+ * The lookup methods don't modify the dictionary and are safe to be called from
+ * several threads as long as no labels are added concurrently.
+ *
+ */
+public class ClassDictionary {
+
+	private final Map<DataCell, Integer> cellCodes = new HashMap<>();
+	private final Map<String, Integer> labelCodes = new HashMap<>();
+	private final List<String> labels = new ArrayList<>();
+
+	/**
+	 * Creates the dictionary containing the domain values of the given column.
+	 * 
+	 * @param columnSpec The column spec.
+	 * @return The dictionary.
+	 */
+	public static ClassDictionary fromDomain(DataColumnSpec columnSpec) {
+		ClassDictionary dictionary = new ClassDictionary();
+		Set<DataCell> values = columnSpec.getDomain().getValues();
+		if (values != null) {
+			for (DataCell value : values) {
+				dictionary.add(value);
+			}
+		}
+		return dictionary;
+	}
+
+	/**
+	 * @return The number of labels in the dictionary.
+	 */
+	public int size() {
+		return labels.size();
+	}
+
+	/**
+	 * @param code The label code.
+	 * @return The label.
+	 */
+	public String getLabel(int code) {
+		return labels.get(code);
+	}
+
+	/**
+	 * @param label The label.
+	 * @return The code of the label or -1 if the label is not in the dictionary.
+	 */
+	public int indexOf(String label) {
+		Integer code = labelCodes.get(label);
+		return code == null ? -1 : code;
+	}
+
+	/**
+	 * @param cell The cell.
+	 * @return The code of the label represented by the cell or -1 if the label is
+	 *         not in the dictionary.
+	 */
+	public int indexOf(DataCell cell) {
+		Integer code = cellCodes.get(cell);
+		return code == null ? indexOf(cell.toString()) : code;
+	}
+
+	/**
+	 * Adds the label to the dictionary unless it is already there.
+	 * 
+	 * @param label The label.
+	 * @return The code of the label.
+	 */
+	public int add(String label) {
+		Integer code = labelCodes.get(label);
+		if (code == null) {
+			code = labels.size();
+			labelCodes.put(label, code);
+			labels.add(label);
+		}
+		return code;
+	}
+
+	/**
+	 * Adds the label represented by the cell to the dictionary unless it is
+	 * already there. The cell is remembered to speed up subsequent lookups.
+	 * 
+	 * @param cell The cell.
+	 * @return The code of the label.
+	 */
+	public int add(DataCell cell) {
+		Integer code = cellCodes.get(cell);
+		if (code == null) {
+			code = add(cell.toString());
+			cellCodes.put(cell, code);
+		}
+		return code;
+	}
+}
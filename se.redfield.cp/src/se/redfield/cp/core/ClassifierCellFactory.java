@@ -15,11 +15,7 @@
  */
 package se.redfield.cp.core;
 
-import static java.util.stream.Collectors.toList;
-
-import java.util.HashSet;
 import java.util.Map.Entry;
-import java.util.Set;
 
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataColumnSpec;
@@ -27,23 +23,31 @@ import org.knime.core.data.DataColumnSpecCreator;
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataType;
 import org.knime.core.data.DoubleValue;
-import org.knime.core.data.MissingCell;
-import org.knime.core.data.collection.CollectionCellFactory;
-import org.knime.core.data.collection.SetCell;
 import org.knime.core.data.container.AbstractCellFactory;
-import org.knime.core.data.def.StringCell;
+import org.knime.core.data.vector.doublevector.DoubleVectorValue;
 
 import se.redfield.cp.settings.ClassifierSettings;
 
 /**
  * CellFactory used to create Classes column. Collects all classes that has
- * P-value greater than selected threshold.
+ * P-value greater than selected threshold. For up to
+ * {@link PredictionSetCells#MAX_CLASSES} classes the prediction set is
+ * collected into a bitmask and the output cell is taken from the
+ * {@link PredictionSetCells} cache. Otherwise the indices of the included
+ * classes are collected and the cell is built from their labels. In both cases
+ * the Classes column holds the class labels. A missing p-value results in a
+ * missing Classes cell.
  * 
  * @author Alexander Bondaletov
  *
  */
 public class ClassifierCellFactory extends AbstractCellFactory {
 	private ClassifierSettings settings;
+	private final String[] labels;
+	private final int[] scoreColumns;
+	private final int vectorColumn;
+	private final PredictionSetCells cells;
+	private final int[] indices;
 
 	/**
 	 * @param settings The classifier settings.
@@ -51,35 +55,76 @@ public class ClassifierCellFactory extends AbstractCellFactory {
 	public ClassifierCellFactory(ClassifierSettings settings) {
 		super(createClassColumnSpec(settings));
 		this.settings = settings;
+
+		vectorColumn = settings.getPValuesVectorColumn();
+		if (vectorColumn >= 0) {
+			labels = settings.getVectorLabels().toArray(new String[] {});
+			scoreColumns = new int[0];
+		} else {
+			int size = settings.getScoreColumns().size();
+			labels = new String[size];
+			scoreColumns = new int[size];
+			int idx = 0;
+			for (Entry<String, Integer> e : settings.getScoreColumns().entrySet()) {
+				labels[idx] = e.getKey();
+				scoreColumns[idx++] = e.getValue();
+			}
+		}
+		cells = new PredictionSetCells(labels, settings.getClassesAsString(), settings.getStringSeparator());
+		indices = cells.supportsMask() ? new int[0] : new int[labels.length];
 	}
 
 	private static DataColumnSpec createClassColumnSpec(ClassifierSettings settings) {
-		DataType type = settings.getClassesAsString() ? StringCell.TYPE : SetCell.getCollectionType(StringCell.TYPE);
-		return new DataColumnSpecCreator(settings.getClassesColumnName(), type).createSpec();
+		return new DataColumnSpecCreator(settings.getClassesColumnName(),
+				PredictionSetCells.getCellType(settings.getClassesAsString())).createSpec();
 	}
 
 	@Override
 	public DataCell[] getCells(DataRow row) {
-		Set<String> classes = new HashSet<>();
+		double errorRate = settings.getErrorRate();
+		DoubleVectorValue vector = null;
+		if (vectorColumn >= 0) {
+			DataCell vectorCell = row.getCell(vectorColumn);
+			if (vectorCell.isMissing()) {
+				return new DataCell[] { vectorCell };
+			}
+			vector = (DoubleVectorValue) vectorCell;
+		} else if (hasMissingScore(row)) {
+			return new DataCell[] { DataType.getMissingCell() };
+		}
 
-		for (Entry<String, Integer> e : settings.getScoreColumns().entrySet()) {
-			double score = ((DoubleValue) row.getCell(e.getValue())).getDoubleValue();
-			if (score > settings.getErrorRate()) {
-				classes.add(e.getKey());
+		if (cells.supportsMask()) {
+			long mask = 0;
+			for (int i = 0; i < labels.length; i++) {
+				if (getScore(row, vector, i) > errorRate) {
+					mask |= 1L << i;
+				}
 			}
+			return new DataCell[] { cells.getCell(mask) };
 		}
 
-		DataCell result;
-		if (classes.isEmpty()) {
-			result = new MissingCell("No class asigned");
-		} else {
-			if (settings.getClassesAsString()) {
-				result = new StringCell(String.join(settings.getStringSeparator(), classes));
-			} else {
-				result = CollectionCellFactory.createSetCell(classes.stream().map(StringCell::new).collect(toList()));
+		int count = 0;
+		for (int i = 0; i < labels.length; i++) {
+			if (getScore(row, vector, i) > errorRate) {
+				indices[count++] = i;
 			}
 		}
+		return new DataCell[] { cells.createCell(indices, count) };
+	}
 
-		return new DataCell[] { result };
+	private boolean hasMissingScore(DataRow row) {
+		for (int column : scoreColumns) {
+			if (row.getCell(column).isMissing()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private double getScore(DataRow row, DoubleVectorValue vector, int idx) {
+		if (vector != null) {
+			return vector.getValue(idx);
+		}
+		return ((DoubleValue) row.getCell(scoreColumns[idx])).getDoubleValue();
 	}
 }
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tracks the convergence of the aggregated calibration of a training loop.<br/>
+ * 
+ * A probe set of score values is taken from the quantiles of the calibration
+ * scores of the first iteration. On each iteration the p-value of every probe
+ * is computed against the calibration scores of the iteration, and the running
+ * median of the p-values over all the iterations so far is updated. The
+ * calibration is considered converged once the largest change of the running
+ * medians drops below the tolerance.
+ *
+ */
+public class ConvergenceMonitor {
+
+	private final int probesCount;
+	private final double tolerance;
+	private final int minIterations;
+
+	private double[] probes;
+	private double[] medians;
+	private final List<double[]> pValues = new ArrayList<>();
+	private double lastChange = Double.NaN;
+
+	/**
+	 * Creates new instance.
+	 * 
+	 * @param probesCount   The number of probe values.
+	 * @param tolerance     The largest change of the median p-values considered
+	 *                      as converged.
+	 * @param minIterations The minimal number of iterations.
+	 */
+	public ConvergenceMonitor(int probesCount, double tolerance, int minIterations) {
+		this.probesCount = probesCount;
+		this.tolerance = tolerance;
+		this.minIterations = minIterations;
+	}
+
+	/**
+	 * Adds the calibration scores of the next iteration.
+	 * 
+	 * @param scores The calibration scores.
+	 * @return Whether the calibration has converged.
+	 */
+	public boolean add(double[] scores) {
+		double[] sorted = scores.clone();
+		Arrays.sort(sorted);
+		if (sorted.length == 0) {
+			return false;
+		}
+
+		if (probes == null) {
+			probes = new double[probesCount];
+			for (int i = 0; i < probesCount; i++) {
+				probes[i] = sorted[(int) ((long) (i + 1) * (sorted.length - 1) / (probesCount + 1))];
+			}
+		}
+
+		double[] iterPValues = new double[probesCount];
+		for (int i = 0; i < probesCount; i++) {
+			iterPValues[i] = (double) countNotGreater(sorted, probes[i]) / sorted.length;
+		}
+		pValues.add(iterPValues);
+
+		double[] newMedians = computeMedians();
+		if (medians != null) {
+			lastChange = 0;
+			for (int i = 0; i < probesCount; i++) {
+				lastChange = Math.max(lastChange, Math.abs(newMedians[i] - medians[i]));
+			}
+		}
+		medians = newMedians;
+
+		return pValues.size() >= minIterations && lastChange < tolerance;
+	}
+
+	private double[] computeMedians() {
+		double[] result = new double[probesCount];
+		double[] buffer = new double[pValues.size()];
+		for (int i = 0; i < probesCount; i++) {
+			for (int j = 0; j < buffer.length; j++) {
+				buffer[j] = pValues.get(j)[i];
+			}
+			result[i] = PositionalMedianAggregator.median(buffer, buffer.length);
+		}
+		return result;
+	}
+
+	private static int countNotGreater(double[] sorted, double value) {
+		int low = 0;
+		int high = sorted.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (sorted[mid] <= value) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * @return The number of iterations added.
+	 */
+	public int getIterations() {
+		return pValues.size();
+	}
+
+	/**
+	 * @return The largest change of the median p-values on the last iteration.
+	 */
+	public double getLastChange() {
+		return lastChange;
+	}
+}
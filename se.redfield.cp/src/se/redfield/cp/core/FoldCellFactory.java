@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.core;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.container.SingleCellFactory;
+import org.knime.core.data.def.IntCell;
+
+/**
+ * Cell factory assigning a fold index (0-based) to each row in a single pass.
+ * <br/>
+ * 
+ * In the random mode the folds are drawn from shuffled blocks containing each
+ * fold once. With a stratification column a separate block is kept for each
+ * class, which keeps the class distribution of every fold close to the one of
+ * the whole table. The last, incomplete block of a class continues the folds
+ * where the previous class stopped, so both the fold sizes and the class sizes
+ * within each fold differ by at most one. The blocks are filled in the table
+ * order in the sequential and the linear modes.
+ *
+ */
+public class FoldCellFactory extends SingleCellFactory {
+
+	private final int folds;
+	private final int classIdx;
+	private final Random rand;
+	private final long rowCount;
+	private final boolean contiguous;
+
+	private final Map<DataCell, FoldBlock> blocks = new HashMap<>();
+	private final IntCell[] cells;
+	private long row;
+
+	/**
+	 * Creates instance.
+	 * 
+	 * @param columnName  The name of the fold column.
+	 * @param folds       The number of folds.
+	 * @param classIdx    The index of the stratification column, or -1.
+	 * @param strataSizes The number of rows of each class of the stratification
+	 *                    column. Only used when the column is set.
+	 * @param rand        The random instance, or <code>null</code> to assign the
+	 *                    folds in the table order.
+	 * @param rowCount    The number of rows in the table.
+	 * @param contiguous  Whether to assign contiguous ranges of rows to the same
+	 *                    fold. Only used when the random instance is not set.
+	 */
+	public FoldCellFactory(String columnName, int folds, int classIdx, Map<DataCell, Long> strataSizes,
+			Random rand, long rowCount, boolean contiguous) {
+		super(createColumnSpec(columnName));
+		this.folds = folds;
+		this.classIdx = classIdx;
+		this.rand = rand;
+		this.rowCount = rowCount;
+		this.contiguous = contiguous;
+		this.row = 0;
+
+		cells = new IntCell[folds];
+		for (int i = 0; i < folds; i++) {
+			cells[i] = new IntCell(i);
+		}
+
+		if (classIdx < 0) {
+			blocks.put(IntCell.TYPE.getMissingCell(), new FoldBlock(rowCount, 0));
+		} else {
+			long offset = 0;
+			for (Map.Entry<DataCell, Long> e : strataSizes.entrySet()) {
+				blocks.put(e.getKey(), new FoldBlock(e.getValue(), (int) (offset % folds)));
+				offset += e.getValue();
+			}
+		}
+	}
+
+	private static DataColumnSpec createColumnSpec(String columnName) {
+		return new DataColumnSpecCreator(columnName, IntCell.TYPE).createSpec();
+	}
+
+	@Override
+	public DataCell getCell(DataRow r) {
+		int fold;
+		if (rand != null) {
+			DataCell stratum = classIdx < 0 ? IntCell.TYPE.getMissingCell() : r.getCell(classIdx);
+			fold = blocks.get(stratum).next();
+		} else if (contiguous) {
+			fold = (int) (row * folds / Math.max(rowCount, 1));
+		} else {
+			fold = (int) (row % folds);
+		}
+		row += 1;
+		return cells[fold];
+	}
+
+	/**
+	 * Shuffled permutation of the fold indexes, reshuffled once exhausted. The
+	 * last block of a stratum is shorter and holds the consecutive folds starting
+	 * from the offset of the stratum.
+	 */
+	private class FoldBlock {
+		private final int[] order;
+		private final int offset;
+		private long remaining;
+		private int length;
+		private int pos;
+
+		private FoldBlock(long size, int offset) {
+			this.order = new int[folds];
+			this.offset = offset;
+			this.remaining = size;
+			this.length = 0;
+			this.pos = 0;
+		}
+
+		private int next() {
+			if (pos == length) {
+				length = (int) Math.min(folds, remaining);
+				for (int i = 0; i < length; i++) {
+					order[i] = (offset + i) % folds;
+				}
+				for (int i = length - 1; i > 0; i--) {
+					int j = rand.nextInt(i + 1);
+					int tmp = order[i];
+					order[i] = order[j];
+					order[j] = tmp;
+				}
+				remaining -= length;
+				pos = 0;
+			}
+			return order[pos++];
+		}
+	}
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.core;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.streamable.RowInput;
+import org.knime.core.node.streamable.RowOutput;
+
+/**
+ * Partitions rows independently from each other by the hash of the row ID or of
+ * the ID column value. The row goes to the first partition when its seeded hash
+ * mapped to [0, 1) is below the fraction. The result only depends on the key
+ * value and the seed, so it does not depend on the row order or the table size
+ * and is the same on every machine.
+ *
+ */
+public class HashPartitioner {
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	private final double fraction;
+	private final long seed;
+	private final int keyColumnIdx;
+
+	/**
+	 * Creates instance.
+	 * 
+	 * @param fraction     The fraction of rows in the first partition.
+	 * @param seed         The hash seed.
+	 * @param keyColumnIdx The index of the ID column, or -1 to use the row ID.
+	 */
+	public HashPartitioner(double fraction, long seed, int keyColumnIdx) {
+		this.fraction = fraction;
+		this.seed = seed;
+		this.keyColumnIdx = keyColumnIdx;
+	}
+
+	/**
+	 * @param row The row.
+	 * @return Whether the row belongs to the first partition.
+	 */
+	public boolean isSelected(DataRow row) {
+		return toUnit(hash(getKey(row))) < fraction;
+	}
+
+	private String getKey(DataRow row) {
+		if (keyColumnIdx < 0) {
+			return row.getKey().getString();
+		}
+		DataCell cell = row.getCell(keyColumnIdx);
+		return cell.isMissing() ? "" : cell.toString();
+	}
+
+	private long hash(String key) {
+		long h = FNV_OFFSET ^ seed;
+		for (int i = 0; i < key.length(); i++) {
+			char c = key.charAt(i);
+			h = (h ^ (c & 0xff)) * FNV_PRIME;
+			h = (h ^ (c >>> 8)) * FNV_PRIME;
+		}
+		// final mixing step of SplitMix64
+		h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+		h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+		return h ^ (h >>> 31);
+	}
+
+	private static double toUnit(long hash) {
+		return (hash >>> 11) * 0x1.0p-53;
+	}
+
+	/**
+	 * Partitions provided table into 2 tables.
+	 * 
+	 * @param inTable Input table.
+	 * @param exec    Execution context.
+	 * @return The result of a partitioning.
+	 * @throws CanceledExecutionException
+	 */
+	public BufferedDataTable[] partition(BufferedDataTable inTable, ExecutionContext exec)
+			throws CanceledExecutionException {
+		BufferedDataContainer matchContainer = exec.createDataContainer(inTable.getDataTableSpec());
+		BufferedDataContainer missContainer = exec.createDataContainer(inTable.getDataTableSpec());
+
+		long count = 0;
+		long totalCount = inTable.size();
+		for (DataRow row : inTable) {
+			BufferedDataContainer curContainer = isSelected(row) ? matchContainer : missContainer;
+			curContainer.addRowToTable(row);
+			count += 1;
+
+			exec.checkCanceled();
+			exec.setProgress((double) count / totalCount);
+		}
+
+		matchContainer.close();
+		missContainer.close();
+		return new BufferedDataTable[] { matchContainer.getTable(), missContainer.getTable() };
+	}
+
+	/**
+	 * Partitions the rows of the streamed input.
+	 * 
+	 * @param input The input rows.
+	 * @param match The output for the rows of the first partition.
+	 * @param miss  The output for the rows of the second partition.
+	 * @param exec  Execution context.
+	 * @throws InterruptedException
+	 * @throws CanceledExecutionException
+	 */
+	public void partition(RowInput input, RowOutput match, RowOutput miss, ExecutionContext exec)
+			throws InterruptedException, CanceledExecutionException {
+		DataRow row;
+		while ((row = input.poll()) != null) {
+			if (isSelected(row)) {
+				match.push(row);
+			} else {
+				miss.push(row);
+			}
+			exec.checkCanceled();
+		}
+		input.close();
+		match.close();
+		miss.close();
+	}
+}
@@ -16,12 +16,19 @@
 package se.redfield.cp.core;
 
 import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 import org.knime.core.data.DataRow;
-import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.IntValue;
 import org.knime.core.data.container.CloseableRowIterator;
-import org.knime.core.data.def.IntCell;
+import org.knime.core.data.container.filter.TableFilter;
+import org.knime.core.data.v2.RowCursor;
+import org.knime.core.data.v2.RowRead;
 import org.knime.core.node.BufferedDataContainer;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
@@ -34,18 +41,25 @@ import org.knime.core.node.ExecutionContext;
  * Takes a table containing "Iteration column" and produces sequence of tables,
  * where each new table corresponds to a single iteration.<br/>
  * 
- * Iterations doesn't have to be consequent numbers, but table has to be
- * grouped/sorted by the iteration value.
+ * Iterations doesn't have to be consequent numbers and the table doesn't have
+ * to be grouped/sorted by the iteration value. Segments are returned in the
+ * order of the first appearance of the iteration.<br/>
+ * 
+ * The row ranges of the iterations are indexed once by reading only the
+ * iteration column. Each segment is then copied in a single scan over the rows
+ * between its first and last range, so interleaved iterations cost one pass
+ * per iteration rather than one iterator per range. A table consisting of a
+ * single iteration is returned as is, without copying.
  *
  */
 public class IterationsTableSeparator implements Closeable {
 
-	private CloseableRowIterator iterator;
-	private int iterationColumn;
-	private DataTableSpec spec;
+	private final BufferedDataTable table;
+	private final Map<Integer, List<IterationRange>> ranges;
+	private final List<Integer> iterations;
+	private int nextIteration;
 
 	private int iteration;
-	private DataRow row;
 
 	/**
 	 * Creates new instance.
@@ -54,9 +68,38 @@ public class IterationsTableSeparator implements Closeable {
 	 * @param iterationColumnName Iteration column name.
 	 */
 	public IterationsTableSeparator(BufferedDataTable inTable, String iterationColumnName) {
-		iterator = inTable.iterator();
-		iterationColumn = inTable.getSpec().findColumnIndex(iterationColumnName);
-		spec = inTable.getSpec();
+		table = inTable;
+		ranges = indexIterations(inTable, inTable.getSpec().findColumnIndex(iterationColumnName));
+		iterations = new ArrayList<>(ranges.keySet());
+		nextIteration = 0;
+	}
+
+	/**
+	 * Collects row ranges of the consecutive rows belonging to the same iteration
+	 * in a single pass.
+	 * 
+	 * @param inTable         Input table.
+	 * @param iterationColumn Iteration column index.
+	 * @return The ranges for each iteration in the order of the first appearance.
+	 */
+	private static Map<Integer, List<IterationRange>> indexIterations(BufferedDataTable inTable,
+			int iterationColumn) {
+		Map<Integer, List<IterationRange>> result = new LinkedHashMap<>();
+		IterationRange current = null;
+		long idx = 0;
+
+		try (RowCursor cursor = inTable.cursor(TableFilter.materializeCols(iterationColumn))) {
+			while (cursor.canForward()) {
+				int iter = getIteration(cursor.forward(), iterationColumn);
+				if (current == null || current.iteration != iter) {
+					current = new IterationRange(iter, idx);
+					result.computeIfAbsent(iter, k -> new ArrayList<>()).add(current);
+				}
+				current.to = idx;
+				idx += 1;
+			}
+		}
+		return result;
 	}
 
 	/**
@@ -69,15 +112,54 @@ public class IterationsTableSeparator implements Closeable {
 	 * @throws NoSuchElementException     If no next segment is available.
 	 */
 	public BufferedDataTable next(ExecutionContext exec) throws CanceledExecutionException {
-		iteration = getNextIteration();
+		int iter = getNextIteration();
+		nextIteration += 1;
+		iteration = iter;
+		return get(iter, exec);
+	}
 
-		BufferedDataContainer cont = exec.createDataContainer(spec);
+	/**
+	 * Gets the segment corresponding to the given iteration. Doesn't affect the
+	 * sequence of segments returned by the <code>next()</code> method.
+	 * 
+	 * @param iter The iteration.
+	 * @param exec Execution context.
+	 * @return Table with the segment.
+	 * @throws CanceledExecutionException In case the node execution was canceled by
+	 *                                    the user.
+	 * @throws NoSuchElementException     If the table has no rows for the
+	 *                                    iteration.
+	 */
+	public BufferedDataTable get(int iter, ExecutionContext exec) throws CanceledExecutionException {
+		List<IterationRange> segment = ranges.get(iter);
+		if (segment == null) {
+			throw new NoSuchElementException("No data for iteration: " + iter);
+		}
 
-		do {
-			cont.addRowToTable(row);
-			row = iterator.hasNext() ? iterator.next() : null;
-			exec.checkCanceled();
-		} while (row != null && getIteration(row) == iteration);
+		if (segment.size() == 1 && segment.get(0).from == 0 && segment.get(0).to == table.size() - 1) {
+			return table;
+		}
+
+		// a single scan over the rows spanned by the iteration, regardless of how many
+		// ranges it consists of
+		BufferedDataContainer cont = exec.createDataContainer(table.getSpec());
+		Iterator<IterationRange> ranges = segment.iterator();
+		IterationRange range = ranges.next();
+		long idx = range.from;
+		long to = segment.get(segment.size() - 1).to;
+		try (CloseableRowIterator it = table.filter(TableFilter.filterRangeOfRows(idx, to))) {
+			while (it.hasNext()) {
+				DataRow row = it.next();
+				if (idx > range.to) {
+					range = ranges.next();
+				}
+				if (idx >= range.from) {
+					cont.addRowToTable(row);
+				}
+				idx += 1;
+				exec.checkCanceled();
+			}
+		}
 
 		cont.close();
 		return cont.getTable();
@@ -88,7 +170,23 @@ public class IterationsTableSeparator implements Closeable {
 	 * 
 	 */
 	public boolean hasNext() {
-		return row != null || iterator.hasNext();
+		return nextIteration < iterations.size();
+	}
+
+	/**
+	 * @return All the iterations in the order the segments are returned by the
+	 *         <code>next()</code> method.
+	 */
+	public List<Integer> getIterations() {
+		return iterations;
+	}
+
+	/**
+	 * @param iter The iteration.
+	 * @return Whether the table has rows for the iteration.
+	 */
+	public boolean hasIteration(int iter) {
+		return ranges.containsKey(iter);
 	}
 
 	/**
@@ -110,29 +208,44 @@ public class IterationsTableSeparator implements Closeable {
 	 * @throws NoSuchElementException If no next segment is available.
 	 */
 	public int getNextIteration() {
-		if (row == null) {
-			row = iterator.next();
+		if (!hasNext()) {
+			throw new NoSuchElementException();
 		}
-		return getIteration(row);
+		return iterations.get(nextIteration);
 	}
 
 	/**
-	 * Fetches iteration value from the {@link DataRow}
+	 * Fetches iteration value from the {@link RowRead}
 	 * 
-	 * @param r Data row
+	 * @param r               Row
+	 * @param iterationColumn Iteration column index
 	 * @return Iteration value
 	 */
-	private int getIteration(DataRow r) {
-		return ((IntCell) r.getCell(iterationColumn)).getIntValue();
+	private static int getIteration(RowRead r, int iterationColumn) {
+		return r.<IntValue> getValue(iterationColumn).getIntValue();
 	}
 
 	/**
-	 * Closes internal {@link CloseableRowIterator} object.
+	 * The segments are read from the input table on demand, so there is nothing
+	 * to release.
 	 */
 	@Override
 	public void close() {
-		if (iterator != null) {
-			iterator.close();
+		// nothing to close
+	}
+
+	/**
+	 * Range of consecutive rows belonging to the same iteration.
+	 */
+	private static class IterationRange {
+		private final int iteration;
+		private final long from;
+		private long to;
+
+		private IterationRange(int iteration, long from) {
+			this.iteration = iteration;
+			this.from = from;
+			this.to = from;
 		}
 	}
 }
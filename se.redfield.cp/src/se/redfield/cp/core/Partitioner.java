@@ -15,6 +15,8 @@
  */
 package se.redfield.cp.core;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Random;
 
 import org.knime.base.node.preproc.filter.row.rowfilter.EndOfTableException;
@@ -25,15 +27,28 @@ import org.knime.base.node.preproc.sample.Sampler;
 import org.knime.base.node.preproc.sample.SamplingNodeSettings;
 import org.knime.base.node.preproc.sample.SamplingNodeSettings.CountMethods;
 import org.knime.base.node.preproc.sample.SamplingNodeSettings.SamplingMethods;
-import org.knime.base.node.preproc.sample.StratifiedSamplingRowFilter;
+import org.knime.core.data.DataCell;
 import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.append.AppendedColumnRow;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.container.ColumnRearranger;
+import org.knime.core.data.container.filter.TableFilter;
 import org.knime.core.node.BufferedDataContainer;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
 
+import se.redfield.cp.utils.KnimeUtils;
+
 /**
  * Class used to partition provided table based on a given sampling settings.
+ * <br/>
+ * 
+ * The partitioning is done in two steps: the rows matching the sampling
+ * settings are collected into a {@link RowSelection} first, and then the input
+ * table is split according to the selection. In case all the rows end up in
+ * the same partition the input table is returned as is.
  *
  */
 public class Partitioner {
@@ -90,33 +105,219 @@ public class Partitioner {
 	 */
 	public BufferedDataTable[] partition(BufferedDataTable inTable, ExecutionContext exec, boolean computeK)
 			throws CanceledExecutionException {
-		IRowFilter filter = getRowFilter(inTable, exec, computeK);
+		RowSelection selection = select(inTable, exec.createSubExecutionContext(0.5), computeK);
+		return split(inTable, selection, exec.createSubExecutionContext(0.5));
+	}
 
-		BufferedDataContainer matchContainer = exec.createDataContainer(inTable.getDataTableSpec());
-		BufferedDataContainer missContainer = exec.createDataContainer(inTable.getDataTableSpec());
+	/**
+	 * Selects the rows of the first partition based on a sampling settings.
+	 * 
+	 * @param inTable  Input table.
+	 * @param exec     Execution context.
+	 * @param computeK
+	 * @return The selected rows.
+	 * @throws CanceledExecutionException
+	 */
+	public RowSelection select(BufferedDataTable inTable, ExecutionContext exec, boolean computeK)
+			throws CanceledExecutionException {
+		return selectAll(inTable, 1, exec, computeK)[0];
+	}
 
-		BufferedDataContainer putAllContainer = null;
+	/**
+	 * Selects the rows of the first partition for several consecutive iterations
+	 * at once. All the selections are computed in a single pass over the table.
+	 * 
+	 * @param inTable    Input table.
+	 * @param iterations The number of iterations.
+	 * @param exec       Execution context.
+	 * @param computeK
+	 * @return The selected rows for each iteration.
+	 * @throws CanceledExecutionException
+	 */
+	public RowSelection[] selectAll(BufferedDataTable inTable, int iterations, ExecutionContext exec,
+			boolean computeK) throws CanceledExecutionException {
+		if (settings.samplingMethod() == SamplingMethods.Stratified) {
+			return selectStratified(inTable, iterations, exec, computeK);
+		}
+
+		IRowFilter[] filters = new IRowFilter[iterations];
+		RowSelection[] selections = new RowSelection[iterations];
+		for (int i = 0; i < iterations; i++) {
+			filters[i] = getRowFilter(inTable, exec, computeK);
+			selections[i] = new RowSelection(inTable.size());
+			iteration += 1;
+		}
+
+		boolean[] done = new boolean[iterations];
+		int remaining = iterations;
 
 		long count = 0;
 		long totalCount = inTable.size();
-		for (DataRow row : inTable) {
-			BufferedDataContainer curContainer = null;
-
-			if (putAllContainer == null) {
-				try {
-					curContainer = filter.matches(row, count) ? matchContainer : missContainer;
-				} catch (EndOfTableException e) {
-					putAllContainer = missContainer;
-				} catch (IncludeFromNowOn e) {
-					putAllContainer = matchContainer;
+		try (CloseableRowIterator it = createSelectionIterator(inTable)) {
+			while (remaining > 0 && it.hasNext()) {
+				DataRow row = it.next();
+				for (int i = 0; i < iterations; i++) {
+					if (done[i]) {
+						continue;
+					}
+					try {
+						if (filters[i].matches(row, count)) {
+							selections[i].select(count);
+						}
+					} catch (EndOfTableException e) {
+						done[i] = true;
+						remaining -= 1;
+					} catch (IncludeFromNowOn e) {
+						selections[i].selectRange(count, totalCount);
+						done[i] = true;
+						remaining -= 1;
+					}
 				}
+				count += 1;
+
+				exec.checkCanceled();
+				exec.setProgress((double) count / totalCount);
 			}
+		}
+
+		return selections;
+	}
+
+	/**
+	 * Selects the rows using {@link StratifiedReservoirSampler} for each
+	 * iteration. All the iterations are sampled in a single pass reading only the
+	 * class column.
+	 */
+	private RowSelection[] selectStratified(BufferedDataTable inTable, int iterations, ExecutionContext exec,
+			boolean computeK) throws CanceledExecutionException {
+		int classIdx = inTable.getDataTableSpec().findColumnIndex(settings.classColumn());
+
+		int rowCount = getRowCount(inTable, computeK);
+		StratifiedReservoirSampler[] samplers = new StratifiedReservoirSampler[iterations];
+		for (int i = 0; i < iterations; i++) {
+			samplers[i] = new StratifiedReservoirSampler(inTable.size(), rowCount, getRandomInstance());
+			iteration += 1;
+		}
+
+		long count = 0;
+		long totalCount = inTable.size();
+		try (CloseableRowIterator it = createSelectionIterator(inTable)) {
+			while (it.hasNext()) {
+				DataCell stratum = it.next().getCell(classIdx);
+				for (StratifiedReservoirSampler sampler : samplers) {
+					sampler.add(stratum, count);
+				}
+				count += 1;
+
+				exec.checkCanceled();
+				exec.setProgress((double) count / totalCount);
+			}
+		}
+
+		RowSelection[] selections = new RowSelection[iterations];
+		for (int i = 0; i < iterations; i++) {
+			selections[i] = new RowSelection(totalCount);
+			samplers[i].collect(selections[i]);
+		}
+		return selections;
+	}
+
+	/**
+	 * Counts the rows of each class of the stratification column. Only the class
+	 * column is read.
+	 * 
+	 * @param inTable Input table.
+	 * @param exec    Execution context.
+	 * @return The number of rows of each class, or an empty map if the sampling
+	 *         is not stratified.
+	 * @throws CanceledExecutionException
+	 */
+	public Map<DataCell, Long> countStrata(BufferedDataTable inTable, ExecutionContext exec)
+			throws CanceledExecutionException {
+		Map<DataCell, Long> strataSizes = new HashMap<>();
+		if (settings.samplingMethod() != SamplingMethods.Stratified) {
+			return strataSizes;
+		}
+
+		int classIdx = inTable.getDataTableSpec().findColumnIndex(settings.classColumn());
+		long count = 0;
+		long totalCount = inTable.size();
+		try (CloseableRowIterator it = inTable.filter(TableFilter.materializeCols(classIdx))) {
+			while (it.hasNext()) {
+				strataSizes.merge(it.next().getCell(classIdx), 1L, Long::sum);
+				count += 1;
 
-			if (putAllContainer != null) {
-				curContainer = putAllContainer;
+				exec.checkCanceled();
+				exec.setProgress((double) count / totalCount);
 			}
+		}
+		return strataSizes;
+	}
+
+	/**
+	 * Creates iterator used to evaluate the row filter. Only the class column is
+	 * read in case of stratified sampling, other filters depend on the row index
+	 * only, so no columns are materialized for them.
+	 */
+	private CloseableRowIterator createSelectionIterator(BufferedDataTable inTable) {
+		if (settings.samplingMethod() == SamplingMethods.Stratified) {
+			int classIdx = inTable.getDataTableSpec().findColumnIndex(settings.classColumn());
+			return inTable.filter(TableFilter.materializeCols(classIdx));
+		}
+		return inTable.filter(TableFilter.materializeCols());
+	}
+
+	/**
+	 * Splits the table into 2 tables based on the row selection. In case one of
+	 * the partitions is empty the input table is returned as the other partition
+	 * without copying.
+	 * 
+	 * @param inTable   Input table.
+	 * @param selection The rows of the first partition.
+	 * @param exec      Execution context.
+	 * @return The selected and not selected rows.
+	 * @throws CanceledExecutionException
+	 */
+	public static BufferedDataTable[] split(BufferedDataTable inTable, RowSelection selection,
+			ExecutionContext exec) throws CanceledExecutionException {
+		return split(inTable, selection, null, exec);
+	}
 
-			curContainer.addRowToTable(row);// NOSONAR curContainer is never null
+	/**
+	 * Splits the table into 2 tables based on the row selection. The rows are
+	 * copied anyway, so the provided suffix is added to the row ids at no extra
+	 * cost. In case one of the partitions is empty and no suffix is provided the
+	 * input table is returned as the other partition without copying.
+	 * 
+	 * @param inTable     Input table.
+	 * @param selection   The rows of the first partition.
+	 * @param rowIdSuffix The suffix added to the row ids or <code>null</code> to
+	 *                    keep the row ids.
+	 * @param exec        Execution context.
+	 * @return The selected and not selected rows.
+	 * @throws CanceledExecutionException
+	 */
+	public static BufferedDataTable[] split(BufferedDataTable inTable, RowSelection selection, String rowIdSuffix,
+			ExecutionContext exec) throws CanceledExecutionException {
+		if (rowIdSuffix == null
+				&& (selection.getSelectedCount() == 0 || selection.getSelectedCount() == inTable.size())) {
+			BufferedDataContainer empty = exec.createDataContainer(inTable.getDataTableSpec());
+			empty.close();
+			return selection.getSelectedCount() == 0 ? new BufferedDataTable[] { empty.getTable(), inTable }
+					: new BufferedDataTable[] { inTable, empty.getTable() };
+		}
+
+		BufferedDataContainer matchContainer = exec.createDataContainer(inTable.getDataTableSpec());
+		BufferedDataContainer missContainer = exec.createDataContainer(inTable.getDataTableSpec());
+
+		long count = 0;
+		long totalCount = inTable.size();
+		for (DataRow row : inTable) {
+			BufferedDataContainer curContainer = selection.isSelected(count) ? matchContainer : missContainer;
+			if (rowIdSuffix != null) {
+				row = new AppendedColumnRow(KnimeUtils.createRowKey(row.getKey(), rowIdSuffix), row);
+			}
+			curContainer.addRowToTable(row);
 			count += 1;
 
 			exec.checkCanceled();
@@ -125,10 +326,37 @@ public class Partitioner {
 
 		matchContainer.close();
 		missContainer.close();
-		iteration += 1;
 		return new BufferedDataTable[] { matchContainer.getTable(), missContainer.getTable() };
 	}
 
+	/**
+	 * Creates rearranger appending the fold index column to the table. The folds
+	 * are assigned in a single pass: randomly for the random sampling, randomly
+	 * within each class for the stratified sampling, as contiguous row ranges for
+	 * the "take from top" mode and in the round-robin fashion for the linear
+	 * sampling.
+	 * 
+	 * @param inSpec      Input table spec.
+	 * @param strataSizes The class sizes computed by
+	 *                    {@link #countStrata(BufferedDataTable, ExecutionContext)}.
+	 * @param rowCount    The number of rows in the table.
+	 * @param folds       The number of folds.
+	 * @param columnName  The name of the fold column.
+	 * @return The rearranger.
+	 */
+	public ColumnRearranger createFoldRearranger(DataTableSpec inSpec, Map<DataCell, Long> strataSizes,
+			long rowCount, int folds, String columnName) {
+		int classIdx = -1;
+		if (settings.samplingMethod() == SamplingMethods.Stratified) {
+			classIdx = inSpec.findColumnIndex(settings.classColumn());
+		}
+
+		ColumnRearranger r = new ColumnRearranger(inSpec);
+		r.append(new FoldCellFactory(columnName, folds, classIdx, strataSizes, getRandomInstance(), rowCount,
+				settings.samplingMethod() == SamplingMethods.First));
+		return r;
+	}
+
 	/**
 	 * Creates {@link IRowFilter} instance based on a sampling settings
 	 * 
@@ -140,15 +368,7 @@ public class Partitioner {
 	private IRowFilter getRowFilter(BufferedDataTable inTable, ExecutionContext exec, boolean computeK)
 			throws CanceledExecutionException {
 		Random rand = getRandomInstance();
-
-		int rowCount;
-		if (settings.countMethod() == CountMethods.Relative) {
-			rowCount = (int) (settings.fraction() * inTable.size());
-		} else {
-			rowCount = settings.count();
-		}
-		if (computeK)
-			rowCount = computeK(rowCount);
+		int rowCount = getRowCount(inTable, computeK);
 
 		switch (settings.samplingMethod()) {
 		case First:
@@ -157,13 +377,23 @@ public class Partitioner {
 			return new LinearSamplingRowFilter(inTable.size(), rowCount);
 		case Random:
 			return Sampler.createSampleFilter(inTable, rowCount, rand, exec);
-		case Stratified:
-			return new StratifiedSamplingRowFilter(inTable, settings.classColumn(), rowCount, rand, exec);
 		default:
 			throw new UnsupportedOperationException("Unknown sampling method: " + settings.samplingMethod());
 		}
 	}
 
+	private int getRowCount(BufferedDataTable inTable, boolean computeK) {
+		int rowCount;
+		if (settings.countMethod() == CountMethods.Relative) {
+			rowCount = (int) (settings.fraction() * inTable.size());
+		} else {
+			rowCount = settings.count();
+		}
+		if (computeK)
+			rowCount = computeK(rowCount);
+		return rowCount;
+	}
+
 	/**
 	 * Creates {@link Random} instance. Uses seed from sampling settings of default
 	 * seed value. If iterationDependent flag is set current iteration is added to
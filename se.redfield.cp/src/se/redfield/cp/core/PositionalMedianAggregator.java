@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+
+/**
+ * Class used to aggregate prediction tables of several iterations by the row
+ * position.<br/>
+ * 
+ * Every iteration is expected to score the same rows in the same order, so
+ * instead of grouping the concatenated tables by the row id only the numeric
+ * columns are stored for each iteration in a flat primitive array. Medians are
+ * computed once all the iterations are collected. The rest of the columns are
+ * taken from the first row seen at each position, which is kept in a data
+ * container rather than on the heap.<br/>
+ * 
+ * The Conformal Prediction Loop End node adds a whole table per iteration,
+ * while the aggregated predictor adds the rows of interleaved iterations one
+ * by one.
+ *
+ */
+public class PositionalMedianAggregator {
+
+	private final DataTableSpec inSpec;
+	private final int[] numericColumns;
+
+	private BufferedDataContainer firstTable;
+	private RowKey[] keys;
+	private int rowCount;
+	private final List<double[]> iterations = new ArrayList<>();
+
+	/**
+	 * Creates new instance collecting whole tables with the
+	 * {@link #add(BufferedDataTable, ExecutionContext)} method.
+	 * 
+	 * @param inSpec Input prediction table spec.
+	 */
+	public PositionalMedianAggregator(DataTableSpec inSpec) {
+		this.inSpec = inSpec;
+		this.numericColumns = getNumericColumns(inSpec);
+	}
+
+	/**
+	 * Creates new instance collecting single rows with the
+	 * {@link #add(int, int, DataRow)} method.
+	 * 
+	 * @param inSpec     Input prediction table spec.
+	 * @param iterations The number of iterations.
+	 * @param exec       Execution context.
+	 */
+	public PositionalMedianAggregator(DataTableSpec inSpec, int iterations, ExecutionContext exec) {
+		this(inSpec);
+		for (int i = 0; i < iterations; i++) {
+			this.iterations.add(new double[0]);
+		}
+		firstTable = exec.createDataContainer(inSpec);
+	}
+
+	private static int[] getNumericColumns(DataTableSpec spec) {
+		return IntStream.range(0, spec.getNumColumns()).filter(i -> spec.getColumnSpec(i).getType().isCompatible(DoubleValue.class)).toArray();
+	}
+
+	/**
+	 * Collects the prediction table of the next iteration.
+	 * 
+	 * @param table The prediction table.
+	 * @param exec  Execution context.
+	 * @throws CanceledExecutionException
+	 * @throws IllegalArgumentException   If the table doesn't contain the same
+	 *                                    rows as the first iteration.
+	 */
+	public void add(BufferedDataTable table, ExecutionContext exec) throws CanceledExecutionException {
+		boolean first = iterations.isEmpty();
+		if (first) {
+			if (table.size() > Integer.MAX_VALUE / Math.max(1, numericColumns.length)) {
+				throw new IllegalArgumentException("Prediction table is too large for positional aggregation");
+			}
+			firstTable = exec.createDataContainer(inSpec);
+			keys = new RowKey[(int) table.size()];
+			rowCount = keys.length;
+		} else if (table.size() != keys.length) {
+			throw new IllegalArgumentException("Prediction table of the iteration " + iterations.size() + " has "
+					+ table.size() + " rows, while the first iteration has " + keys.length + " rows.");
+		}
+
+		double[] values = new double[keys.length * numericColumns.length];
+		int idx = 0;
+		int rowIdx = 0;
+		for (DataRow row : table) {
+			if (first) {
+				keys[rowIdx] = row.getKey();
+				firstTable.addRowToTable(row);
+			} else if (!keys[rowIdx].equals(row.getKey())) {
+				throw new IllegalArgumentException("Prediction table of the iteration " + iterations.size()
+						+ " has row '" + row.getKey() + "' at the position of the row '" + keys[rowIdx]
+						+ "'. Rows should be in the same order in every iteration.");
+			}
+
+			for (int col : numericColumns) {
+				values[idx++] = getValue(row.getCell(col));
+			}
+
+			rowIdx += 1;
+			exec.checkCanceled();
+			exec.setProgress((double) rowIdx / keys.length);
+		}
+
+		if (first) {
+			firstTable.close();
+		}
+		iterations.add(values);
+	}
+
+	/**
+	 * Collects a single row of the given iteration. The rows of different
+	 * iterations may be interleaved and the row ids are not compared. A position
+	 * has to be added by some iteration before any larger position is added, the
+	 * row seen first at a position provides the non-numeric cells.
+	 * 
+	 * @param iteration The iteration index.
+	 * @param position  The position of the row.
+	 * @param row       The row.
+	 * @throws IllegalArgumentException If the number of positions exceeds the
+	 *                                  aggregation capacity.
+	 */
+	public void add(int iteration, int position, DataRow row) {
+		if (position == rowCount) {
+			if ((long) (rowCount + 1) * numericColumns.length > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException("Prediction table is too large for positional aggregation");
+			}
+			firstTable.addRowToTable(row);
+			rowCount += 1;
+		}
+
+		double[] values = iterations.get(iteration);
+		int offset = position * numericColumns.length;
+		if (values.length < offset + numericColumns.length) {
+			int oldSize = values.length;
+			long newSize = Math.max(offset + numericColumns.length, 2L * oldSize);
+			values = Arrays.copyOf(values, (int) Math.min(Integer.MAX_VALUE, newSize));
+			Arrays.fill(values, oldSize, values.length, Double.NaN);
+			iterations.set(iteration, values);
+		}
+		for (int c = 0; c < numericColumns.length; c++) {
+			values[offset + c] = getValue(row.getCell(numericColumns[c]));
+		}
+	}
+
+	private static double getValue(DataCell cell) {
+		return cell.isMissing() ? Double.NaN : ((DoubleValue) cell).getDoubleValue();
+	}
+
+	/**
+	 * Creates the aggregated table.
+	 * 
+	 * @param outSpec The output spec. Contains original row id column followed by
+	 *                the input table columns.
+	 * @param exec    Execution context.
+	 * @return The aggregated table.
+	 * @throws CanceledExecutionException
+	 */
+	public BufferedDataTable createTable(DataTableSpec outSpec, ExecutionContext exec)
+			throws CanceledExecutionException {
+		if (!firstTable.isClosed()) {
+			firstTable.close();
+		}
+
+		BufferedDataContainer cont = exec.createDataContainer(outSpec);
+		double[] buffer = new double[iterations.size()];
+		int rowIdx = 0;
+
+		try (CloseableRowIterator it = firstTable.getTable().iterator()) {
+			while (it.hasNext()) {
+				DataRow row = it.next();
+				DataCell[] cells = new DataCell[row.getNumCells() + 1];
+				cells[0] = new StringCell(row.getKey().getString());
+				for (int i = 0; i < row.getNumCells(); i++) {
+					cells[i + 1] = row.getCell(i);
+				}
+
+				for (int c = 0; c < numericColumns.length; c++) {
+					int offset = rowIdx * numericColumns.length + c;
+					int count = 0;
+					for (double[] values : iterations) {
+						if (offset < values.length && !Double.isNaN(values[offset])) {
+							buffer[count++] = values[offset];
+						}
+					}
+					cells[numericColumns[c] + 1] = count > 0 ? new DoubleCell(median(buffer, count))
+							: DataType.getMissingCell();
+				}
+
+				cont.addRowToTable(new DefaultRow(RowKey.createRowKey((long) rowIdx), cells));
+
+				rowIdx += 1;
+				exec.checkCanceled();
+				exec.setProgress((double) rowIdx / rowCount);
+			}
+		}
+
+		cont.close();
+		return cont.getTable();
+	}
+
+	/**
+	 * Computes the median of the first <code>count</code> values. The mean of the
+	 * two middle values is taken for the even count.
+	 */
+	static double median(double[] values, int count) {
+		Arrays.sort(values, 0, count);
+		int mid = count / 2;
+		if (count % 2 == 0) {
+			return (values[mid - 1] + values[mid]) / 2;
+		}
+		return values[mid];
+	}
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.core;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataType;
+import org.knime.core.data.MissingCell;
+import org.knime.core.data.collection.CollectionCellFactory;
+import org.knime.core.data.collection.CollectionDataValue;
+import org.knime.core.data.collection.SetCell;
+import org.knime.core.data.def.StringCell;
+
+/**
+ * Creates and reads the cells of the Classes column. A prediction set over at
+ * most {@link #MAX_CLASSES} labels is represented by a bitmask where the bit
+ * <code>i</code> is set when the label <code>i</code> is included. There are
+ * usually only a few distinct prediction sets, so the cells are created once
+ * per mask and shared between the rows.
+ *
+ */
+public class PredictionSetCells {
+	/**
+	 * The maximum number of labels prediction sets can be represented as bitmask
+	 * for.
+	 */
+	public static final int MAX_CLASSES = Long.SIZE;
+
+	private static final String NO_CLASS_MESSAGE = "No class asigned";
+	private static final int MAX_CACHED_CELLS = 10000;
+
+	private final String[] labels;
+	private final boolean asString;
+	private final String separator;
+	private final Map<Long, DataCell> cells = new ConcurrentHashMap<>();
+
+	/**
+	 * @param labels    The class labels indexed by the mask bits.
+	 * @param asString  Whether to create string cells instead of set cells.
+	 * @param separator The separator used for string cells.
+	 */
+	public PredictionSetCells(String[] labels, boolean asString, String separator) {
+		this.labels = labels;
+		this.asString = asString;
+		this.separator = separator;
+	}
+
+	/**
+	 * @param asString Whether the prediction sets are represented as string cells.
+	 * @return The type of the Classes column.
+	 */
+	public static DataType getCellType(boolean asString) {
+		return asString ? StringCell.TYPE : SetCell.getCollectionType(StringCell.TYPE);
+	}
+
+	/**
+	 * @return Whether the prediction sets can be represented as a bitmask.
+	 */
+	public boolean supportsMask() {
+		return labels.length <= MAX_CLASSES;
+	}
+
+	/**
+	 * Returns the cell for the prediction set represented by the mask.
+	 * 
+	 * @param mask The prediction set mask.
+	 * @return The cell.
+	 */
+	public DataCell getCell(long mask) {
+		DataCell cell = cells.get(mask);
+		if (cell == null) {
+			cell = createCell(mask);
+			if (cells.size() < MAX_CACHED_CELLS) {
+				cells.put(mask, cell);
+			}
+		}
+		return cell;
+	}
+
+	private DataCell createCell(long mask) {
+		String[] classes = new String[Long.bitCount(mask)];
+		int idx = 0;
+		for (long m = mask; m != 0; m &= m - 1) {
+			classes[idx++] = labels[Long.numberOfTrailingZeros(m)];
+		}
+		return createCell(Arrays.asList(classes));
+	}
+
+	/**
+	 * Creates the cell for the prediction set containing the labels with the
+	 * given indices.
+	 * 
+	 * @param indices The label indices.
+	 * @param count   The number of indices.
+	 * @return The cell.
+	 */
+	public DataCell createCell(int[] indices, int count) {
+		String[] classes = new String[count];
+		for (int i = 0; i < count; i++) {
+			classes[i] = labels[indices[i]];
+		}
+		return createCell(Arrays.asList(classes));
+	}
+
+	/**
+	 * Creates the cell for the prediction set containing the given labels.
+	 * 
+	 * @param classes The labels.
+	 * @return The cell.
+	 */
+	public DataCell createCell(Collection<String> classes) {
+		if (classes.isEmpty()) {
+			return new MissingCell(NO_CLASS_MESSAGE);
+		} else if (asString) {
+			return new StringCell(String.join(separator, classes));
+		} else {
+			return CollectionCellFactory.createSetCell(classes.stream().map(StringCell::new).collect(toList()));
+		}
+	}
+
+	/**
+	 * Reads the labels of the prediction set from the Classes column cell.
+	 * 
+	 * @param cell      The cell.
+	 * @param separator The separator used by string cells.
+	 * @return The labels.
+	 */
+	public static Set<String> getLabels(DataCell cell, String separator) {
+		if (cell.isMissing()) {
+			return Collections.emptySet();
+		}
+		if (cell.getType().isCollectionType()) {
+			return ((CollectionDataValue) cell).stream().map(DataCell::toString).collect(toSet());
+		} else {
+			return new HashSet<>(Arrays.asList(cell.toString().split(separator)));
+		}
+	}
+}
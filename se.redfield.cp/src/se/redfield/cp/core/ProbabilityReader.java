@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.core;
+
+import java.util.List;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.collection.ListDataValue;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.vector.doublevector.DoubleVectorValue;
+
+import se.redfield.cp.settings.TargetSettings;
+import se.redfield.cp.utils.KnimeUtils;
+
+/**
+ * Reads class probabilities from a row addressing the classes by their
+ * {@link ClassDictionary} code. The probabilities are either taken from the
+ * separate per-class columns or from the elements of a single probability
+ * vector column. The vector elements are mapped to the classes by the element
+ * names of the column, or by the class order setting in case the column has no
+ * element names.
+ *
+ */
+public abstract class ProbabilityReader {
+
+	/**
+	 * Creates the reader for the table with the given spec.
+	 * 
+	 * @param settings   The target settings.
+	 * @param spec       The table spec.
+	 * @param dictionary The class dictionary.
+	 * @return The reader.
+	 */
+	public static ProbabilityReader create(TargetSettings settings, DataTableSpec spec,
+			ClassDictionary dictionary) {
+		if (settings.getUseProbabilityVector()) {
+			return new VectorReader(settings, spec, dictionary);
+		} else {
+			return new ColumnsReader(settings, spec, dictionary);
+		}
+	}
+
+	/**
+	 * Returns the names of the columns holding the probabilities.
+	 * 
+	 * @param settings   The target settings.
+	 * @param dictionary The class dictionary.
+	 * @return The column names.
+	 */
+	public static String[] getColumnNames(TargetSettings settings, ClassDictionary dictionary) {
+		if (settings.getUseProbabilityVector()) {
+			return new String[] { settings.getProbabilityVectorColumn() };
+		}
+
+		String[] result = new String[dictionary.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = settings.getProbabilityColumnName(dictionary.getLabel(i));
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the index of the vector element holding the probability of each
+	 * class.
+	 * 
+	 * @param elementNames The class labels by the element index, see
+	 *                     {@link TargetSettings#getProbabilityVectorElementNames(DataColumnSpec)}.
+	 * @param dictionary   The class dictionary.
+	 * @return The element indices by the class code, -1 for the classes missing
+	 *         from the element names.
+	 */
+	public static int[] getElementIndices(List<String> elementNames, ClassDictionary dictionary) {
+		int[] result = new int[dictionary.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = elementNames.indexOf(dictionary.getLabel(i));
+		}
+		return result;
+	}
+
+	/**
+	 * @param row  The row.
+	 * @param code The class code.
+	 * @return The cell holding the probability of the class.
+	 */
+	public abstract DataCell getCell(DataRow row, int code);
+
+	/**
+	 * @param row  The row.
+	 * @param code The class code.
+	 * @return The probability of the class.
+	 */
+	public abstract double getProbability(DataRow row, int code);
+
+	private static class ColumnsReader extends ProbabilityReader {
+		private final int[] columns;
+
+		private ColumnsReader(TargetSettings settings, DataTableSpec spec, ClassDictionary dictionary) {
+			columns = new int[dictionary.size()];
+			for (int i = 0; i < columns.length; i++) {
+				columns[i] = spec.findColumnIndex(settings.getProbabilityColumnName(dictionary.getLabel(i)));
+			}
+		}
+
+		@Override
+		public DataCell getCell(DataRow row, int code) {
+			return row.getCell(columns[code]);
+		}
+
+		@Override
+		public double getProbability(DataRow row, int code) {
+			return KnimeUtils.getDouble(row.getCell(columns[code]), "Probability column contains missing values");
+		}
+	}
+
+	private static class VectorReader extends ProbabilityReader {
+		private final int column;
+		private final int length;
+		private final int[] elements;
+		private final ClassDictionary dictionary;
+
+		private VectorReader(TargetSettings settings, DataTableSpec spec, ClassDictionary dictionary) {
+			this.column = spec.findColumnIndex(settings.getProbabilityVectorColumn());
+			List<String> names = settings.getProbabilityVectorElementNames(spec.getColumnSpec(column));
+			this.length = names.size();
+			this.elements = getElementIndices(names, dictionary);
+			this.dictionary = dictionary;
+		}
+
+		private int getElement(int code) {
+			int element = elements[code];
+			if (element < 0) {
+				throw new IllegalArgumentException(
+						"Probability vector has no element for the class: " + dictionary.getLabel(code));
+			}
+			return element;
+		}
+
+		private void checkLength(long vectorLength) {
+			if (vectorLength != length) {
+				throw new IllegalArgumentException(
+						"Probability vector has " + vectorLength + " elements, expected " + length);
+			}
+		}
+
+		@Override
+		public DataCell getCell(DataRow row, int code) {
+			DataCell cell = row.getCell(column);
+			if (cell.isMissing()) {
+				return cell;
+			}
+			if (cell instanceof DoubleVectorValue) {
+				DoubleVectorValue vector = (DoubleVectorValue) cell;
+				checkLength(vector.getLength());
+				return new DoubleCell(vector.getValue(getElement(code)));
+			}
+			ListDataValue list = (ListDataValue) cell;
+			checkLength(list.size());
+			return list.get(getElement(code));
+		}
+
+		@Override
+		public double getProbability(DataRow row, int code) {
+			DataCell cell = KnimeUtils.nonMissing(row.getCell(column),
+					"Probability vector column contains missing values");
+			if (cell instanceof DoubleVectorValue) {
+				DoubleVectorValue vector = (DoubleVectorValue) cell;
+				checkLength(vector.getLength());
+				return vector.getValue(getElement(code));
+			}
+			ListDataValue list = (ListDataValue) cell;
+			checkLength(list.size());
+			return KnimeUtils.getDouble(list.get(getElement(code)), "Probability vector contains missing values");
+		}
+	}
+}
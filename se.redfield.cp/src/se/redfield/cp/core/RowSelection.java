@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.core;
+
+/**
+ * Set of selected row indexes of a table packed into a bitmap.
+ *
+ */
+public class RowSelection {
+
+	private final long size;
+	private final long[] words;
+	private long selected;
+
+	/**
+	 * Creates an empty selection.
+	 * 
+	 * @param size The number of rows in the table.
+	 */
+	public RowSelection(long size) {
+		this.size = size;
+		this.words = new long[(int) ((size + 63) >>> 6)];
+		this.selected = 0;
+	}
+
+	/**
+	 * @return The number of rows in the table.
+	 */
+	public long getSize() {
+		return size;
+	}
+
+	/**
+	 * @return The number of selected rows.
+	 */
+	public long getSelectedCount() {
+		return selected;
+	}
+
+	/**
+	 * Selects the row.
+	 * 
+	 * @param row The row index.
+	 */
+	public void select(long row) {
+		int idx = (int) (row >>> 6);
+		long mask = 1L << row;
+		if ((words[idx] & mask) == 0) {
+			words[idx] |= mask;
+			selected += 1;
+		}
+	}
+
+	/**
+	 * Selects all the rows in the range.
+	 * 
+	 * @param from The first row index, inclusive.
+	 * @param to   The last row index, exclusive.
+	 */
+	public void selectRange(long from, long to) {
+		for (long row = from; row < to; row++) {
+			select(row);
+		}
+	}
+
+	/**
+	 * @param row The row index.
+	 * @return Whether the row is selected.
+	 */
+	public boolean isSelected(long row) {
+		return (words[(int) (row >>> 6)] & (1L << row)) != 0;
+	}
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.core;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.knime.core.data.DataCell;
+
+/**
+ * Single-pass stratified sampler. Each row is assigned a random key and for
+ * every stratum (class value) the rows with the smallest keys are kept in a
+ * reservoir. At the end of the scan <code>round(fraction * stratumSize)</code>
+ * rows are taken from each stratum, where the fraction is the sample size
+ * divided by the table size.<br/>
+ * 
+ * The stratum sizes are not known in advance, so the reservoir of a stratum is
+ * bounded in two ways. It never holds more than the largest quota the stratum
+ * may still reach given the number of rows left to scan, which is exact but
+ * alone may keep up to the sample size per stratum. In addition keys above
+ * <code>fraction + (6 * sqrt(fraction * (1 - fraction) * seen) + 1) / seen</code>,
+ * where <code>seen</code> is the number of rows of the stratum read so far, are
+ * dropped. The largest key of the final sample exceeds this bound with a
+ * probability below 1e-9, in which case the stratum gets fewer rows than its
+ * quota. The reservoirs therefore hold about
+ * <code>fraction * rowsRead + 6 * sqrt(fraction * rowsRead * strataCount)</code>
+ * rows in total, i.e. close to the sample size, regardless of the number of
+ * strata.
+ *
+ */
+public class StratifiedReservoirSampler {
+
+	private static final double Z_SCORE = 6;
+
+	private final long tableSize;
+	private final double fraction;
+	private final Random rand;
+	private final Map<DataCell, Reservoir> strata = new HashMap<>();
+
+	private long count;
+
+	/**
+	 * Creates instance.
+	 * 
+	 * @param tableSize  The number of rows in the table.
+	 * @param sampleSize The total number of rows to sample.
+	 * @param rand       Random instance.
+	 */
+	public StratifiedReservoirSampler(long tableSize, long sampleSize, Random rand) {
+		this.tableSize = tableSize;
+		this.fraction = tableSize > 0 ? Math.min(1, (double) sampleSize / tableSize) : 0;
+		this.rand = rand;
+		this.count = 0;
+	}
+
+	/**
+	 * Adds the next row. Rows have to be added in the table order.
+	 * 
+	 * @param stratum The class value of the row.
+	 * @param row     The row index.
+	 */
+	public void add(DataCell stratum, long row) {
+		count += 1;
+		Reservoir r = strata.computeIfAbsent(stratum, k -> new Reservoir());
+		r.seen += 1;
+		r.offer(rand.nextDouble(), row, maxQuota(r.seen, tableSize - count), maxKey(r.seen));
+	}
+
+	/**
+	 * Selects the sampled rows.
+	 * 
+	 * @param selection The selection to update.
+	 */
+	public void collect(RowSelection selection) {
+		for (Reservoir r : strata.values()) {
+			r.shrink(Math.min(r.seen, Math.round(fraction * r.seen)), Double.POSITIVE_INFINITY);
+			for (int i = 0; i < r.size; i++) {
+				selection.select(r.rows[i]);
+			}
+		}
+	}
+
+	/**
+	 * @return The number of rows currently kept in all the reservoirs.
+	 */
+	public long getReservoirSize() {
+		long size = 0;
+		for (Reservoir r : strata.values()) {
+			size += r.size;
+		}
+		return size;
+	}
+
+	private long maxQuota(long seen, long remaining) {
+		return Math.min(seen, (long) Math.ceil(fraction * (seen + remaining)));
+	}
+
+	private double maxKey(long seen) {
+		return fraction + (Z_SCORE * Math.sqrt(fraction * (1 - fraction) * seen) + 1) / seen;
+	}
+
+	/**
+	 * Max-heap of row indexes ordered by the random key.
+	 */
+	private static class Reservoir {
+		private long seen = 0;
+		private int size = 0;
+		private double[] keys = new double[16];
+		private long[] rows = new long[16];
+
+		private void offer(double key, long row, long capacity, double maxKey) {
+			if (key >= maxKey) {
+				shrink(capacity, maxKey);
+				return;
+			}
+			if (size < capacity) {
+				if (size == keys.length) {
+					keys = Arrays.copyOf(keys, size * 2);
+					rows = Arrays.copyOf(rows, size * 2);
+				}
+				keys[size] = key;
+				rows[size] = row;
+				siftUp(size++);
+			} else if (size > 0 && key < keys[0]) {
+				keys[0] = key;
+				rows[0] = row;
+				siftDown(0);
+			}
+			shrink(capacity, maxKey);
+		}
+
+		private void shrink(long capacity, double maxKey) {
+			while (size > capacity || (size > 0 && keys[0] >= maxKey)) {
+				size -= 1;
+				keys[0] = keys[size];
+				rows[0] = rows[size];
+				siftDown(0);
+			}
+		}
+
+		private void siftUp(int i) {
+			while (i > 0) {
+				int parent = (i - 1) >>> 1;
+				if (keys[parent] >= keys[i]) {
+					break;
+				}
+				swap(i, parent);
+				i = parent;
+			}
+		}
+
+		private void siftDown(int i) {
+			while (true) {
+				int largest = i;
+				int left = 2 * i + 1;
+				int right = left + 1;
+				if (left < size && keys[left] > keys[largest]) {
+					largest = left;
+				}
+				if (right < size && keys[right] > keys[largest]) {
+					largest = right;
+				}
+				if (largest == i) {
+					break;
+				}
+				swap(i, largest);
+				i = largest;
+			}
+		}
+
+		private void swap(int i, int j) {
+			double k = keys[i];
+			keys[i] = keys[j];
+			keys[j] = k;
+			long r = rows[i];
+			rows[i] = rows[j];
+			rows[j] = r;
+		}
+	}
+}
@@ -16,14 +16,14 @@
 package se.redfield.cp.core.calibration;
 
 import java.util.Arrays;
-import java.util.Map;
+import java.util.HashSet;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataColumnSpecCreator;
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DoubleValue;
 import org.knime.core.data.container.AbstractCellFactory;
 import org.knime.core.data.container.CellFactory;
 import org.knime.core.data.def.DoubleCell;
@@ -31,6 +31,10 @@ import org.knime.core.data.def.LongCell;
 import org.knime.core.data.sort.BufferedDataTableSorter;
 import org.knime.core.node.BufferedDataTable;
 
+import se.redfield.cp.core.ClassDictionary;
+import se.redfield.cp.core.ProbabilityReader;
+import se.redfield.cp.core.nonconformity.ClassificationNonconformity;
+import se.redfield.cp.core.nonconformity.NonconformityMeasures;
 import se.redfield.cp.settings.CalibratorSettings;
 import se.redfield.cp.settings.TargetSettings;
 import se.redfield.cp.utils.KnimeUtils;
@@ -60,7 +64,9 @@ public class Calibrator extends AbstractCalibrator {
 	}
 
 	/**
-	 * Creates cell factory that appends P column to input table.
+	 * Creates cell factory that appends P column to input table. The column holds
+	 * the conformity score of the true class computed by the selected
+	 * nonconformity measure, the measure name is stored in the column properties.
 	 * 
 	 * @param inputTableSpec Input table spec.
 	 * @return
@@ -68,28 +74,57 @@ public class Calibrator extends AbstractCalibrator {
 	private CellFactory createPCellFactory(DataTableSpec inputTableSpec) {
 		TargetSettings targetSettings = settings.getTargetSettings();
 		int columnIndex = inputTableSpec.findColumnIndex(targetSettings.getTargetColumn());
-		Map<String, Integer> probabilityColumns = inputTableSpec.getColumnSpec(columnIndex).getDomain().getValues()
-				.stream().map(DataCell::toString).collect(Collectors.toMap(str -> str,
-						str -> inputTableSpec.findColumnIndex(targetSettings.getProbabilityColumnName(str))));
+		ClassDictionary dictionary = ClassDictionary.fromDomain(inputTableSpec.getColumnSpec(columnIndex));
+		ProbabilityReader probabilities = ProbabilityReader.create(targetSettings, inputTableSpec, dictionary);
+		ClassificationNonconformity measure = NonconformityMeasures.get(settings.getNonconformityMeasure());
 
-		return new AbstractCellFactory(
-				new DataColumnSpecCreator(settings.getCalibrationProbabilityColumnName(), DoubleCell.TYPE)
-						.createSpec()) {
+		DataColumnSpecCreator creator = new DataColumnSpecCreator(settings.getCalibrationProbabilityColumnName(),
+				DoubleCell.TYPE);
+		creator.setProperties(NonconformityMeasures.createProperties(measure.getName()));
+
+		return new AbstractCellFactory(creator.createSpec()) {
+			private final double[] probability = new double[1];
+			private final double[] other = new double[1];
+			private final double[] score = new double[1];
 
 			@Override
 			public DataCell[] getCells(DataRow row) {
 				DataCell dataCell = KnimeUtils.nonMissing(row.getCell(columnIndex),
 						"Target column contains missing values");
-				Integer probabilityCol = probabilityColumns.get(dataCell.toString());
+				int code = dictionary.indexOf(dataCell);
+				if (code < 0) {
+					throw new IllegalArgumentException("Target value is missing from the column domain: " + dataCell);
+				}
+
+				DataCell pCell = probabilities.getCell(row, code);
+				if (pCell.isMissing()) {
+					return new DataCell[] { pCell };
+				}
 
-				return new DataCell[] { row.getCell(probabilityCol) };
+				probability[0] = ((DoubleValue) pCell).getDoubleValue();
+				if (measure.requiresOtherProbabilities()) {
+					other[0] = getMaxOtherProbability(row, code);
+				}
+				measure.computeConformity(probability, other, 1, score);
+				return new DataCell[] { new DoubleCell(score[0]) };
+			}
+
+			private double getMaxOtherProbability(DataRow row, int code) {
+				double max = 0;
+				for (int i = 0; i < dictionary.size(); i++) {
+					if (i != code) {
+						max = Math.max(max, probabilities.getProbability(row, i));
+					}
+				}
+				return max;
 			}
 		};
 	}
 
 	/**
 	 * Creates cell factory that appends ranks column. Rank is an index row has
-	 * inside each target's group sorted by probability column.
+	 * inside each target's group sorted by probability column. Groups are detected
+	 * by comparing the dictionary codes of the target values.
 	 * 
 	 * @param inputTableSpec Input table spec.
 	 * @return
@@ -97,19 +132,20 @@ public class Calibrator extends AbstractCalibrator {
 	@Override
 	protected CellFactory createRankColumn(DataTableSpec inputTableSpec) {
 		int columnIndex = inputTableSpec.findColumnIndex(settings.getTargetSettings().getTargetColumn());
+		ClassDictionary dictionary = ClassDictionary.fromDomain(inputTableSpec.getColumnSpec(columnIndex));
 
 		return new AbstractCellFactory(
 				new DataColumnSpecCreator(settings.getCalibrationRankColumnName(), LongCell.TYPE).createSpec()) {
 
 			private long counter = 0;
-			private String prevValue = null;
+			private int prevCode = -1;
 
 			@Override
 			public DataCell[] getCells(DataRow row) {
-				String value = row.getCell(columnIndex).toString();
-				if (prevValue == null || !prevValue.equals(value)) {
+				int code = dictionary.indexOf(row.getCell(columnIndex));
+				if (prevCode != code) {
 					counter = 0;
-					prevValue = value;
+					prevCode = code;
 				}
 
 				return new DataCell[] { new LongCell(counter++) };
@@ -119,9 +155,11 @@ public class Calibrator extends AbstractCalibrator {
 
 	@Override
 	protected String[] getRequiredColumnNames(DataTableSpec spec) {
-		Set<String> columns = spec.getColumnSpec(settings.getTargetSettings().getTargetColumn()).getDomain()
-				.getValues().stream().map(c -> settings.getTargetSettings().getProbabilityColumnName(c.toString()))
-				.collect(Collectors.toSet());
+		TargetSettings targetSettings = settings.getTargetSettings();
+		ClassDictionary dictionary = ClassDictionary
+				.fromDomain(spec.getColumnSpec(targetSettings.getTargetColumn()));
+		Set<String> columns = new HashSet<>(
+				Arrays.asList(ProbabilityReader.getColumnNames(targetSettings, dictionary)));
 		columns.add(settings.getTargetSettings().getTargetColumn());
 		if (settings.getKeepColumns().getKeepIdColumn()) {
 			columns.add(settings.getKeepColumns().getIdColumn());
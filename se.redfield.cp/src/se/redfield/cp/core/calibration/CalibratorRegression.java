@@ -30,6 +30,8 @@ import org.knime.core.data.def.LongCell;
 import org.knime.core.data.sort.BufferedDataTableSorter;
 import org.knime.core.node.BufferedDataTable;
 
+import se.redfield.cp.core.nonconformity.ErrorNonconformity;
+import se.redfield.cp.core.nonconformity.RegressionNonconformity;
 import se.redfield.cp.settings.CalibratorRegressionSettings;
 import se.redfield.cp.utils.KnimeUtils;
 
@@ -40,6 +42,10 @@ import se.redfield.cp.utils.KnimeUtils;
  */
 public class CalibratorRegression extends AbstractCalibrator {
 
+	private static final String TARGET_MISSING = "Target column contains missing values";
+	private static final String PREDICTION_MISSING = "Prediction column contains missing values";
+	private static final String SIGMA_MISSING = "Sigma column contains missing values";
+
 	protected CalibratorRegressionSettings settings;
 	private final boolean signedErrors;
 
@@ -60,6 +66,16 @@ public class CalibratorRegression extends AbstractCalibrator {
 		return createNonconformityCellFactory(inTableSpec);
 	}
 
+	/**
+	 * Creates the nonconformity measure defined by the settings.
+	 * 
+	 * @return The measure.
+	 */
+	private RegressionNonconformity createMeasure() {
+		return new ErrorNonconformity(signedErrors, settings.getRegressionSettings().getNormalized(),
+				settings.getRegressionSettings().getBeta());
+	}
+
 	/**
 	 * Creates cell factory that appends the nonconformity column to input table.
 	 * 
@@ -70,31 +86,27 @@ public class CalibratorRegression extends AbstractCalibrator {
 		int targetColumnIndex = inputTableSpec.findColumnIndex(settings.getTargetColumnName());
 		int predictionColumnIndex = inputTableSpec.findColumnIndex(settings.getPredictionColumnName());
 		int sigmaColumnIndex = inputTableSpec.findColumnIndex(settings.getRegressionSettings().getSigmaColumn());
+		RegressionNonconformity measure = createMeasure();
 
+		// the rearranger provides one row at a time, so the measure gets single element arrays
 		return new AbstractCellFactory(
 				new DataColumnSpecCreator(settings.getCalibrationAlphaColumnName(), DoubleCell.TYPE).createSpec()) {
+			private final double[] target = new double[1];
+			private final double[] prediction = new double[1];
+			private final double[] sigma = new double[1];
+			private final double[] score = new double[1];
 
 			@Override
 			public DataCell[] getCells(DataRow row) {
-				double dTarget = KnimeUtils.getDouble(row.getCell(targetColumnIndex),
-						"Target column contains missing values");
-				double dPrediction = KnimeUtils.getDouble(row.getCell(predictionColumnIndex),
-						"Prediction column contains missing values");
-
-				double nonconformityScore = dTarget - dPrediction;
-
-				if (!signedErrors) {
-					nonconformityScore = Math.abs(nonconformityScore);
-				}
-
-				if (settings.getRegressionSettings().getNormalized()) {
-					double dSigma = KnimeUtils.getDouble(row.getCell(sigmaColumnIndex),
-							"Sigma column contains missing values");
+				target[0] = KnimeUtils.getDouble(row.getCell(targetColumnIndex), TARGET_MISSING);
+				prediction[0] = KnimeUtils.getDouble(row.getCell(predictionColumnIndex), PREDICTION_MISSING);
 
-					nonconformityScore = nonconformityScore / (dSigma + settings.getRegressionSettings().getBeta());
+				if (measure.requiresSigma()) {
+					sigma[0] = KnimeUtils.getDouble(row.getCell(sigmaColumnIndex), SIGMA_MISSING);
 				}
 
-				return new DataCell[] { new DoubleCell(nonconformityScore) };
+				measure.compute(target, prediction, sigma, 1, score);
+				return new DataCell[] { new DoubleCell(score[0]) };
 			}
 		};
 	}
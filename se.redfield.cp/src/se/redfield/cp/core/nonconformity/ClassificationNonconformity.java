@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.core.nonconformity;
+
+/**
+ * Nonconformity measure for classification. Scores are computed for a batch of
+ * candidate labels at once: the predictor passes all the classes of a row, the
+ * calibrator passes the true class of the rows.<br />
+ * 
+ * Calibration tables hold conformity scores (larger is more conforming), which
+ * are obtained from the nonconformity scores by
+ * {@link #computeConformity(double[], double[], int, double[])}.
+ *
+ */
+public interface ClassificationNonconformity {
+
+	/**
+	 * @return The unique measure name.
+	 */
+	public String getName();
+
+	/**
+	 * @return Whether the measure uses the largest probability of the other
+	 *         classes. The probabilities of all the classes have to be read for
+	 *         every row when it does.
+	 */
+	public default boolean requiresOtherProbabilities() {
+		return false;
+	}
+
+	/**
+	 * Computes nonconformity scores.
+	 * 
+	 * @param probabilities      The probabilities of the candidate labels.
+	 * @param otherProbabilities The largest probabilities among the labels other
+	 *                           than the candidate ones. Only filled in when
+	 *                           {@link #requiresOtherProbabilities()} returns true.
+	 * @param length             The number of scores to compute.
+	 * @param result             The array to write the scores to.
+	 */
+	public void compute(double[] probabilities, double[] otherProbabilities, int length, double[] result);
+
+	/**
+	 * Computes conformity scores, which is <code>1 - nonconformity</code> unless
+	 * the measure provides a more precise form.
+	 * 
+	 * @param probabilities      The probabilities of the candidate labels.
+	 * @param otherProbabilities The largest probabilities among the labels other
+	 *                           than the candidate ones.
+	 * @param length             The number of scores to compute.
+	 * @param result             The array to write the scores to.
+	 */
+	public default void computeConformity(double[] probabilities, double[] otherProbabilities, int length,
+			double[] result) {
+		compute(probabilities, otherProbabilities, length, result);
+		for (int i = 0; i < length; i++) {
+			result[i] = 1 - result[i];
+		}
+	}
+}
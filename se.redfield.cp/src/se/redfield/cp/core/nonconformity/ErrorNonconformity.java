@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.core.nonconformity;
+
+/**
+ * Regression measure based on the prediction error: absolute or signed error,
+ * optionally normalized by <code>sigma + beta</code>. The loops run over the
+ * provided arrays, which hold more than one row only in the streaming
+ * execution of the regression predictor (see {@link RegressionNonconformity}).
+ *
+ */
+public class ErrorNonconformity implements RegressionNonconformity {
+
+	private final boolean signed;
+	private final boolean normalized;
+	private final double beta;
+
+	/**
+	 * @param signed     Whether to use signed errors instead of absolute ones.
+	 * @param normalized Whether to normalize the errors by the sigma values.
+	 * @param beta       The beta value added to sigma for normalized errors.
+	 */
+	public ErrorNonconformity(boolean signed, boolean normalized, double beta) {
+		this.signed = signed;
+		this.normalized = normalized;
+		this.beta = beta;
+	}
+
+	@Override
+	public boolean requiresSigma() {
+		return normalized;
+	}
+
+	@Override
+	public void compute(double[] targets, double[] predictions, double[] sigmas, int length, double[] result) {
+		for (int i = 0; i < length; i++) {
+			result[i] = targets[i] - predictions[i];
+		}
+		if (!signed) {
+			for (int i = 0; i < length; i++) {
+				result[i] = Math.abs(result[i]);
+			}
+		}
+		if (normalized) {
+			for (int i = 0; i < length; i++) {
+				result[i] = result[i] / (sigmas[i] + beta);
+			}
+		}
+	}
+
+	@Override
+	public void computeBounds(double alpha, double[] predictions, double[] sigmas, int length, double[] lower,
+			double[] upper) {
+		if (normalized) {
+			for (int i = 0; i < length; i++) {
+				double width = alpha * (sigmas[i] + beta);
+				lower[i] = predictions[i] - width;
+				upper[i] = predictions[i] + width;
+			}
+		} else {
+			for (int i = 0; i < length; i++) {
+				lower[i] = predictions[i] - alpha;
+				upper[i] = predictions[i] + alpha;
+			}
+		}
+	}
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.core.nonconformity;
+
+/**
+ * The default classification measure: <code>1 - p</code>, where p is the
+ * probability of the candidate label.
+ *
+ */
+public class InverseProbabilityNonconformity implements ClassificationNonconformity {
+	/**
+	 * The measure name.
+	 */
+	public static final String NAME = "Inverse probability";
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public void compute(double[] probabilities, double[] otherProbabilities, int length, double[] result) {
+		for (int i = 0; i < length; i++) {
+			result[i] = 1 - probabilities[i];
+		}
+	}
+
+	/**
+	 * The conformity score is the probability itself, copied as is to keep the
+	 * calibration tables identical to the ones created before the measures were
+	 * introduced.
+	 */
+	@Override
+	public void computeConformity(double[] probabilities, double[] otherProbabilities, int length,
+			double[] result) {
+		System.arraycopy(probabilities, 0, result, 0, length);
+	}
+}
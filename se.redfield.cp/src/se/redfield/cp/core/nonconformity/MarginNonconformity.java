@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.core.nonconformity;
+
+/**
+ * Margin classification measure: <code>0.5 - (p<sub>y</sub> -
+ * max<sub>y'&ne;y</sub> p<sub>y'</sub>) / 2</code>, the difference between the
+ * probability of the candidate label and the largest probability of the other
+ * labels scaled to [0, 1].
+ *
+ */
+public class MarginNonconformity implements ClassificationNonconformity {
+	/**
+	 * The measure name.
+	 */
+	public static final String NAME = "Margin";
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public boolean requiresOtherProbabilities() {
+		return true;
+	}
+
+	@Override
+	public void compute(double[] probabilities, double[] otherProbabilities, int length, double[] result) {
+		for (int i = 0; i < length; i++) {
+			result[i] = 0.5 - (probabilities[i] - otherProbabilities[i]) / 2;
+		}
+	}
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.core.nonconformity;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.Platform;
+import org.knime.core.data.DataColumnProperties;
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.node.NodeLogger;
+
+/**
+ * Registry of the classification nonconformity measures. Contains the built-in
+ * measures and the ones contributed by other plugins via the
+ * {@value #EXTENSION_POINT_ID} extension point.<br />
+ * 
+ * The name of the measure used to create a calibration table is stored in the
+ * properties of the calibration score column, so the predictor applies the same
+ * measure without additional configuration.
+ *
+ */
+public class NonconformityMeasures {
+	private static final NodeLogger LOGGER = NodeLogger.getLogger(NonconformityMeasures.class);
+
+	/**
+	 * The extension point id.
+	 */
+	public static final String EXTENSION_POINT_ID = "se.redfield.cp.nonconformityMeasures";
+	private static final String ATTR_CLASS = "class";
+
+	/**
+	 * The column property holding the measure name.
+	 */
+	public static final String PROPERTY_MEASURE = "nonconformity.measure";
+
+	private static Map<String, ClassificationNonconformity> measures;
+
+	private NonconformityMeasures() {
+	}
+
+	private static synchronized Map<String, ClassificationNonconformity> getMeasures() {
+		if (measures == null) {
+			measures = new LinkedHashMap<>();
+			add(new InverseProbabilityNonconformity());
+			add(new MarginNonconformity());
+			loadExtensions();
+		}
+		return measures;
+	}
+
+	private static void add(ClassificationNonconformity measure) {
+		measures.putIfAbsent(measure.getName(), measure);
+	}
+
+	private static void loadExtensions() {
+		if (Platform.getExtensionRegistry() == null) {
+			return;
+		}
+		for (IConfigurationElement e : Platform.getExtensionRegistry()
+				.getConfigurationElementsFor(EXTENSION_POINT_ID)) {
+			try {
+				add((ClassificationNonconformity) e.createExecutableExtension(ATTR_CLASS));
+			} catch (CoreException | ClassCastException ex) {
+				LOGGER.error("Unable to load nonconformity measure from " + e.getContributor().getName(), ex);
+			}
+		}
+	}
+
+	/**
+	 * @return The names of the available measures.
+	 */
+	public static String[] getNames() {
+		return getMeasures().keySet().toArray(new String[] {});
+	}
+
+	/**
+	 * @param name The measure name.
+	 * @return The measure.
+	 * @throws IllegalArgumentException If the measure is not registered.
+	 */
+	public static ClassificationNonconformity get(String name) {
+		ClassificationNonconformity measure = getMeasures().get(name);
+		if (measure == null) {
+			throw new IllegalArgumentException("Unknown nonconformity measure: " + name);
+		}
+		return measure;
+	}
+
+	/**
+	 * @param name The measure name.
+	 * @return Whether the measure is registered.
+	 */
+	public static boolean contains(String name) {
+		return getMeasures().containsKey(name);
+	}
+
+	/**
+	 * Creates the column properties holding the measure name.
+	 * 
+	 * @param name The measure name.
+	 * @return The column properties.
+	 */
+	public static DataColumnProperties createProperties(String name) {
+		return new DataColumnProperties(Map.of(PROPERTY_MEASURE, name));
+	}
+
+	/**
+	 * Returns the measure the calibration column has been created with. Columns
+	 * created before the measures were introduced use the
+	 * {@link InverseProbabilityNonconformity}.
+	 * 
+	 * @param columnSpec The calibration score column spec.
+	 * @return The measure.
+	 */
+	public static ClassificationNonconformity fromColumn(DataColumnSpec columnSpec) {
+		String name = columnSpec == null ? null : columnSpec.getProperties().getProperty(PROPERTY_MEASURE);
+		return get(name == null ? InverseProbabilityNonconformity.NAME : name);
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.core.nonconformity;
+
+/**
+ * Nonconformity measure for regression. Scores and prediction intervals are
+ * computed for arrays of rows. Only the streaming execution of the regression
+ * predictor passes chunks of up to
+ * {@link se.redfield.cp.utils.BatchStreamableFunction#BATCH_SIZE} rows. The
+ * calibrator and the table execution of the predictor compute the values
+ * through a column rearranger, which provides one row at a time, so they call
+ * the measure with single element arrays.
+ *
+ */
+public interface RegressionNonconformity {
+
+	/**
+	 * @return Whether the measure uses the sigma (difficulty estimate) values.
+	 */
+	public boolean requiresSigma();
+
+	/**
+	 * Computes nonconformity scores.
+	 * 
+	 * @param targets     The target values.
+	 * @param predictions The predicted values.
+	 * @param sigmas      The sigma values, only filled in when
+	 *                    {@link #requiresSigma()} returns true.
+	 * @param length      The number of scores to compute.
+	 * @param result      The array to write the scores to.
+	 */
+	public void compute(double[] targets, double[] predictions, double[] sigmas, int length, double[] result);
+
+	/**
+	 * Computes the prediction intervals for the given nonconformity score.
+	 * 
+	 * @param alpha       The nonconformity score defining the interval.
+	 * @param predictions The predicted values.
+	 * @param sigmas      The sigma values, only filled in when
+	 *                    {@link #requiresSigma()} returns true.
+	 * @param length      The number of intervals to compute.
+	 * @param lower       The array to write the lower bounds to.
+	 * @param upper       The array to write the upper bounds to.
+	 */
+	public void computeBounds(double alpha, double[] predictions, double[] sigmas, int length, double[] lower,
+			double[] upper);
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.core.prediction;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.IntValue;
+import org.knime.core.data.container.ColumnRearranger;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.streamable.StreamableFunction;
+
+import se.redfield.cp.core.IterationsTableSeparator;
+import se.redfield.cp.core.PositionalMedianAggregator;
+import se.redfield.cp.settings.AggregationSettings;
+
+/**
+ * Class used by the aggregated predictor nodes to compute the predictions of
+ * all the iterations without the loop.<br/>
+ * 
+ * The calibration table is split by iterations and the predictor of each
+ * iteration is created in parallel on the global KNIME thread pool. The
+ * iteration-tagged prediction table is then processed in a single pass: each
+ * row is handled by the predictor of its iteration and the results are
+ * aggregated by the {@link PositionalMedianAggregator}. The rows of different
+ * iterations are matched by their position within the iteration or by the
+ * first appearance of the match column value.
+ *
+ */
+public class AggregatedPredictor {
+
+	/**
+	 * Creates the rearranger computing the predictions of a single iteration.
+	 */
+	@FunctionalInterface
+	public interface RearrangerFactory {
+		/**
+		 * @param predictionTableSpec Input prediction table spec.
+		 * @param calibrationTable    The calibration table of the iteration.
+		 * @param exec                Execution context.
+		 * @return The rearranger.
+		 * @throws CanceledExecutionException
+		 */
+		ColumnRearranger createRearranger(DataTableSpec predictionTableSpec, BufferedDataTable calibrationTable,
+				ExecutionContext exec) throws CanceledExecutionException;
+	}
+
+	private static final String ORIGINAL_ROWID_COLUMN_NAME = "Original RowId";
+
+	private final AggregationSettings settings;
+
+	/**
+	 * @param settings The aggregation settings.
+	 */
+	public AggregatedPredictor(AggregationSettings settings) {
+		this.settings = settings;
+	}
+
+	/**
+	 * Creates output table spec.
+	 * 
+	 * @param predictionSpec The spec of the predictions of a single iteration.
+	 * @return The output table spec. Contains original row id column followed by
+	 *         the aggregated columns.
+	 */
+	public DataTableSpec createOutputTableSpec(DataTableSpec predictionSpec) {
+		List<DataColumnSpec> columns = new ArrayList<>();
+		columns.add(new DataColumnSpecCreator(ORIGINAL_ROWID_COLUMN_NAME, StringCell.TYPE).createSpec());
+		for (DataColumnSpec colSpec : predictionSpec) {
+			if (colSpec.getName().equals(settings.getPredictionIterationColumn())) {
+				continue;
+			}
+			if (colSpec.getType().isCompatible(DoubleValue.class)) {
+				columns.add(new DataColumnSpecCreator(colSpec.getName(), DoubleCell.TYPE).createSpec());
+			} else {
+				columns.add(colSpec);
+			}
+		}
+		return new DataTableSpec(columns.toArray(new DataColumnSpec[] {}));
+	}
+
+	/**
+	 * Computes the aggregated predictions.
+	 * 
+	 * @param calibrationTable The iteration-tagged calibration table.
+	 * @param predictionTable  The iteration-tagged prediction table.
+	 * @param factory          The factory creating the predictor of a single
+	 *                         iteration.
+	 * @param exec             Execution context.
+	 * @return The aggregated prediction table.
+	 * @throws Exception
+	 */
+	public BufferedDataTable predict(BufferedDataTable calibrationTable, BufferedDataTable predictionTable,
+			RearrangerFactory factory, ExecutionContext exec) throws Exception {
+		if (calibrationTable.size() == 0) {
+			throw new IllegalArgumentException("Calibration table is empty");
+		}
+
+		IterationsTableSeparator separator = new IterationsTableSeparator(calibrationTable,
+				settings.getCalibrationIterationColumn());
+		List<Integer> iterations = separator.getIterations();
+
+		ExecutionContext segmentsExec = exec.createSubExecutionContext(0.1);
+		BufferedDataTable[] segments = new BufferedDataTable[iterations.size()];
+		Map<Integer, Integer> iterationIdx = new HashMap<>();
+		for (int i = 0; i < segments.length; i++) {
+			segments[i] = separator.get(iterations.get(i),
+					segmentsExec.createSubExecutionContext(1.0 / segments.length));
+			iterationIdx.put(iterations.get(i), i);
+		}
+
+		ColumnRearranger[] rearrangers = createRearrangers(segments, predictionTable.getDataTableSpec(), factory,
+				exec.createSubExecutionContext(0.2));
+		String iterationColumnName = settings.getPredictionIterationColumn();
+		StreamableFunction[] functions = new StreamableFunction[rearrangers.length];
+		for (int i = 0; i < functions.length; i++) {
+			if (rearrangers[i].createSpec().containsName(iterationColumnName)) {
+				rearrangers[i].remove(iterationColumnName);
+			}
+			functions[i] = rearrangers[i].createStreamableFunction();
+			functions[i].init(exec);
+		}
+		PositionalMedianAggregator aggregator = new PositionalMedianAggregator(rearrangers[0].createSpec(),
+				segments.length, exec);
+
+		DataTableSpec predictionSpec = predictionTable.getDataTableSpec();
+		int iterationColumn = predictionSpec.findColumnIndex(iterationColumnName);
+		int matchColumn = settings.getMatchByIdColumn() ? predictionSpec.findColumnIndex(settings.getMatchColumn())
+				: -1;
+		int[] positions = new int[segments.length];
+		Map<DataCell, Integer> idPositions = new HashMap<>();
+
+		ExecutionContext predictionExec = exec.createSubExecutionContext(0.6);
+		long count = 0;
+		long totalCount = predictionTable.size();
+		for (DataRow row : predictionTable) {
+			DataCell iterationCell = row.getCell(iterationColumn);
+			if (iterationCell.isMissing()) {
+				throw new IllegalArgumentException("Prediction table contains missing iteration values");
+			}
+			int iteration = ((IntValue) iterationCell).getIntValue();
+			Integer idx = iterationIdx.get(iteration);
+			if (idx == null) {
+				throw new NoSuchElementException("Calibration table is missing data for iteration: " + iteration);
+			}
+
+			int position;
+			if (matchColumn < 0) {
+				position = positions[idx]++;
+			} else {
+				DataCell id = row.getCell(matchColumn);
+				Integer idPosition = idPositions.get(id);
+				if (idPosition == null) {
+					idPosition = idPositions.size();
+					idPositions.put(id, idPosition);
+				}
+				position = idPosition;
+			}
+			aggregator.add(idx, position, functions[idx].compute(row));
+
+			count += 1;
+			predictionExec.checkCanceled();
+			predictionExec.setProgress((double) count / totalCount);
+		}
+
+		for (StreamableFunction f : functions) {
+			f.finish();
+		}
+
+		return aggregator.createTable(createOutputTableSpec(predictionSpec), exec.createSubExecutionContext(0.1));
+	}
+
+	/**
+	 * Creates the rearrangers of all the iterations in parallel using the global
+	 * KNIME thread pool.
+	 */
+	private static ColumnRearranger[] createRearrangers(BufferedDataTable[] segments, DataTableSpec predictionSpec,
+			RearrangerFactory factory, ExecutionContext exec) throws CanceledExecutionException {
+		List<Future<ColumnRearranger>> futures = new ArrayList<>();
+		for (BufferedDataTable segment : segments) {
+			ExecutionContext subExec = exec.createSubExecutionContext(1.0 / segments.length);
+			futures.add(KNIMEConstants.GLOBAL_THREAD_POOL
+					.enqueue(() -> factory.createRearranger(predictionSpec, segment, subExec)));
+		}
+
+		try {
+			return KNIMEConstants.GLOBAL_THREAD_POOL.runInvisible(() -> {
+				ColumnRearranger[] result = new ColumnRearranger[segments.length];
+				for (int i = 0; i < result.length; i++) {
+					result[i] = futures.get(i).get();
+				}
+				return result;
+			});
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CanceledExecutionException();
+		} catch (ExecutionException e) {
+			Throwable cause = e;
+			while (cause instanceof ExecutionException && cause.getCause() != null) {
+				cause = cause.getCause();
+			}
+			if (cause instanceof CanceledExecutionException) {
+				throw (CanceledExecutionException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IllegalStateException(cause);
+		} finally {
+			futures.forEach(f -> f.cancel(true));
+		}
+	}
+}
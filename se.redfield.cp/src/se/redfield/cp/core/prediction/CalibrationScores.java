@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.core.prediction;
+
+import java.util.Arrays;
+
+import org.knime.core.data.container.filter.TableFilter;
+import org.knime.core.data.v2.RowCursor;
+import org.knime.core.data.v2.RowRead;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.ExecutionMonitor;
+
+import se.redfield.cp.core.ClassDictionary;
+import se.redfield.cp.utils.KnimeUtils;
+
+/**
+ * Calibration probabilities of all the classes, run-length compressed. Each
+ * class occupies a contiguous segment of runs sorted in ascending order of the
+ * probability, the segment bounds are addressed by the {@link ClassDictionary}
+ * code of the class. A run holds a distinct probability together with the
+ * number of the class probabilities not greater than it, so the ranks are
+ * computed from the counts with a single binary search over the distinct
+ * values. Models producing only a handful of distinct probabilities are
+ * therefore stored in a few runs regardless of the calibration table size.
+ *
+ */
+public class CalibrationScores {
+
+	private final ClassDictionary dictionary;
+	private final double[] values;
+	private final int[] counts;
+	private final int[] offsets;
+
+	private CalibrationScores(ClassDictionary dictionary, double[] values, int[] counts, int[] offsets) {
+		this.dictionary = dictionary;
+		this.values = values;
+		this.counts = counts;
+		this.offsets = offsets;
+	}
+
+	/**
+	 * Collects probabilities from the calibration table.
+	 * 
+	 * @param table      The calibration table.
+	 * @param valIndex   The target column index.
+	 * @param probIndex  The probability column index.
+	 * @param dictionary The class dictionary.
+	 * @param exec       Execution context.
+	 * @return The calibration scores.
+	 * @throws CanceledExecutionException
+	 */
+	public static CalibrationScores collect(BufferedDataTable table, int valIndex, int probIndex,
+			ClassDictionary dictionary, ExecutionContext exec) throws CanceledExecutionException {
+		int rowCount = Math.toIntExact(table.size());
+		int[] codes = new int[rowCount];
+		double[] values = new double[rowCount];
+
+		int count = 0;
+		ExecutionMonitor progress = exec.createSubProgress(0.5);
+		try (RowCursor cursor = table.cursor(TableFilter.materializeCols(valIndex, probIndex))) {
+			while (cursor.canForward()) {
+				RowRead row = cursor.forward();
+				int code = dictionary.indexOf(KnimeUtils.getCell(row, valIndex));
+				if (code >= 0) {
+					codes[count] = code;
+					values[count++] = KnimeUtils.getDouble(row, probIndex,
+							"Calibration score column contains missing values");
+				}
+
+				exec.checkCanceled();
+				progress.setProgress((double) count / rowCount);
+			}
+		}
+
+		return create(dictionary, codes, values, count, exec.createSubProgress(0.5));
+	}
+
+	/**
+	 * Creates the calibration scores from the collected probabilities.
+	 * 
+	 * @param dictionary The class dictionary.
+	 * @param codes      The class code of each probability.
+	 * @param values     The probabilities.
+	 * @param count      The number of the collected probabilities.
+	 * @param exec       Execution monitor.
+	 * @return The calibration scores.
+	 * @throws CanceledExecutionException
+	 */
+	public static CalibrationScores create(ClassDictionary dictionary, int[] codes, double[] values, int count,
+			ExecutionMonitor exec) throws CanceledExecutionException {
+		int[] offsets = new int[dictionary.size() + 1];
+		for (int i = 0; i < count; i++) {
+			offsets[codes[i] + 1] += 1;
+		}
+		for (int i = 0; i < dictionary.size(); i++) {
+			offsets[i + 1] += offsets[i];
+		}
+
+		double[] scores = new double[count];
+		int[] position = Arrays.copyOf(offsets, dictionary.size());
+		for (int i = 0; i < count; i++) {
+			scores[position[codes[i]]++] = values[i];
+		}
+
+		for (int i = 0; i < dictionary.size(); i++) {
+			Arrays.sort(scores, offsets[i], offsets[i + 1]);
+
+			exec.checkCanceled();
+			exec.setProgress((double) i / dictionary.size());
+		}
+
+		// compress the sorted segments into runs in place
+		int[] counts = new int[count];
+		int[] runOffsets = new int[dictionary.size() + 1];
+		int runs = 0;
+		for (int i = 0; i < dictionary.size(); i++) {
+			runOffsets[i] = runs;
+			for (int j = offsets[i]; j < offsets[i + 1]; j++) {
+				if (runs == runOffsets[i] || scores[runs - 1] != scores[j]) {
+					scores[runs++] = scores[j];
+				}
+				counts[runs - 1] = j - offsets[i] + 1;
+			}
+		}
+		runOffsets[dictionary.size()] = runs;
+
+		return new CalibrationScores(dictionary, Arrays.copyOf(scores, runs), Arrays.copyOf(counts, runs),
+				runOffsets);
+	}
+
+	/**
+	 * @param code The class code.
+	 * @return The number of calibration probabilities of the class.
+	 */
+	public int size(int code) {
+		return offsets[code + 1] > offsets[code] ? counts[offsets[code + 1] - 1] : 0;
+	}
+
+	/**
+	 * Calculates the rank for a given probability. Rank is the position probability
+	 * would take in a list of the class probabilities sorted in descending order.
+	 * 
+	 * @param code The class code.
+	 * @param p    Probability.
+	 * @return Rank.
+	 */
+	public int getRank(int code, double p) {
+		checkNotEmpty(code);
+		return size(code) - countNotGreater(code, lowerRun(code, p), p);
+	}
+
+	/**
+	 * Calculates the rank for the nearest smaller value.
+	 * 
+	 * @param code The class code.
+	 * @param p    Probability.
+	 * @return Smaller rank.
+	 */
+	public int getSmallerRank(int code, double p) {
+		return size(code) - countBefore(code, lowerRun(code, p)) - 1;
+	}
+
+	/**
+	 * Calculates the smoothed p-value for a given probability.
+	 * 
+	 * @param code   The class code.
+	 * @param p      Probability.
+	 * @param random The random value from [0, 1) used to break the ties.
+	 * @return The p-value.
+	 */
+	public double getPValue(int code, double p, double random) {
+		checkNotEmpty(code);
+		int size = size(code);
+		int run = lowerRun(code, p);
+		return getPValue(code, size - countNotGreater(code, run, p), size - countBefore(code, run) - 1, random);
+	}
+
+	/**
+	 * Calculates the smoothed p-value from the precomputed ranks.
+	 * 
+	 * @param code        The class code.
+	 * @param rank        The rank.
+	 * @param smallerRank The smaller rank.
+	 * @param random      The random value from [0, 1) used to break the ties.
+	 * @return The p-value.
+	 */
+	public double getPValue(int code, int rank, int smallerRank, double random) {
+		int size = size(code);
+		return (((double) size - smallerRank) + random * ((double) smallerRank - rank)) / (size + 1);
+	}
+
+	private void checkNotEmpty(int code) {
+		if (size(code) == 0) {
+			throw new PredictorException("Calibration table is missing data for target: " + dictionary.getLabel(code));
+		}
+	}
+
+	/**
+	 * @return The index of the first run of the class with the value not less
+	 *         than p.
+	 */
+	private int lowerRun(int code, double p) {
+		int lo = offsets[code];
+		int hi = offsets[code + 1];
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (values[mid] < p) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		return lo;
+	}
+
+	/**
+	 * @return The number of the class probabilities preceding the run.
+	 */
+	private int countBefore(int code, int run) {
+		return run == offsets[code] ? 0 : counts[run - 1];
+	}
+
+	/**
+	 * @return The number of the class probabilities not greater than p, given
+	 *         the run found by {@link #lowerRun(int, double)}.
+	 */
+	private int countNotGreater(int code, int run, double p) {
+		return run < offsets[code + 1] && values[run] == p ? counts[run] : countBefore(code, run);
+	}
+}
@@ -34,6 +34,7 @@ import org.knime.core.data.container.AbstractCellFactory;
 import org.knime.core.data.container.CellFactory;
 import org.knime.core.data.container.CloseableRowIterator;
 import org.knime.core.data.container.ColumnRearranger;
+import org.knime.core.data.container.filter.TableFilter;
 import org.knime.core.data.def.DoubleCell;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
@@ -137,14 +138,16 @@ public class PredictiveSystemsRegressionPredictor {
 		// double errorRate = settings.getErrorRate();
 
 		List<Double> alphas = new ArrayList<>();
-		CloseableRowIterator rowIterator = inCalibrationTable.iterator();
-		while (rowIterator.hasNext()) {
-			DataRow currentRow = rowIterator.next();
-			DataCell cell = currentRow.getCell(alphaColumnIndex);
-			alphas.add(((DoubleValue) cell).getDoubleValue());
-
-			exec.checkCanceled();
-			exec.setProgress((double) alphas.size() / inCalibrationTable.size());
+		try (CloseableRowIterator rowIterator = inCalibrationTable
+				.filter(TableFilter.materializeCols(alphaColumnIndex))) {
+			while (rowIterator.hasNext()) {
+				DataRow currentRow = rowIterator.next();
+				DataCell cell = currentRow.getCell(alphaColumnIndex);
+				alphas.add(((DoubleValue) cell).getDoubleValue());
+
+				exec.checkCanceled();
+				exec.setProgress((double) alphas.size() / inCalibrationTable.size());
+			}
 		}
 		// int index = (int) (alphas.size() * errorRate);
 		Collections.sort(alphas);
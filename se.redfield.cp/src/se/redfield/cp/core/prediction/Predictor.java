@@ -16,34 +16,40 @@
 package se.redfield.cp.core.prediction;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Random;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataColumnSpec;
 import org.knime.core.data.DataColumnSpecCreator;
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTableSpec;
-import org.knime.core.data.DoubleValue;
 import org.knime.core.data.container.AbstractCellFactory;
 import org.knime.core.data.container.ColumnRearranger;
 import org.knime.core.data.def.DoubleCell;
 import org.knime.core.data.def.LongCell;
+import org.knime.core.data.vector.doublevector.DoubleVectorCellFactory;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
-import org.knime.core.node.ExecutionMonitor;
 
+import se.redfield.cp.core.ClassDictionary;
+import se.redfield.cp.core.ProbabilityReader;
+import se.redfield.cp.core.nonconformity.ClassificationNonconformity;
+import se.redfield.cp.core.nonconformity.NonconformityMeasures;
 import se.redfield.cp.settings.PredictorSettings;
 
 /**
  * Class used by Conformal Predictor node to process input table and calculate
  * Rank and P-value for each row based on the calibration table probabilities.
+ * When the p-values are output as a vector, a single vector column holding the
+ * p-values of all the classes is created instead of the per-class columns.<br />
+ * 
+ * The conformity scores of all the classes of a row are computed in one batch
+ * by the nonconformity measure the calibration table has been created with.
  *
  */
 public class Predictor {
@@ -66,32 +72,39 @@ public class Predictor {
 	 */
 	public DataTableSpec createOuputTableSpec(DataTableSpec inCalibrationTableSpec,
 			DataTableSpec inPredictionTableSpecs) {
-		ColumnRearranger r = createRearranger(inCalibrationTableSpec, inPredictionTableSpecs, Collections.emptyMap());
+		ColumnRearranger r = createRearranger(inPredictionTableSpecs, createDictionary(inCalibrationTableSpec), null,
+				null);
 		return r.createSpec();
 	}
 
-	private ColumnRearranger createRearranger(DataTableSpec inCalibrationTableSpec,
-			DataTableSpec inPredictionTableSpecs, Map<String, List<Double>> calibrationProbabilities) {
+	private ClassDictionary createDictionary(DataTableSpec inCalibrationTableSpec) {
+		return ClassDictionary
+				.fromDomain(inCalibrationTableSpec.getColumnSpec(settings.getTargetSettings().getTargetColumn()));
+	}
+
+	private ColumnRearranger createRearranger(DataTableSpec inPredictionTableSpecs, ClassDictionary dictionary,
+			CalibrationScores calibration, ClassificationNonconformity measure) {
 		ColumnRearranger r = new ColumnRearranger(inPredictionTableSpecs);
 		if (!settings.getKeepColumns().getKeepAllColumns()) {
-			r.keepOnly(getRequiredColumnNames(inCalibrationTableSpec));
+			r.keepOnly(getRequiredColumnNames(dictionary));
 		}
 
-		Set<DataCell> values = inCalibrationTableSpec.getColumnSpec(settings.getTargetSettings().getTargetColumn())
-				.getDomain().getValues();
-		for (DataCell v : values) {
-			String val = v.toString();
-			r.append(new ScoreCellFactory(val, inPredictionTableSpecs, calibrationProbabilities.get(val)));
+		ProbabilityReader probabilities = ProbabilityReader.create(settings.getTargetSettings(),
+				inPredictionTableSpecs, dictionary);
+		if (settings.getPValuesAsVector()) {
+			r.append(new PValuesVectorCellFactory(dictionary, probabilities, calibration, measure));
+		} else {
+			r.append(new ScoreCellFactory(dictionary, probabilities, calibration, measure));
 		}
 
 		return r;
 	}
 
-	private String[] getRequiredColumnNames(DataTableSpec inCalibrationTableSpec) {
-		Set<String> columns = inCalibrationTableSpec.getColumnSpec(settings.getTargetSettings().getTargetColumn())
-				.getDomain().getValues().stream()
-				.map(c -> settings.getTargetSettings().getProbabilityColumnName(c.toString()))
-				.collect(Collectors.toSet());
+	private String[] getRequiredColumnNames(ClassDictionary dictionary) {
+		Set<String> columns = new HashSet<>();
+		if (!settings.getPValuesAsVector()) {
+			columns.addAll(Arrays.asList(ProbabilityReader.getColumnNames(settings.getTargetSettings(), dictionary)));
+		}
 
 		if (settings.getKeepColumns().getKeepIdColumn()) {
 			columns.add(settings.getKeepColumns().getIdColumn());
@@ -110,150 +123,175 @@ public class Predictor {
 	 */
 	public ColumnRearranger createRearranger(DataTableSpec predictionTableSpec, BufferedDataTable inCalibrationTable,
 			ExecutionContext exec) throws CanceledExecutionException {
-		Map<String, List<Double>> calibrationProbabilities = collectCalibrationProbabilities(inCalibrationTable, exec);
-
-		return createRearranger(inCalibrationTable.getDataTableSpec(), predictionTableSpec, calibrationProbabilities);
-	}
-
-	/**
-	 * Collects probabilities from the calibration table. Collected probabilities
-	 * grouped by target and sorted in desc order.
-	 * 
-	 * @param inCalibrationTable
-	 * @param exec
-	 * @return
-	 * @throws CanceledExecutionException
-	 */
-	private Map<String, List<Double>> collectCalibrationProbabilities(BufferedDataTable inCalibrationTable,
-			ExecutionContext exec) throws CanceledExecutionException {
-		Map<String, List<Double>> result = new HashMap<>();
-		int valIndex = inCalibrationTable.getDataTableSpec()
-				.findColumnIndex(settings.getTargetSettings().getTargetColumn());
-		int probIndex = inCalibrationTable.getDataTableSpec()
-				.findColumnIndex(settings.getCalibrationProbabilityColumnName());
-
-		long rowCount = inCalibrationTable.size();
-		long index = 0;
-		ExecutionMonitor progress = exec.createSubProgress(0.5);
-
-		for (DataRow row : inCalibrationTable) {
-			String val = row.getCell(valIndex).toString();
-			double probability = ((DoubleValue) row.getCell(probIndex)).getDoubleValue();
-
-			List<Double> probabilities = result.computeIfAbsent(val, key -> new ArrayList<>());
-			probabilities.add(probability);
-
-			exec.checkCanceled();
-			progress.setProgress((double) index++ / rowCount);
-		}
-
-		index = 0;
-		progress = exec.createSubProgress(0.5);
-
-		for (List<Double> p : result.values()) {
-			Collections.sort(p, Collections.reverseOrder());
-
-			exec.checkCanceled();
-			progress.setProgress((double) index++ / result.size());
-		}
-
-		return result;
+		DataTableSpec calibrationSpec = inCalibrationTable.getDataTableSpec();
+		ClassDictionary dictionary = createDictionary(calibrationSpec);
+		CalibrationScores calibration = CalibrationScores.collect(inCalibrationTable,
+				calibrationSpec.findColumnIndex(settings.getTargetSettings().getTargetColumn()),
+				calibrationSpec.findColumnIndex(settings.getCalibrationProbabilityColumnName()), dictionary, exec);
+		ClassificationNonconformity measure = NonconformityMeasures
+				.fromColumn(calibrationSpec.getColumnSpec(settings.getCalibrationProbabilityColumnName()));
+
+		return createRearranger(predictionTableSpec, dictionary, calibration, measure);
 	}
 
 	/**
 	 * Creates score columns specs consist of Rank column (if option enabled) and
-	 * P-value column.
+	 * P-value column for each class.
 	 * 
-	 * @param value
+	 * @param dictionary
 	 * @return
 	 */
-	private DataColumnSpec[] createScoreColumnsSpecs(String value) {// NOSONAR
+	private DataColumnSpec[] createScoreColumnsSpecs(ClassDictionary dictionary) {
 		List<DataColumnSpec> columns = new ArrayList<>();
+		for (int i = 0; i < dictionary.size(); i++) {
+			addScoreColumnsSpecs(columns, dictionary.getLabel(i));
+		}
+		return columns.toArray(new DataColumnSpec[] {});
+	}
 
+	private void addScoreColumnsSpecs(List<DataColumnSpec> columns, String value) {// NOSONAR
 		if (settings.getIncludeRankColumn()) {
 			columns.add(new DataColumnSpecCreator(String.format(settings.getPredictionRankColumnFormat(), value),
 					LongCell.TYPE).createSpec());
 		}
 		columns.add(new DataColumnSpecCreator(String.format(settings.getPredictionPValueColumnFormat(), value),
 				DoubleCell.TYPE).createSpec());
-
-		return columns.toArray(new DataColumnSpec[] {});
 	}
 
 	/**
-	 * Cell factory used to append P-value and optional Rank columns
-	 *
+	 * Creates the p-values vector column spec. The class labels are stored as the
+	 * element names of the column.
+	 * 
+	 * @param dictionary The class dictionary.
+	 * @return The column spec.
 	 */
-	private class ScoreCellFactory extends AbstractCellFactory {
+	private DataColumnSpec createPValuesVectorColumnSpec(ClassDictionary dictionary) {
+		List<String> labels = new ArrayList<>();
+		for (int i = 0; i < dictionary.size(); i++) {
+			labels.add(dictionary.getLabel(i));
+		}
 
-		private final String value;
-		private final int pColumnIndex;
-		private final List<Double> probabilities;
-		private final Random rand;
+		DataColumnSpecCreator creator = new DataColumnSpecCreator(settings.getPredictionPValuesVectorColumnName(),
+				DoubleVectorCellFactory.TYPE);
+		creator.setElementNames(labels.toArray(new String[] {}));
+		return creator.createSpec();
+	}
 
-		public ScoreCellFactory(String value, DataTableSpec inSpec, List<Double> probabilities) {
-			super(createScoreColumnsSpecs(value));
-			this.value = value;
-			this.pColumnIndex = inSpec.findColumnIndex(settings.getTargetSettings().getProbabilityColumnName(value));
+	/**
+	 * Base class for the cell factories computing p-values of all the classes.
+	 *
+	 */
+	private abstract class AbstractScoresCellFactory extends AbstractCellFactory {
+
+		protected final int size;
+		protected final CalibrationScores calibration;
+		protected final Random rand;
+		private final ProbabilityReader probabilities;
+		private final ClassificationNonconformity measure;
+
+		protected AbstractScoresCellFactory(DataColumnSpec[] specs, ClassDictionary dictionary,
+				ProbabilityReader probabilities, CalibrationScores calibration, ClassificationNonconformity measure) {
+			super(specs);
+			this.size = dictionary.size();
 			this.probabilities = probabilities;
+			this.calibration = calibration;
+			this.measure = measure;
 			rand = new Random();
 		}
 
-		@Override
-		public DataCell[] getCells(DataRow row) {
-			double p = ((DoubleValue) row.getCell(pColumnIndex)).getDoubleValue();
-			int rank = getRank(p);
-			int smallerRank = getSmallerRank(rank, p);
-
-			double score = (((double) probabilities.size() - smallerRank)
-					+ rand.nextDouble() * ((double) smallerRank - rank)) / (probabilities.size() + 1);
-			DoubleCell scoreCell = new DoubleCell(score);
-
-			if (settings.getIncludeRankColumn()) {
-				return new DataCell[] { new LongCell(rank), scoreCell };
-			} else {
-				return new DataCell[] { scoreCell };
-			}
-		}
-
 		/**
-		 * Calculated the rank for a given probability. Rank is the position probability
-		 * would take in a sorted list of probabilities from the calibration table.
+		 * Computes the conformity scores of all the classes for the given row.
 		 * 
-		 * @param p Probability.
-		 * @return Rank.
+		 * @param row The row.
+		 * @return The conformity scores by the class code.
 		 */
-		protected int getRank(double p) {
-			if (probabilities == null) {
-				throw new PredictorException("Calibration table is missing data for target: " + value);
+		protected double[] computeConformity(DataRow row) {
+			double[] p = new double[size];
+			for (int i = 0; i < size; i++) {
+				p[i] = probabilities.getProbability(row, i);
+			}
+
+			double[] other = new double[size];
+			if (measure.requiresOtherProbabilities()) {
+				fillOtherProbabilities(p, other);
 			}
 
-			int idx = Collections.binarySearch(probabilities, p, Collections.reverseOrder());
-			if (idx < 0) {// insertion index
-				return -(idx + 1);
-			} else {// exact match found
-				// finding the first occurrence
-				while (idx >= 0 && probabilities.get(idx) == p) {
-					idx -= 1;
+			double[] result = new double[size];
+			measure.computeConformity(p, other, size, result);
+			return result;
+		}
+
+		private void fillOtherProbabilities(double[] p, double[] other) {
+			double max = 0;
+			double second = 0;
+			int maxIdx = -1;
+			for (int i = 0; i < size; i++) {
+				if (p[i] > max) {
+					second = max;
+					max = p[i];
+					maxIdx = i;
+				} else if (p[i] > second) {
+					second = p[i];
 				}
-				return idx + 1;
 			}
+			for (int i = 0; i < size; i++) {
+				other[i] = i == maxIdx ? second : max;
+			}
+		}
+	}
+
+	/**
+	 * Cell factory used to append P-value and optional Rank columns for each class.
+	 *
+	 */
+	private class ScoreCellFactory extends AbstractScoresCellFactory {
+
+		public ScoreCellFactory(ClassDictionary dictionary, ProbabilityReader probabilities,
+				CalibrationScores calibration, ClassificationNonconformity measure) {
+			super(createScoreColumnsSpecs(dictionary), dictionary, probabilities, calibration, measure);
 		}
 
-		/**
-		 * Calculated the rank for the nearest smaller value. Rank is the position
-		 * probability would take in a sorted list of probabilities from the calibration
-		 * table.
-		 * 
-		 * @param p Probability.
-		 * @return smaller rank.
-		 */
-		protected int getSmallerRank(int rank, double p) {
-			int idx = rank;
-			while (idx < probabilities.size() && probabilities.get(idx) == p) {
-				idx += 1;
+		@Override
+		public DataCell[] getCells(DataRow row) {
+			double[] scores = computeConformity(row);
+			boolean includeRank = settings.getIncludeRankColumn();
+			DataCell[] cells = new DataCell[includeRank ? 2 * size : size];
+
+			int idx = 0;
+			for (int code = 0; code < size; code++) {
+				int rank = calibration.getRank(code, scores[code]);
+				int smallerRank = calibration.getSmallerRank(code, scores[code]);
+
+				if (includeRank) {
+					cells[idx++] = new LongCell(rank);
+				}
+				cells[idx++] = new DoubleCell(calibration.getPValue(code, rank, smallerRank, rand.nextDouble()));
+			}
+			return cells;
+		}
+	}
+
+	/**
+	 * Cell factory used to append a single vector column with the p-values of all
+	 * the classes, ordered by the class code.
+	 *
+	 */
+	private class PValuesVectorCellFactory extends AbstractScoresCellFactory {
+
+		public PValuesVectorCellFactory(ClassDictionary dictionary, ProbabilityReader probabilities,
+				CalibrationScores calibration, ClassificationNonconformity measure) {
+			super(new DataColumnSpec[] { createPValuesVectorColumnSpec(dictionary) }, dictionary, probabilities,
+					calibration, measure);
+		}
+
+		@Override
+		public DataCell[] getCells(DataRow row) {
+			double[] scores = computeConformity(row);
+			double[] pValues = new double[size];
+			for (int i = 0; i < pValues.length; i++) {
+				pValues[i] = calibration.getPValue(i, scores[i], rand.nextDouble());
 			}
-			return idx - 1;
+			return new DataCell[] { DoubleVectorCellFactory.createCell(pValues) };
 		}
 	}
 
@@ -15,26 +15,28 @@
  */
 package se.redfield.cp.core.prediction;
 
-import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
 
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataColumnSpecCreator;
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTableSpec;
-import org.knime.core.data.DoubleValue;
 import org.knime.core.data.container.AbstractCellFactory;
 import org.knime.core.data.container.CellFactory;
-import org.knime.core.data.container.CloseableRowIterator;
 import org.knime.core.data.container.ColumnRearranger;
+import org.knime.core.data.container.filter.TableFilter;
 import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.v2.RowCursor;
+import org.knime.core.data.v2.RowRead;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
 
+import se.redfield.cp.core.nonconformity.ErrorNonconformity;
+import se.redfield.cp.core.nonconformity.RegressionNonconformity;
 import se.redfield.cp.settings.PredictorRegressionSettings;
+import se.redfield.cp.utils.BatchStreamableFunction;
 import se.redfield.cp.utils.KnimeUtils;
 
 /**
@@ -44,6 +46,9 @@ import se.redfield.cp.utils.KnimeUtils;
  */
 public class PredictorRegression {
 
+	private static final String PREDICTION_MISSING = "Prediction column contains missing values";
+	private static final String SIGMA_MISSING = "Sigma column contains missing values";
+
 	private PredictorRegressionSettings settings;
 
 	/**
@@ -80,6 +85,40 @@ public class PredictorRegression {
 		return createRearranger(predictionTableSpec, alpha);
 	}
 
+	/**
+	 * Creates the function that processes the streamed prediction rows in
+	 * batches. Produces the same output as the rearranger returned by
+	 * {@link #createRearranger(DataTableSpec, BufferedDataTable, ExecutionContext)},
+	 * which should be used for the table execution.
+	 * 
+	 * @param inPortIndex         The prediction table input port index.
+	 * @param outPortIndex        The output port index.
+	 * @param predictionTableSpec Input prediction table spec.
+	 * @param inCalibrationTable  Input calibration table.
+	 * @param exec                Execution context.
+	 * @return The function.
+	 * @throws CanceledExecutionException
+	 */
+	public BatchStreamableFunction createBatchFunction(int inPortIndex, int outPortIndex,
+			DataTableSpec predictionTableSpec, BufferedDataTable inCalibrationTable, ExecutionContext exec)
+			throws CanceledExecutionException {
+		double alpha = getAlpha(inCalibrationTable, exec);
+		RegressionNonconformity measure = createMeasure();
+		int[] inputColumns = { predictionTableSpec.findColumnIndex(settings.getPredictionColumnName()),
+				measure.requiresSigma()
+						? predictionTableSpec.findColumnIndex(settings.getRegressionSettings().getSigmaColumn())
+						: -1 };
+
+		return new BatchStreamableFunction(inPortIndex, outPortIndex, predictionTableSpec,
+				createRearranger(predictionTableSpec, alpha).createSpec(), inputColumns,
+				new String[] { PREDICTION_MISSING, SIGMA_MISSING }, 2) {
+			@Override
+			protected void compute(double[][] inputs, int length, double[][] outputs) {
+				measure.computeBounds(alpha, inputs[0], inputs[1], length, outputs[0], outputs[1]);
+			}
+		};
+	}
+
 	private ColumnRearranger createRearranger(DataTableSpec predictionTableSpec, double alpha) {
 		ColumnRearranger r = new ColumnRearranger(predictionTableSpec);
 
@@ -87,62 +126,52 @@ public class PredictorRegression {
 			r.keepOnly(getRequiredColumnNames());
 		}
 
-		r.append(createPredictionLowerBoundCellFactory(predictionTableSpec, alpha));
-		r.append(createPredictionUpperBoundCellFactory(predictionTableSpec, alpha));
+		r.append(createPredictionIntervalCellFactory(predictionTableSpec, alpha));
 
 		return r;
 	}
 
-	private CellFactory createPredictionLowerBoundCellFactory(DataTableSpec inputTableSpec, double alpha) {
-		return createPredictionIntervalCellFactory(inputTableSpec, alpha, true);
-	}
-
-	private CellFactory createPredictionUpperBoundCellFactory(DataTableSpec inputTableSpec, double alpha) {
-		return createPredictionIntervalCellFactory(inputTableSpec, alpha, false);
+	/**
+	 * Creates the nonconformity measure defined by the settings.
+	 * 
+	 * @return The measure.
+	 */
+	private RegressionNonconformity createMeasure() {
+		return new ErrorNonconformity(false, settings.getRegressionSettings().getNormalized(),
+				settings.getRegressionSettings().getBeta());
 	}
 
 	/**
-	 * Creates cell factory that appends the nonconformity column to input table.
+	 * Creates cell factory that appends the lower and upper bound columns to input
+	 * table.
 	 * 
 	 * @param inputTableSpec Input table spec.
 	 * @return
 	 */
-	private CellFactory createPredictionIntervalCellFactory(DataTableSpec inputTableSpec, double alpha,
-			boolean isLower) {
+	private CellFactory createPredictionIntervalCellFactory(DataTableSpec inputTableSpec, double alpha) {
 		int predictionColumnIndex = inputTableSpec.findColumnIndex(settings.getPredictionColumnName());
 		int sigmaColumnIndex = inputTableSpec.findColumnIndex(settings.getRegressionSettings().getSigmaColumn());
+		RegressionNonconformity measure = createMeasure();
 
-		String columnName;
-		if (isLower) {
-			columnName = settings.getLowerBoundColumnName();
-		} else {
-			columnName = settings.getUpperBoundColumnName();
-		}
-
-		return new AbstractCellFactory(new DataColumnSpecCreator(columnName, DoubleCell.TYPE).createSpec()) {
+		// the rearranger provides one row at a time, the batches are only used by createBatchFunction
+		return new AbstractCellFactory(
+				new DataColumnSpecCreator(settings.getLowerBoundColumnName(), DoubleCell.TYPE).createSpec(),
+				new DataColumnSpecCreator(settings.getUpperBoundColumnName(), DoubleCell.TYPE).createSpec()) {
+			private final double[] prediction = new double[1];
+			private final double[] sigma = new double[1];
+			private final double[] lower = new double[1];
+			private final double[] upper = new double[1];
 
 			@Override
 			public DataCell[] getCells(DataRow row) {
-				double dPrediction = KnimeUtils.getDouble(row.getCell(predictionColumnIndex),
-						"Prediction column contains missing values");
-
-				double bound;
-
-				if (settings.getRegressionSettings().getNormalized()) {
-					double dSigma = KnimeUtils.getDouble(row.getCell(sigmaColumnIndex),
-							"Sigma column contains missing values");
-
-					if (isLower)
-						bound = dPrediction - alpha * (dSigma + settings.getRegressionSettings().getBeta());
-					else
-						bound = dPrediction + alpha * (dSigma + settings.getRegressionSettings().getBeta());
-				} else {
-					if (isLower)
-						bound = dPrediction - alpha;
-					else
-						bound = dPrediction + alpha;
+				prediction[0] = KnimeUtils.getDouble(row.getCell(predictionColumnIndex), PREDICTION_MISSING);
+
+				if (measure.requiresSigma()) {
+					sigma[0] = KnimeUtils.getDouble(row.getCell(sigmaColumnIndex), SIGMA_MISSING);
 				}
-				return new DataCell[] { new DoubleCell(bound) };
+
+				measure.computeBounds(alpha, prediction, sigma, 1, lower, upper);
+				return new DataCell[] { new DoubleCell(lower[0]), new DoubleCell(upper[0]) };
 			}
 		};
 	}
@@ -159,19 +188,20 @@ public class PredictorRegression {
 				.findColumnIndex(settings.getCalibrationAlphaColumnName()); // get target column
 		double errorRate = settings.getErrorRate();
 
-		List<Double> alphas = new ArrayList<>();
-		CloseableRowIterator rowIterator = inCalibrationTable.iterator();
-		while (rowIterator.hasNext()) {
-			DataRow currentRow = rowIterator.next();
-			DataCell cell = currentRow.getCell(alphaColumnIndex);
-			alphas.add(((DoubleValue) cell).getDoubleValue());
+		long index = (long) (inCalibrationTable.size() * errorRate);
+		long count = 0;
+		try (RowCursor cursor = inCalibrationTable.cursor(TableFilter.materializeCols(alphaColumnIndex))) {
+			while (cursor.canForward()) {
+				RowRead currentRow = cursor.forward();
+				if (count++ == index) {
+					return KnimeUtils.getDouble(currentRow, alphaColumnIndex, "Alpha column contains missing values");
+				}
 
-			exec.checkCanceled();
-			exec.setProgress((double) alphas.size() / inCalibrationTable.size());
+				exec.checkCanceled();
+				exec.setProgress((double) count / inCalibrationTable.size());
+			}
 		}
-		int index = (int) (alphas.size() * errorRate);
-
-		return alphas.get(index);
+		throw new IndexOutOfBoundsException("Calibration table contains no row with index " + index);
 	}
 
 	private String[] getRequiredColumnNames() {
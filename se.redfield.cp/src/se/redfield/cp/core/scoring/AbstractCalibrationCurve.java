@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.core.scoring;
+
+import java.util.function.DoubleFunction;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+
+import se.redfield.cp.utils.KnimeUtils;
+
+/**
+ * Base class for the calibration curve computation. Subclasses collect the
+ * values from the input tables once and sort them, so that the metrics for
+ * every significance level are computed by a binary search over the sorted
+ * values instead of reprocessing the table.
+ *
+ */
+public abstract class AbstractCalibrationCurve {
+	/**
+	 * Significance level column name.
+	 */
+	public static final String COLUMN_SIGNIFICANCE_LEVEL = "Significance level";
+
+	/**
+	 * @return The names of the computed metric columns.
+	 */
+	protected abstract String[] getMetricColumnNames();
+
+	/**
+	 * Creates output table spec.
+	 * 
+	 * @return The table spec.
+	 */
+	public DataTableSpec createOutputSpec() {
+		String[] names = getMetricColumnNames();
+		DataColumnSpec[] specs = new DataColumnSpec[names.length + 1];
+		specs[0] = KnimeUtils.createDoubleColumn(COLUMN_SIGNIFICANCE_LEVEL);
+		for (int i = 0; i < names.length; i++) {
+			specs[i + 1] = KnimeUtils.createDoubleColumn(names[i]);
+		}
+		return new DataTableSpec(specs);
+	}
+
+	/**
+	 * Creates the output table with one row per significance level.
+	 * 
+	 * @param levels The significance levels.
+	 * @param curve  The function computing metric values for the significance
+	 *               level.
+	 * @param exec   Execution context.
+	 * @return The curve table.
+	 * @throws CanceledExecutionException
+	 */
+	protected BufferedDataTable createOutputTable(double[] levels, DoubleFunction<double[]> curve,
+			ExecutionContext exec) throws CanceledExecutionException {
+		BufferedDataContainer cont = exec.createDataContainer(createOutputSpec());
+		for (int i = 0; i < levels.length; i++) {
+			double[] values = curve.apply(levels[i]);
+			DataCell[] cells = new DataCell[values.length + 1];
+			cells[0] = new DoubleCell(levels[i]);
+			for (int j = 0; j < values.length; j++) {
+				cells[j + 1] = new DoubleCell(values[j]);
+			}
+			cont.addRowToTable(new DefaultRow(RowKey.createRowKey((long) i), cells));
+
+			exec.checkCanceled();
+			exec.setProgress((double) i / levels.length);
+		}
+		cont.close();
+		return cont.getTable();
+	}
+
+	/**
+	 * Counts values that are not greater than the given one.
+	 * 
+	 * @param sorted The values sorted in ascending order.
+	 * @param value  The value.
+	 * @return The number of values that are less or equal to the value.
+	 */
+	protected static int countNotGreater(double[] sorted, double value) {
+		int low = 0;
+		int high = sorted.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (sorted[mid] <= value) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+}
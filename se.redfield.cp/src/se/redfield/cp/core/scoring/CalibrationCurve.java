@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.core.scoring;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.stream.IntStream;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.container.filter.TableFilter;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+
+import se.redfield.cp.settings.CalibrationCurveSettings;
+import se.redfield.cp.settings.ClassifierSettings;
+import se.redfield.cp.utils.ColumnPatternExtractor;
+import se.redfield.cp.utils.KnimeUtils;
+
+/**
+ * Class used by Conformal Calibration Curve node to compute validity and
+ * efficiency of the conformal classifier for a grid of significance levels.
+ * <br/>
+ * The class is included into the prediction set when its p-value is greater
+ * than the significance level, therefore every metric is a number of p-values
+ * above (or not above) the significance level:
+ * <ul>
+ * <li>the prediction is an error when the p-value of the target class is not
+ * greater than the significance level;</li>
+ * <li>the prediction set is empty when the largest p-value is not
+ * greater;</li>
+ * <li>the prediction set has multiple classes when the second largest p-value
+ * is greater;</li>
+ * <li>the prediction set size is the number of greater p-values.</li>
+ * </ul>
+ * Each p-value is counted against the grid of significance levels as it is
+ * read, so neither the memory nor the table size limit depend on the number
+ * of rows or classes.
+ *
+ */
+public class CalibrationCurve extends AbstractCalibrationCurve {
+
+	private static final String[] COLUMNS = { "Error rate", "Validity", "Efficiency", "Null predictions",
+			"Multiple predictions", "Average set size" };
+
+	private final CalibrationCurveSettings settings;
+
+	/**
+	 * @param settings The settings.
+	 */
+	public CalibrationCurve(CalibrationCurveSettings settings) {
+		this.settings = settings;
+	}
+
+	@Override
+	protected String[] getMetricColumnNames() {
+		return COLUMNS;
+	}
+
+	/**
+	 * Processes input table and creates a curve table.
+	 * 
+	 * @param inTable Input table.
+	 * @param exec    Execution context.
+	 * @return The curve table.
+	 * @throws CanceledExecutionException
+	 */
+	public BufferedDataTable process(BufferedDataTable inTable, ExecutionContext exec)
+			throws CanceledExecutionException {
+		DataTableSpec spec = inTable.getDataTableSpec();
+		int targetIdx = spec.findColumnIndex(settings.getTargetColumn());
+
+		Map<String, Integer> scoreColumns = new ColumnPatternExtractor(ClassifierSettings.P_VALUE_COLUMN_REGEX)
+				.match(spec);
+		Map<String, Integer> classIndex = new HashMap<>();
+		int[] pValueIdx = new int[scoreColumns.size()];
+		for (Entry<String, Integer> e : scoreColumns.entrySet()) {
+			pValueIdx[classIndex.size()] = e.getValue();
+			classIndex.put(e.getKey(), classIndex.size());
+		}
+
+		double[] levels = settings.getSignificanceLevels();
+		LevelCounts target = new LevelCounts(levels);
+		LevelCounts max = new LevelCounts(levels);
+		LevelCounts second = new LevelCounts(levels);
+		LevelCounts all = new LevelCounts(levels);
+		long count = 0;
+		long size = inTable.size();
+
+		int[] columns = IntStream.concat(IntStream.of(targetIdx), IntStream.of(pValueIdx)).toArray();
+		ExecutionContext readExec = exec.createSubExecutionContext(0.8);
+		try (CloseableRowIterator it = inTable.filter(TableFilter.materializeCols(columns))) {
+			while (it.hasNext()) {
+				DataRow row = it.next();
+				DataCell targetCell = row.getCell(targetIdx);
+				if (!targetCell.isMissing()) {
+					int targetClass = classIndex.getOrDefault(targetCell.toString(), -1);
+					double targetP = Double.NEGATIVE_INFINITY;
+					double maxP = Double.NEGATIVE_INFINITY;
+					double secondP = Double.NEGATIVE_INFINITY;
+
+					for (int i = 0; i < pValueIdx.length; i++) {
+						double p = KnimeUtils.getDouble(row.getCell(pValueIdx[i]),
+								"P-value column contains missing values");
+						all.add(p);
+						if (p > maxP) {
+							secondP = maxP;
+							maxP = p;
+						} else if (p > secondP) {
+							secondP = p;
+						}
+						if (i == targetClass) {
+							targetP = p;
+						}
+					}
+
+					target.add(targetP);
+					max.add(maxP);
+					second.add(secondP);
+					count += 1;
+				}
+
+				readExec.checkCanceled();
+				readExec.setProgress((double) count / size);
+			}
+		}
+
+		double n = count;
+		return createOutputTable(levels, level -> {
+			int idx = Arrays.binarySearch(levels, level);
+			double errorRate = (n - target.countGreater(idx)) / n;
+			double nullRate = (n - max.countGreater(idx)) / n;
+			double multipleRate = second.countGreater(idx) / n;
+			double setSize = all.countGreater(idx) / n;
+			return new double[] { errorRate, 1 - errorRate, 1 - nullRate - multipleRate, nullRate, multipleRate,
+					setSize };
+		}, exec.createSubExecutionContext(0.2));
+	}
+
+	/**
+	 * Histogram of values over the grid of significance levels. Counts the values
+	 * greater than each level without keeping the values themselves, so the
+	 * memory does not depend on the table size.
+	 */
+	private static class LevelCounts {
+		private final double[] levels;
+		/**
+		 * The number of values greater than exactly the first <code>i</code> levels.
+		 */
+		private final long[] counts;
+
+		/**
+		 * @param levels The levels sorted in ascending order.
+		 */
+		LevelCounts(double[] levels) {
+			this.levels = levels;
+			this.counts = new long[levels.length + 1];
+		}
+
+		void add(double value) {
+			int low = 0;
+			int high = levels.length;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (levels[mid] < value) {
+					low = mid + 1;
+				} else {
+					high = mid;
+				}
+			}
+			counts[low] += 1;
+		}
+
+		/**
+		 * @param idx The level index.
+		 * @return The number of values greater than the level.
+		 */
+		long countGreater(int idx) {
+			long result = 0;
+			for (int i = idx + 1; i < counts.length; i++) {
+				result += counts[i];
+			}
+			return result;
+		}
+	}
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.core.scoring;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.container.filter.TableFilter;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+
+import se.redfield.cp.settings.CalibrationCurveRegressionSettings;
+import se.redfield.cp.settings.RegressionSettings;
+import se.redfield.cp.utils.KnimeUtils;
+
+/**
+ * Class used by Conformal Calibration Curve (Regression) node to compute
+ * validity and interval sizes of the conformal regressor for a grid of
+ * significance levels.<br/>
+ * 
+ * For every significance level the Alpha is selected from the calibration
+ * table the same way as Conformal Predictor (Regression) does. The prediction
+ * is valid when the nonconformity score of the row is not greater than the
+ * Alpha, and the interval size is <code>2 * Alpha * (Sigma + Beta)</code> (or
+ * <code>2 * Alpha</code> without normalization). Both the calibration and the
+ * row nonconformity scores are sorted once, so every significance level costs a
+ * binary search.
+ *
+ */
+public class CalibrationCurveRegression extends AbstractCalibrationCurve {
+
+	private static final String[] COLUMNS = { "Alpha", "Error rate", "Validity", "Mean interval size",
+			"Median interval size" };
+
+	private final CalibrationCurveRegressionSettings settings;
+
+	/**
+	 * @param settings The settings.
+	 */
+	public CalibrationCurveRegression(CalibrationCurveRegressionSettings settings) {
+		this.settings = settings;
+	}
+
+	@Override
+	protected String[] getMetricColumnNames() {
+		return COLUMNS;
+	}
+
+	/**
+	 * Processes input tables and creates a curve table.
+	 * 
+	 * @param inCalibrationTable The calibration table.
+	 * @param inPredictionTable  The prediction table.
+	 * @param exec               Execution context.
+	 * @return The curve table.
+	 * @throws CanceledExecutionException
+	 */
+	public BufferedDataTable process(BufferedDataTable inCalibrationTable, BufferedDataTable inPredictionTable,
+			ExecutionContext exec) throws CanceledExecutionException {
+		double[] alphas = readAlphas(inCalibrationTable, exec.createSubExecutionContext(0.3));
+		if (alphas.length == 0) {
+			throw new IllegalArgumentException("Calibration table is empty");
+		}
+
+		DataTableSpec spec = inPredictionTable.getDataTableSpec();
+		int targetIdx = spec.findColumnIndex(settings.getTargetColumn());
+		int predictionIdx = spec.findColumnIndex(settings.getPredictionColumnName());
+		RegressionSettings regression = settings.getRegressionSettings();
+		int sigmaIdx = regression.getNormalized() ? spec.findColumnIndex(regression.getSigmaColumn()) : -1;
+
+		ExecutionContext readExec = exec.createSubExecutionContext(0.5);
+		long size = inPredictionTable.size();
+		double[] scores = new double[(int) size];
+		double[] scales = new double[(int) size];
+		int count = 0;
+		int[] columns = IntStream.of(targetIdx, predictionIdx, sigmaIdx).filter(i -> i > -1).toArray();
+		try (CloseableRowIterator it = inPredictionTable.filter(TableFilter.materializeCols(columns))) {
+			while (it.hasNext()) {
+				DataRow row = it.next();
+				double target = KnimeUtils.getDouble(row.getCell(targetIdx), "Target column contains missing values");
+				double prediction = KnimeUtils.getDouble(row.getCell(predictionIdx),
+						"Prediction column contains missing values");
+				double scale = 1;
+				if (sigmaIdx > -1) {
+					scale = KnimeUtils.getDouble(row.getCell(sigmaIdx), "Sigma column contains missing values")
+							+ regression.getBeta();
+				}
+				scores[count] = Math.abs(target - prediction) / scale;
+				scales[count] = scale;
+				count += 1;
+
+				readExec.checkCanceled();
+				readExec.setProgress((double) count / size);
+			}
+		}
+
+		Arrays.sort(scores);
+		Arrays.sort(scales);
+		double meanScale = Arrays.stream(scales).sum() / count;
+		double medianScale = count > 0 ? scales[count / 2] : Double.NaN;
+		double n = count;
+
+		return createOutputTable(settings.getSignificanceLevels(), level -> {
+			int index = Math.min(alphas.length - 1, (int) (alphas.length * level));
+			double alpha = alphas[alphas.length - 1 - index];
+			double errorRate = (scores.length - countNotGreater(scores, alpha)) / n;
+			return new double[] { alpha, errorRate, 1 - errorRate, 2 * alpha * meanScale, 2 * alpha * medianScale };
+		}, exec.createSubExecutionContext(0.2));
+	}
+
+	/**
+	 * Reads the nonconformity scores from the calibration table.
+	 * 
+	 * @return The scores sorted in ascending order.
+	 */
+	private double[] readAlphas(BufferedDataTable inCalibrationTable, ExecutionContext exec)
+			throws CanceledExecutionException {
+		int alphaIdx = inCalibrationTable.getDataTableSpec().findColumnIndex(settings.getCalibrationAlphaColumnName());
+		double[] alphas = new double[(int) inCalibrationTable.size()];
+		int count = 0;
+		try (CloseableRowIterator it = inCalibrationTable.filter(TableFilter.materializeCols(alphaIdx))) {
+			while (it.hasNext()) {
+				DataRow row = it.next();
+				alphas[count++] = KnimeUtils.getDouble(row.getCell(alphaIdx),
+						"Alpha column contains missing values");
+
+				exec.checkCanceled();
+				exec.setProgress((double) count / alphas.length);
+			}
+		}
+		Arrays.sort(alphas);
+		return alphas;
+	}
+}
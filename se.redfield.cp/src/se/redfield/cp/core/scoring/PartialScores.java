@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.core.scoring;
+
+import java.util.function.Consumer;
+
+import org.knime.core.data.DataRow;
+import org.knime.core.data.v2.RowRead;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.ModelContentRO;
+import org.knime.core.node.ModelContentWO;
+
+/**
+ * Scores collected from a part of the input table. Partial scores computed for
+ * different parts of the table (by different threads or by different streaming
+ * partitions) are merged together to get the scores for the whole table.
+ * 
+ * @param <T> The type of the partial scores.
+ */
+public interface PartialScores<T extends PartialScores<T>> extends Consumer<RowRead> {
+
+	/**
+	 * Updates scores with the provided row read from a table cursor.
+	 * 
+	 * @param row The row.
+	 */
+	@Override
+	void accept(RowRead row);
+
+	/**
+	 * Updates scores with the provided row received from a streaming input.
+	 * 
+	 * @param row The data row.
+	 */
+	void accept(DataRow row);
+
+	/**
+	 * @return The indices of the columns read by {@link #accept(RowRead)}.
+	 */
+	int[] getRequiredColumns();
+
+	/**
+	 * Merges scores collected by another partial scores object into this one.
+	 * 
+	 * @param other The partial scores to merge.
+	 */
+	void merge(T other);
+
+	/**
+	 * Saves the collected scores into the provided {@link ModelContentWO}.
+	 * 
+	 * @param content The model content.
+	 */
+	void saveTo(ModelContentWO content);
+
+	/**
+	 * Loads scores previously saved with the {@link #saveTo(ModelContentWO)}.
+	 * 
+	 * @param content The model content.
+	 * @throws InvalidSettingsException
+	 */
+	void loadFrom(ModelContentRO content) throws InvalidSettingsException;
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.core.scoring;
+
+import java.util.function.Supplier;
+
+import org.knime.core.data.DataRow;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.streamable.MergeOperator;
+import org.knime.core.node.streamable.PortInput;
+import org.knime.core.node.streamable.PortOutput;
+import org.knime.core.node.streamable.RowInput;
+import org.knime.core.node.streamable.StreamableOperator;
+import org.knime.core.node.streamable.StreamableOperatorInternals;
+import org.knime.core.node.streamable.simple.SimpleStreamableOperatorInternals;
+
+/**
+ * Streamable operator that collects {@link PartialScores} from a single
+ * (possibly distributed) input partition. The collected scores are passed to
+ * the node model as operator internals, where they are merged using the
+ * {@link MergeOperator} created by {@link #createMergeOperator(Supplier)}.
+ * 
+ * @param <T> The type of the partial scores.
+ */
+public class PartialScoresOperator<T extends PartialScores<T>> extends StreamableOperator {
+
+	private final Supplier<T> factory;
+	private final int inPortIndex;
+	private T scores;
+
+	/**
+	 * @param factory     The factory creating empty partial scores.
+	 * @param inPortIndex The input port index.
+	 */
+	public PartialScoresOperator(Supplier<T> factory, int inPortIndex) {
+		this.factory = factory;
+		this.inPortIndex = inPortIndex;
+	}
+
+	@Override
+	public void runFinal(PortInput[] inputs, PortOutput[] outputs, ExecutionContext exec) throws Exception {
+		scores = factory.get();
+
+		RowInput input = (RowInput) inputs[inPortIndex];
+		DataRow row;
+		while ((row = input.poll()) != null) {
+			scores.accept(row);
+			exec.checkCanceled();
+		}
+		input.close();
+	}
+
+	@Override
+	public StreamableOperatorInternals saveInternals() {
+		return toInternals(scores == null ? factory.get() : scores);
+	}
+
+	/**
+	 * Creates the merge operator combining scores collected by different
+	 * partitions.
+	 * 
+	 * @param <T>     The type of the partial scores.
+	 * @param factory The factory creating empty partial scores.
+	 * @return The merge operator.
+	 */
+	public static <T extends PartialScores<T>> MergeOperator createMergeOperator(Supplier<T> factory) {
+		return new MergeOperator() {
+
+			@Override
+			public StreamableOperatorInternals mergeIntermediate(StreamableOperatorInternals[] operators) {
+				return mergeFinal(operators);
+			}
+
+			@Override
+			public StreamableOperatorInternals mergeFinal(StreamableOperatorInternals[] operators) {
+				T result = factory.get();
+				for (StreamableOperatorInternals internals : operators) {
+					result.merge(fromInternals(internals, factory));
+				}
+				return toInternals(result);
+			}
+		};
+	}
+
+	/**
+	 * Restores partial scores from the operator internals.
+	 * 
+	 * @param <T>       The type of the partial scores.
+	 * @param internals The operator internals.
+	 * @param factory   The factory creating empty partial scores.
+	 * @return The partial scores.
+	 */
+	public static <T extends PartialScores<T>> T fromInternals(StreamableOperatorInternals internals,
+			Supplier<T> factory) {
+		T result = factory.get();
+		try {
+			result.loadFrom(((SimpleStreamableOperatorInternals) internals).getInternals());
+		} catch (InvalidSettingsException e) {
+			throw new IllegalStateException("Unable to restore partial scores: " + e.getMessage(), e);
+		}
+		return result;
+	}
+
+	private static SimpleStreamableOperatorInternals toInternals(PartialScores<?> scores) {
+		SimpleStreamableOperatorInternals internals = new SimpleStreamableOperatorInternals();
+		scores.saveTo(internals.getInternals());
+		return internals;
+	}
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.core.scoring;
+
+import java.util.Arrays;
+
+/**
+ * Mergeable quantile estimator with bounded memory.<br/>
+ * 
+ * Values are stored exactly in a primitive array until the number of values
+ * exceeds the exact capacity. In that case quantiles are computed exactly by
+ * selection. Once the capacity is exceeded the estimator switches to a
+ * compactor-based sketch: values are kept in a hierarchy of levels, where each
+ * value stored on the level <code>h</code> represents <code>2^h</code> original
+ * values. Whenever a level holds more than <code>k</code> values it is sorted
+ * and every other value is promoted to the next level. Compaction offsets
+ * alternate deterministically, so the results are reproducible.
+ *
+ */
+public class QuantileSketch {
+	/**
+	 * Default number of values stored exactly.
+	 */
+	public static final int DEFAULT_EXACT_CAPACITY = 1 << 18;
+	/**
+	 * Default capacity of a single sketch level.
+	 */
+	public static final int DEFAULT_LEVEL_CAPACITY = 1 << 12;
+
+	private final int exactCapacity;
+	private final int levelCapacity;
+
+	private double[][] levels;
+	private int[] sizes;
+	private boolean[] offsets;
+	private boolean exact;
+	private long count;
+
+	/**
+	 * Creates new instance with default capacities.
+	 */
+	public QuantileSketch() {
+		this(DEFAULT_EXACT_CAPACITY, DEFAULT_LEVEL_CAPACITY);
+	}
+
+	/**
+	 * @param exactCapacity Maximal number of values stored exactly.
+	 * @param levelCapacity Capacity of a single level once the sketch is no longer
+	 *                      exact.
+	 */
+	public QuantileSketch(int exactCapacity, int levelCapacity) {
+		if (levelCapacity < 2 || exactCapacity < levelCapacity) {
+			throw new IllegalArgumentException("Invalid sketch capacity");
+		}
+		this.exactCapacity = exactCapacity;
+		this.levelCapacity = levelCapacity;
+		this.levels = new double[][] { new double[16] };
+		this.sizes = new int[1];
+		this.offsets = new boolean[1];
+		this.exact = true;
+		this.count = 0;
+	}
+
+	/**
+	 * @return The number of values added to the sketch.
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * @return Whether the quantiles computed by the sketch are exact.
+	 */
+	public boolean isExact() {
+		return exact;
+	}
+
+	/**
+	 * Adds the value to the sketch.
+	 * 
+	 * @param value The value.
+	 */
+	public void add(double value) {
+		append(0, value);
+		count += 1;
+		compress();
+	}
+
+	/**
+	 * Merges the values of another sketch into this one.
+	 * 
+	 * @param other The sketch to merge.
+	 */
+	public void merge(QuantileSketch other) {
+		for (int h = 0; h < other.levels.length; h++) {
+			for (int i = 0; i < other.sizes[h]; i++) {
+				append(h, other.levels[h][i]);
+			}
+		}
+		count += other.count;
+		if (!other.exact) {
+			exact = false;
+		}
+		compress();
+	}
+
+	private void append(int level, double value) {
+		ensureLevel(level);
+		if (sizes[level] == levels[level].length) {
+			levels[level] = Arrays.copyOf(levels[level], levels[level].length * 2);
+		}
+		levels[level][sizes[level]++] = value;
+	}
+
+	private void ensureLevel(int level) {
+		if (level >= levels.length) {
+			int old = levels.length;
+			levels = Arrays.copyOf(levels, level + 1);
+			sizes = Arrays.copyOf(sizes, level + 1);
+			offsets = Arrays.copyOf(offsets, level + 1);
+			for (int h = old; h <= level; h++) {
+				levels[h] = new double[levelCapacity];
+			}
+		}
+	}
+
+	private void compress() {
+		if (exact) {
+			if (sizes.length == 1 && sizes[0] <= exactCapacity) {
+				return;
+			}
+			exact = false;
+		}
+
+		for (int h = 0; h < levels.length; h++) {
+			while (sizes[h] >= levelCapacity) {
+				compact(h);
+			}
+		}
+	}
+
+	private void compact(int level) {
+		double[] values = levels[level];
+		int size = sizes[level];
+		Arrays.sort(values, 0, size);
+
+		int offset = offsets[level] ? 1 : 0;
+		offsets[level] = !offsets[level];
+
+		int promoted = 0;
+		for (int i = offset; i < size; i += 2) {
+			values[promoted++] = values[i];
+		}
+		sizes[level] = 0;
+
+		ensureLevel(level + 1);
+		for (int i = 0; i < promoted; i++) {
+			append(level + 1, levels[level][i]);
+		}
+		if (levels[level].length > levelCapacity * 2) {
+			levels[level] = new double[levelCapacity];
+		}
+	}
+
+	/**
+	 * Computes the value with the given rank, i.e. the value at index
+	 * <code>floor(q * n)</code> in the sorted sequence of all the values.
+	 * 
+	 * @param q The quantile in the [0, 1] range.
+	 * @return The quantile value or {@link Double#NaN} if the sketch is empty.
+	 */
+	public double getQuantile(double q) {
+		if (count == 0) {
+			return Double.NaN;
+		}
+
+		if (exact) {
+			int k = (int) Math.min(sizes[0] - 1L, (long) Math.floor(q * sizes[0]));
+			return select(levels[0], sizes[0], Math.max(0, k));
+		}
+
+		int total = 0;
+		for (int size : sizes) {
+			total += size;
+		}
+		double[] values = new double[total];
+		long[] weights = new long[total];
+		Integer[] order = new Integer[total];
+		int idx = 0;
+		long weightSum = 0;
+		for (int h = 0; h < levels.length; h++) {
+			for (int i = 0; i < sizes[h]; i++) {
+				values[idx] = levels[h][i];
+				weights[idx] = 1L << h;
+				order[idx] = idx;
+				weightSum += weights[idx];
+				idx++;
+			}
+		}
+		Arrays.sort(order, (a, b) -> Double.compare(values[a], values[b]));
+
+		double rank = Math.floor(q * weightSum);
+		long cumulative = 0;
+		for (Integer i : order) {
+			cumulative += weights[i];
+			if (cumulative > rank) {
+				return values[i];
+			}
+		}
+		return values[order[total - 1]];
+	}
+
+	/**
+	 * Finds the k-th smallest value using quickselect. The array is partially
+	 * reordered.
+	 */
+	private static double select(double[] values, int size, int k) {
+		int left = 0;
+		int right = size - 1;
+		while (left < right) {
+			double pivot = values[(left + right) >>> 1];
+			int i = left;
+			int j = right;
+			while (i <= j) {
+				while (values[i] < pivot) {
+					i++;
+				}
+				while (values[j] > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					double tmp = values[i];
+					values[i] = values[j];
+					values[j] = tmp;
+					i++;
+					j--;
+				}
+			}
+			if (k <= j) {
+				right = j;
+			} else if (k >= i) {
+				left = i;
+			} else {
+				break;
+			}
+		}
+		return values[k];
+	}
+
+	/**
+	 * @return The values stored on each level. Used to serialize the sketch.
+	 */
+	public double[][] getLevels() {
+		double[][] result = new double[levels.length][];
+		for (int h = 0; h < levels.length; h++) {
+			result[h] = Arrays.copyOf(levels[h], sizes[h]);
+		}
+		return result;
+	}
+
+	/**
+	 * Restores the values previously obtained with {@link #getLevels()}.
+	 * 
+	 * @param storedLevels The values stored on each level.
+	 * @param storedCount  The number of values added to the sketch.
+	 * @param storedExact  Whether the stored sketch is exact.
+	 */
+	public void load(double[][] storedLevels, long storedCount, boolean storedExact) {
+		for (int h = 0; h < storedLevels.length; h++) {
+			for (double v : storedLevels[h]) {
+				append(h, v);
+			}
+		}
+		count += storedCount;
+		if (!storedExact) {
+			exact = false;
+		}
+		compress();
+	}
+}
@@ -15,38 +15,38 @@
  */
 package se.redfield.cp.core.scoring;
 
-import static java.util.stream.Collectors.toSet;
-
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataColumnSpec;
 import org.knime.core.data.DataColumnSpecCreator;
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTableSpec;
-import org.knime.core.data.DoubleValue;
 import org.knime.core.data.RowKey;
-import org.knime.core.data.collection.CollectionDataValue;
 import org.knime.core.data.def.DefaultRow;
 import org.knime.core.data.def.StringCell;
+import org.knime.core.data.v2.RowRead;
 import org.knime.core.node.BufferedDataContainer;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.ModelContentRO;
+import org.knime.core.node.ModelContentWO;
 
+import se.redfield.cp.core.ClassDictionary;
+import se.redfield.cp.core.PredictionSetCells;
 import se.redfield.cp.core.scoring.ScoreColumn.LongScoreColumn;
 import se.redfield.cp.core.scoring.Scores.ClassScores;
 import se.redfield.cp.core.scoring.Scores.Metric;
 import se.redfield.cp.nodes.ConformalPredictorScorerNodeModel;
+import se.redfield.cp.utils.KnimeUtils;
+import se.redfield.cp.utils.ParallelTableProcessor;
 
 /**
  * Class used to evaluate data generated by Conformal Classifier Node. Collects
@@ -56,6 +56,8 @@ import se.redfield.cp.nodes.ConformalPredictorScorerNodeModel;
  *
  */
 public class Scorer {
+	private static final String P_VALUE_MISSING = "P-value column contains missing values";
+
 	private ConformalPredictorScorerNodeModel model;
 	private List<ScoreColumn> baseColumns;
 	private List<ScoreColumn> additionalColumns;
@@ -125,125 +127,294 @@ public class Scorer {
 	 */
 	public BufferedDataTable process(BufferedDataTable inTable, ExecutionContext exec)
 			throws CanceledExecutionException {
-		Map<String, ClassScores> classScores = computeScores(inTable, exec);
-		Scores totalScores = Scores.sum(classScores.values());
-		return createOutputTable(classScores, totalScores, exec);
+		DataTableSpec spec = inTable.getDataTableSpec();
+		PartialClassificationScores scores = createPartialScores();
+		int[] columns = createPartialScores(spec).getRequiredColumns();
+		for (PartialClassificationScores s : ParallelTableProcessor.process(inTable, columns,
+				() -> createPartialScores(spec), exec)) {
+			scores.merge(s);
+		}
+		return createOutputTable(scores, exec);
 	}
 
-	private Map<String, ClassScores> computeScores(BufferedDataTable inTable, ExecutionContext exec)
-			throws CanceledExecutionException {
-		Map<String, ClassScores> scores = new HashMap<>();
-		DataTableSpec inputTableSpec = inTable.getSpec();
+	/**
+	 * Creates empty partial scores that could only be used to merge other partial
+	 * scores into.
+	 * 
+	 * @return The partial scores.
+	 */
+	public PartialClassificationScores createPartialScores() {
+		return new PartialClassificationScores(null);
+	}
 
-		DataTableSpec spec = inTable.getDataTableSpec();
-		int targetIdx = spec.findColumnIndex(model.getTargetColumn());
-		int classesIdx = spec.findColumnIndex(model.getClassesColumn());
+	/**
+	 * Creates empty partial scores used to process rows of the table with the
+	 * given spec.
+	 * 
+	 * @param spec The input table spec.
+	 * @return The partial scores.
+	 */
+	public PartialClassificationScores createPartialScores(DataTableSpec spec) {
+		return new PartialClassificationScores(spec);
+	}
 
-		Map<String, Integer> pValueIdx = Collections.emptyMap();
-		if (model.isAdditionalEfficiencyMetricsMode()) {
-			pValueIdx = inputTableSpec.getColumnSpec(targetIdx).getDomain().getValues().stream().map(DataCell::toString)
-					.collect(Collectors.toMap(str -> str,
-							str -> inputTableSpec.findColumnIndex(model.getProbabilityColumnName(str))));
+	/**
+	 * Scores collected for each class from a part of the input table. Classes are
+	 * addressed by their {@link ClassDictionary} code and metrics are accumulated
+	 * in a flat primitive array, so processing a row doesn't allocate any objects
+	 * once all the distinct target values and prediction sets have been seen.
+	 */
+	public class PartialClassificationScores implements PartialScores<PartialClassificationScores> {
+		private static final String KEY_TARGETS = "targets";
+		private static final String KEY_CLASS_PREFIX = "class_";
+		private static final int METRICS_COUNT = Metric.values().length;
+		private static final int MAX_CACHED_SETS = 10000;
+
+		private final ClassDictionary dictionary;
+		private double[] metrics;
+
+		private final Map<DataCell, int[]> classSetCache = new HashMap<>();
+
+		private final int targetIdx;
+		private final int classesIdx;
+		private final int[] pValueIdx;
+		private final double[] pValues;
+
+		private PartialClassificationScores(DataTableSpec spec) {
+			if (spec == null) {
+				targetIdx = -1;
+				classesIdx = -1;
+				dictionary = new ClassDictionary();
+				pValueIdx = new int[0];
+			} else {
+				targetIdx = spec.findColumnIndex(model.getTargetColumn());
+				classesIdx = spec.findColumnIndex(model.getClassesColumn());
+				// domain values occupy the first class codes
+				dictionary = ClassDictionary.fromDomain(spec.getColumnSpec(targetIdx));
+				if (model.isAdditionalEfficiencyMetricsMode()) {
+					pValueIdx = new int[dictionary.size()];
+					for (int i = 0; i < pValueIdx.length; i++) {
+						pValueIdx[i] = spec.findColumnIndex(model.getProbabilityColumnName(dictionary.getLabel(i)));
+					}
+				} else {
+					pValueIdx = new int[0];
+				}
+			}
+			metrics = new double[dictionary.size() * METRICS_COUNT];
+			pValues = new double[pValueIdx.length];
+		}
+
+		private int ensureCapacity(int code) {
+			if (metrics.length <= code * METRICS_COUNT) {
+				metrics = Arrays.copyOf(metrics, dictionary.size() * METRICS_COUNT);
+			}
+			return code;
+		}
+
+		private int getClassIndex(String name) {
+			return ensureCapacity(dictionary.add(name));
+		}
+
+		private int getTargetIndex(DataCell cell) {
+			int code = dictionary.indexOf(cell);
+			return code < 0 ? ensureCapacity(dictionary.add(cell)) : code;
+		}
+
+		private int[] getClassIndices(DataCell cell) {
+			int[] result = classSetCache.get(cell);
+			if (result == null) {
+				result = PredictionSetCells.getLabels(cell, model.getStringSeparator()).stream()
+						.mapToInt(this::getClassIndex).toArray();
+				if (classSetCache.size() < MAX_CACHED_SETS) {
+					classSetCache.put(cell, result);
+				}
+			}
+			return result;
 		}
 
-		long total = inTable.size();
-		long count = 0;
+		private void inc(int offset, Metric m) {
+			metrics[offset + m.ordinal()] += 1;
+		}
 
-		for (DataRow row : inTable) {
-			String target = row.getCell(targetIdx).toString();
-			Set<String> classes = getClasses(row.getCell(classesIdx));
-			ClassScores score = scores.computeIfAbsent(target, ClassScores::new);
+		private void add(int offset, Metric m, double value) {
+			metrics[offset + m.ordinal()] += value;
+		}
 
-			score.inc(Metric.COUNT);
+		@Override
+		public int[] getRequiredColumns() {
+			if (targetIdx < 0) {
+				return new int[0];
+			}
+			return IntStream.concat(IntStream.of(targetIdx, classesIdx), IntStream.of(pValueIdx)).distinct()
+					.sorted().toArray();
+		}
 
-			if (classes.contains(target)) {
-				if (classes.size() == 1) {
-					score.inc(Metric.STRICT_MATCH);
+		@Override
+		public void accept(RowRead row) {
+			for (int i = 0; i < pValueIdx.length; i++) {
+				pValues[i] = KnimeUtils.getDouble(row, pValueIdx[i], P_VALUE_MISSING);
+			}
+			accept(getTargetIndex(KnimeUtils.getCell(row, targetIdx)),
+					getClassIndices(KnimeUtils.getCell(row, classesIdx)));
+		}
+
+		@Override
+		public void accept(DataRow row) {
+			for (int i = 0; i < pValueIdx.length; i++) {
+				pValues[i] = KnimeUtils.getDouble(row.getCell(pValueIdx[i]), P_VALUE_MISSING);
+			}
+			accept(getTargetIndex(row.getCell(targetIdx)), getClassIndices(row.getCell(classesIdx)));
+		}
+
+		private void accept(int target, int[] classes) {
+			int offset = target * METRICS_COUNT;
+
+			boolean containsTarget = false;
+			for (int c : classes) {
+				containsTarget |= c == target;
+			}
+
+			inc(offset, Metric.COUNT);
+
+			if (containsTarget) {
+				if (classes.length == 1) {
+					inc(offset, Metric.STRICT_MATCH);
 				} else {
-					score.inc(Metric.SOFT_MATCH);
+					inc(offset, Metric.SOFT_MATCH);
 				}
 			} else {
-				score.inc(Metric.ERROR);
+				inc(offset, Metric.ERROR);
 			}
 
-			if (classes.isEmpty()) {
-				score.inc(Metric.NULL_CLASS);
-			} else if (classes.size() == 1) {
-				score.inc(Metric.SINGLE_CLASS);
+			if (classes.length == 0) {
+				inc(offset, Metric.NULL_CLASS);
+			} else if (classes.length == 1) {
+				inc(offset, Metric.SINGLE_CLASS);
 			}
 
 			if (model.isAdditionalEfficiencyMetricsMode()) {
-				Map<String, Double> pValues = pValueIdx.entrySet().stream()
-						.collect(Collectors.toMap(Entry::getKey,
-								e -> ((DoubleValue) row.getCell(e.getValue())).getDoubleValue()));
-
 				double max = 0, second = 0, sum = 0;
-				for (Double p : pValues.values()) {
+				for (int i = 0; i < pValueIdx.length; i++) {
+					double p = pValues[i];
 					sum += p;
-					score.add(Metric.SUM_OF_P_VALUES, p);// Average Sum of p-values
+					add(offset, Metric.SUM_OF_P_VALUES, p);// Average Sum of p-values
 					if (p > max) {
-						max = p;
 						second = max;
+						max = p;
 					} else if (p > second) {
 						second = p;
 					}
 				}
-				score.add(Metric.UNCONFIDENCE, second);// Unconfidence
-				score.add(Metric.FUZZINESS, sum - max);// Fuziness
-				score.add(Metric.NUMBER_OF_LABELS, classes.size());
-				if (classes.size() > 1)
-					score.inc(Metric.MULTIPLE);
-				score.add(Metric.EXCESS, classes.size() - 1);
-				if (max == pValues.get(target))
-					score.add(Metric.OBSERVED_UNCONFIDENCE, second);
+				double targetP = target < pValues.length ? pValues[target] : 0;
+
+				add(offset, Metric.UNCONFIDENCE, second);// Unconfidence
+				add(offset, Metric.FUZZINESS, sum - max);// Fuziness
+				add(offset, Metric.NUMBER_OF_LABELS, classes.length);
+				if (classes.length > 1)
+					inc(offset, Metric.MULTIPLE);
+				add(offset, Metric.EXCESS, classes.length - 1d);
+				if (max == targetP)
+					add(offset, Metric.OBSERVED_UNCONFIDENCE, second);
 				else
-					score.add(Metric.OBSERVED_UNCONFIDENCE, max);
-				score.add(Metric.OBSERVED_FUZZINESS, sum - pValues.get(target));// Observed Fuziness
+					add(offset, Metric.OBSERVED_UNCONFIDENCE, max);
+				add(offset, Metric.OBSERVED_FUZZINESS, sum - targetP);// Observed Fuziness
 
-				if (classes.contains(target)) {
-					score.add(Metric.OBSERVED_EXCESS, classes.size() - 1);
-					if (classes.size() > 1)
-						score.inc(Metric.OBSERVED_MULTIPLE);
+				if (containsTarget) {
+					add(offset, Metric.OBSERVED_EXCESS, classes.length - 1d);
+					if (classes.length > 1)
+						inc(offset, Metric.OBSERVED_MULTIPLE);
 				} else {
-					score.add(Metric.OBSERVED_EXCESS, classes.size());
-					if (classes.size() > 0)
-						score.inc(Metric.OBSERVED_MULTIPLE);
+					add(offset, Metric.OBSERVED_EXCESS, classes.length);
+					if (classes.length > 0)
+						inc(offset, Metric.OBSERVED_MULTIPLE);
 				}
+			}
+		}
 
+		@Override
+		public void merge(PartialClassificationScores other) {
+			for (int i = 0; i < other.dictionary.size(); i++) {
+				int offset = getClassIndex(other.dictionary.getLabel(i)) * METRICS_COUNT;
+				for (int m = 0; m < METRICS_COUNT; m++) {
+					metrics[offset + m] += other.metrics[i * METRICS_COUNT + m];
+				}
 			}
+		}
 
-			exec.checkCanceled();
-			exec.setProgress((double) count++ / total);
+		/**
+		 * @return The scores for each class that appeared as a target value.
+		 */
+		private Map<String, ClassScores> getClassScores() {
+			Map<String, ClassScores> result = new HashMap<>();
+			for (int i = 0; i < dictionary.size(); i++) {
+				int offset = i * METRICS_COUNT;
+				if (metrics[offset + Metric.COUNT.ordinal()] > 0) {
+					ClassScores s = new ClassScores(dictionary.getLabel(i));
+					for (Metric m : Metric.values()) {
+						s.set(m, metrics[offset + m.ordinal()]);
+					}
+					result.put(s.getTarget(), s);
+				}
+			}
+			return result;
 		}
-		return scores;
-	}
 
-	private Set<String> getClasses(DataCell cell) {
-		if (cell.isMissing()) {
-			return Collections.emptySet();
+		@Override
+		public void saveTo(ModelContentWO content) {
+			String[] targets = new String[dictionary.size()];
+			for (int i = 0; i < targets.length; i++) {
+				targets[i] = dictionary.getLabel(i);
+			}
+			content.addStringArray(KEY_TARGETS, targets);
+			for (int i = 0; i < targets.length; i++) {
+				content.addDoubleArray(KEY_CLASS_PREFIX + i,
+						Arrays.copyOfRange(metrics, i * METRICS_COUNT, (i + 1) * METRICS_COUNT));
+			}
 		}
-		if (cell.getType().isCollectionType()) {
-			return ((CollectionDataValue) cell).stream().map(DataCell::toString).collect(toSet());
-		} else {
-			return new HashSet<>(Arrays.asList(cell.toString().split(model.getStringSeparator())));
+
+		@Override
+		public void loadFrom(ModelContentRO content) throws InvalidSettingsException {
+			String[] targets = content.getStringArray(KEY_TARGETS);
+			for (int i = 0; i < targets.length; i++) {
+				int offset = getClassIndex(targets[i]) * METRICS_COUNT;
+				double[] values = content.getDoubleArray(KEY_CLASS_PREFIX + i);
+				for (int m = 0; m < values.length; m++) {
+					metrics[offset + m] += values[m];
+				}
+			}
 		}
 	}
 
-	private BufferedDataTable createOutputTable(Map<String, ClassScores> scores, Scores totals,
-			ExecutionContext exec) {
+	private BufferedDataTable createOutputTable(PartialClassificationScores scores, ExecutionContext exec) {
 		BufferedDataContainer cont = exec.createDataContainer(createOutputSpec());
-		List<ScoreColumn> includedColumns = getIncludedColumns();
-
-		long idx = 0;
-		for (ClassScores s : scores.values()) {
-			cont.addRowToTable(createRow(s.getTarget(), includedColumns, s, idx++));
+		for (DataRow row : createOutputRows(scores)) {
+			cont.addRowToTable(row);
 		}
-		cont.addRowToTable(createRow("<Total>", includedColumns, totals, idx));
 		cont.close();
 
 		return cont.getTable();
 	}
 
+	/**
+	 * Creates the rows of the output scores table.
+	 * 
+	 * @param scores The collected scores.
+	 * @return The output rows.
+	 */
+	public List<DataRow> createOutputRows(PartialClassificationScores scores) {
+		List<ScoreColumn> includedColumns = getIncludedColumns();
+		List<DataRow> rows = new ArrayList<>();
+
+		Map<String, ClassScores> classScores = scores.getClassScores();
+
+		long idx = 0;
+		for (ClassScores s : classScores.values()) {
+			rows.add(createRow(s.getTarget(), includedColumns, s, idx++));
+		}
+		rows.add(createRow("<Total>", includedColumns, Scores.sum(classScores.values()), idx));
+		return rows;
+	}
+
 	private static DataRow createRow(String caption, List<ScoreColumn> columns, Scores score, long idx) {
 		List<DataCell> cells = new ArrayList<>();
 		cells.add(new StringCell(caption));
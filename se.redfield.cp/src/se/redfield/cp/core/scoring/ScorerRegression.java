@@ -19,21 +19,27 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataColumnSpec;
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTableSpec;
-import org.knime.core.data.DoubleValue;
 import org.knime.core.data.RowKey;
 import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.v2.RowRead;
 import org.knime.core.node.BufferedDataContainer;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.ModelContentRO;
+import org.knime.core.node.ModelContentWO;
 
 import se.redfield.cp.core.scoring.Scores.Metric;
 import se.redfield.cp.settings.ConformalPredictorScorerRegressionSettings;
+import se.redfield.cp.utils.KnimeUtils;
+import se.redfield.cp.utils.ParallelTableProcessor;
 
 /**
  * Class used by Regression Scorer node to calculate quality metrics for a given
@@ -41,6 +47,9 @@ import se.redfield.cp.settings.ConformalPredictorScorerRegressionSettings;
  *
  */
 public class ScorerRegression {
+	private static final String TARGET_MISSING = "Target column contains missing values";
+	private static final String LOWER_BOUND_MISSING = "Lower bound column contains missing values";
+	private static final String UPPER_BOUND_MISSING = "Upper bound column contains missing values";
 
 	private ConformalPredictorScorerRegressionSettings settings;
 	private List<ScoreColumn> baseColumns;
@@ -59,7 +68,9 @@ public class ScorerRegression {
 		additionalColumns = Arrays.asList(
 				new ScoreColumn("Median interval size", Scores.Metric.MEDIAN_INTERVAL_SIZE), //
 				new ScoreColumn("Min interval size", Scores.Metric.MIN_INTERVAL_SIZE), //
-				new ScoreColumn("Max interval size", Scores.Metric.MAX_INTERVAL_SIZE));
+				new ScoreColumn("Max interval size", Scores.Metric.MAX_INTERVAL_SIZE), //
+				new ScoreColumn("90th percentile interval size", Scores.Metric.P90_INTERVAL_SIZE), //
+				new ScoreColumn("99th percentile interval size", Scores.Metric.P99_INTERVAL_SIZE));
 	}
 
 	/**
@@ -92,28 +103,115 @@ public class ScorerRegression {
 	 */
 	public BufferedDataTable process(BufferedDataTable inTable, ExecutionContext exec)
 			throws CanceledExecutionException {
-		Scores score = new Scores();
-
 		DataTableSpec spec = inTable.getDataTableSpec();
-		int targetIdx = spec.findColumnIndex(settings.getTargetColumn());
-		int upperboundIdx = settings.hasUpperBound() ? spec.findColumnIndex(settings.getUpperBoundColumnName()) : -1;
-		int lowerboundIdx = settings.hasLowerBound() ? spec.findColumnIndex(settings.getLowerBoundColumnName()) : -1;
+		PartialRegressionScores scores = createPartialScores();
+		int[] columns = createPartialScores(spec).getRequiredColumns();
+		for (PartialRegressionScores s : ParallelTableProcessor.process(inTable, columns,
+				() -> createPartialScores(spec), exec)) {
+			scores.merge(s);
+		}
+		return createOutputTable(scores.finish(), exec);
+	}
 
-		long total = inTable.size();
-		long count = 0;
+	/**
+	 * Creates empty partial scores that could only be used to merge other partial
+	 * scores into.
+	 * 
+	 * @return The partial scores.
+	 */
+	public PartialRegressionScores createPartialScores() {
+		return new PartialRegressionScores(null);
+	}
 
-		List<Double> interval = new ArrayList<>();
+	/**
+	 * Creates empty partial scores used to process rows of the table with the
+	 * given spec.
+	 * 
+	 * @param spec The input table spec.
+	 * @return The partial scores.
+	 */
+	public PartialRegressionScores createPartialScores(DataTableSpec spec) {
+		return new PartialRegressionScores(spec);
+	}
 
-		for (DataRow row : inTable) {
-			score.inc(Metric.COUNT);
+	/**
+	 * Creates the row of the output scores table.
+	 * 
+	 * @param scores The collected scores.
+	 * @return The output row.
+	 */
+	public DataRow createOutputRow(PartialRegressionScores scores) {
+		return createRow(scores.finish());
+	}
+
+	/**
+	 * Scores collected from a part of the input table.
+	 */
+	public class PartialRegressionScores implements PartialScores<PartialRegressionScores> {
+		private static final String KEY_SCORES = "scores";
+		private static final String KEY_INTERVALS = "intervals";
+		private static final String KEY_LEVELS = "levels";
+		private static final String KEY_LEVEL = "level_";
+		private static final String KEY_COUNT = "count";
+		private static final String KEY_EXACT = "exact";
+
+		private final Scores score = new Scores();
+		private final QuantileSketch intervals = new QuantileSketch();
+
+		private final int targetIdx;
+		private final int upperboundIdx;
+		private final int lowerboundIdx;
+
+		private PartialRegressionScores(DataTableSpec spec) {
+			if (spec == null) {
+				targetIdx = -1;
+				upperboundIdx = -1;
+				lowerboundIdx = -1;
+			} else {
+				targetIdx = spec.findColumnIndex(settings.getTargetColumn());
+				upperboundIdx = settings.hasUpperBound() ? spec.findColumnIndex(settings.getUpperBoundColumnName())
+						: -1;
+				lowerboundIdx = settings.hasLowerBound() ? spec.findColumnIndex(settings.getLowerBoundColumnName())
+						: -1;
+			}
+		}
+
+		@Override
+		public int[] getRequiredColumns() {
+			if (targetIdx < 0) {
+				return new int[0];
+			}
+			return IntStream.of(targetIdx, lowerboundIdx, upperboundIdx).filter(i -> i > -1).distinct().sorted()
+					.toArray();
+		}
+
+		@Override
+		public void accept(RowRead row) {
+			double regression = KnimeUtils.getDouble(row, targetIdx, TARGET_MISSING);
+			double lowerboundRegression = lowerboundIdx > -1
+					? KnimeUtils.getDouble(row, lowerboundIdx, LOWER_BOUND_MISSING)
+					: Double.NEGATIVE_INFINITY;
+			double upperboundRegression = upperboundIdx > -1
+					? KnimeUtils.getDouble(row, upperboundIdx, UPPER_BOUND_MISSING)
+					: Double.POSITIVE_INFINITY;
+			accept(regression, lowerboundRegression, upperboundRegression);
+		}
 
-			double regression = ((DoubleValue) row.getCell(targetIdx)).getDoubleValue();
+		@Override
+		public void accept(DataRow row) {
+			double regression = KnimeUtils.getDouble(row.getCell(targetIdx), TARGET_MISSING);
 			double lowerboundRegression = lowerboundIdx > -1
-					? ((DoubleValue) row.getCell(lowerboundIdx)).getDoubleValue()
+					? KnimeUtils.getDouble(row.getCell(lowerboundIdx), LOWER_BOUND_MISSING)
 					: Double.NEGATIVE_INFINITY;
 			double upperboundRegression = upperboundIdx > -1
-					? ((DoubleValue) row.getCell(upperboundIdx)).getDoubleValue()
+					? KnimeUtils.getDouble(row.getCell(upperboundIdx), UPPER_BOUND_MISSING)
 					: Double.POSITIVE_INFINITY;
+			accept(regression, lowerboundRegression, upperboundRegression);
+		}
+
+		private void accept(double regression, double lowerboundRegression, double upperboundRegression) {
+			score.inc(Metric.COUNT);
+
 			double intervalsSize = upperboundRegression - lowerboundRegression;// trouble!!!!
 
 			score.max(Metric.MAX_INTERVAL_SIZE, intervalsSize);
@@ -124,21 +222,56 @@ public class ScorerRegression {
 			}
 
 			score.add(Metric.INTERVAL_SIZE, intervalsSize);
-			interval.add(intervalsSize);
 
-			exec.checkCanceled();
-			exec.setProgress((double) count / total);
-			count++;
+			if (settings.isAdditionalInfoMode()) {
+				intervals.add(intervalsSize);
+			}
 		}
 
-		if (settings.isAdditionalInfoMode()) {
-			interval.sort(null);
-			double median = interval.get(interval.size() / 2);
-			score.set(Metric.MEDIAN_INTERVAL_SIZE, median);
+		@Override
+		public void merge(PartialRegressionScores other) {
+			score.merge(other.score);
+			intervals.merge(other.intervals);
 		}
 
-		return createOutputTable(score, exec);
+		/**
+		 * Computes the metrics that can only be computed once all the rows are
+		 * collected.
+		 * 
+		 * @return The final scores.
+		 */
+		private Scores finish() {
+			if (settings.isAdditionalInfoMode() && intervals.getCount() > 0) {
+				score.set(Metric.MEDIAN_INTERVAL_SIZE, intervals.getQuantile(0.5));
+				score.set(Metric.P90_INTERVAL_SIZE, intervals.getQuantile(0.9));
+				score.set(Metric.P99_INTERVAL_SIZE, intervals.getQuantile(0.99));
+			}
+			return score;
+		}
 
+		@Override
+		public void saveTo(ModelContentWO content) {
+			score.saveTo(content.addModelContent(KEY_SCORES));
+			ModelContentWO intervalsContent = content.addModelContent(KEY_INTERVALS);
+			double[][] levels = intervals.getLevels();
+			intervalsContent.addInt(KEY_LEVELS, levels.length);
+			for (int i = 0; i < levels.length; i++) {
+				intervalsContent.addDoubleArray(KEY_LEVEL + i, levels[i]);
+			}
+			intervalsContent.addLong(KEY_COUNT, intervals.getCount());
+			intervalsContent.addBoolean(KEY_EXACT, intervals.isExact());
+		}
+
+		@Override
+		public void loadFrom(ModelContentRO content) throws InvalidSettingsException {
+			score.loadFrom(content.getModelContent(KEY_SCORES));
+			ModelContentRO intervalsContent = content.getModelContent(KEY_INTERVALS);
+			double[][] levels = new double[intervalsContent.getInt(KEY_LEVELS)][];
+			for (int i = 0; i < levels.length; i++) {
+				levels[i] = intervalsContent.getDoubleArray(KEY_LEVEL + i);
+			}
+			intervals.load(levels, intervalsContent.getLong(KEY_COUNT), intervalsContent.getBoolean(KEY_EXACT));
+		}
 	}
 
 	private BufferedDataTable createOutputTable(Scores score, ExecutionContext exec) {
@@ -16,23 +16,35 @@
 package se.redfield.cp.core.scoring;
 
 import java.util.Collection;
-import java.util.EnumMap;
-import java.util.Map;
+
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.ModelContentRO;
+import org.knime.core.node.ModelContentWO;
 
 /**
- * Class to collect scores for a different metrics.
+ * Class to collect scores for a different metrics. Values are stored in a
+ * primitive array indexed by the metric ordinal, so updating a metric doesn't
+ * allocate any objects.
  * 
  * @author Alexander Bondaletov
  *
  */
 public class Scores {
-	private Map<Metric, Double> metrics;
+	private static final Metric[] METRICS = Metric.values();
+
+	private final double[] values;
+	private long present;
 
 	/**
 	 * Creates new instance.
 	 */
 	public Scores() {
-		this.metrics = new EnumMap<>(Metric.class);
+		this.values = new double[METRICS.length];
+		this.present = 0;
+	}
+
+	private boolean isPresent(Metric m) {
+		return (present & (1L << m.ordinal())) != 0;
 	}
 
 	/**
@@ -42,7 +54,8 @@ public class Scores {
 	 * @param value The value.
 	 */
 	public void set(Metric m, double value) {
-		this.metrics.put(m, value);
+		values[m.ordinal()] = value;
+		present |= 1L << m.ordinal();
 	}
 
 	/**
@@ -52,7 +65,7 @@ public class Scores {
 	 * @param m The metric.
 	 */
 	public void inc(Metric m) {
-		metrics.compute(m, (k, v) -> v == null ? 1.0 : v + 1);
+		add(m, 1);
 	}
 
 	/**
@@ -63,7 +76,8 @@ public class Scores {
 	 * @param value The value.
 	 */
 	public void add(Metric m, double value) {
-		metrics.compute(m, (k, v) -> v == null ? value : v + value);
+		values[m.ordinal()] += value;
+		present |= 1L << m.ordinal();
 	}
 
 	/**
@@ -74,7 +88,9 @@ public class Scores {
 	 * @param value The value.
 	 */
 	public void min(Metric m, double value) {
-		metrics.compute(m, (k, v) -> v == null || value < v ? value : v);
+		if (!isPresent(m) || value < values[m.ordinal()]) {
+			set(m, value);
+		}
 	}
 
 	/**
@@ -85,7 +101,9 @@ public class Scores {
 	 * @param value The value.
 	 */
 	public void max(Metric m, double value) {
-		metrics.compute(m, (k, v) -> v == null || value > v ? value : v);
+		if (!isPresent(m) || value > values[m.ordinal()]) {
+			set(m, value);
+		}
 	}
 
 	/**
@@ -93,7 +111,7 @@ public class Scores {
 	 * @return The value for the given metric.
 	 */
 	public double get(Metric m) {
-		return metrics.getOrDefault(m, 0.0);
+		return values[m.ordinal()];
 	}
 
 	/**
@@ -104,6 +122,59 @@ public class Scores {
 		return get(m) / get(Metric.COUNT);
 	}
 
+	/**
+	 * Merges the metrics collected by another scores object into this one. Min
+	 * and max metrics are merged by taking the min or max value respectively, all
+	 * the other metrics are summed.
+	 * 
+	 * @param other The scores to merge.
+	 */
+	public void merge(Scores other) {
+		for (Metric m : METRICS) {
+			if (!other.isPresent(m)) {
+				continue;
+			}
+
+			switch (m) {
+			case MIN_INTERVAL_SIZE:
+				min(m, other.get(m));
+				break;
+			case MAX_INTERVAL_SIZE:
+				max(m, other.get(m));
+				break;
+			default:
+				add(m, other.get(m));
+			}
+		}
+	}
+
+	/**
+	 * Saves the metrics into the provided {@link ModelContentWO}.
+	 * 
+	 * @param content The model content.
+	 */
+	public void saveTo(ModelContentWO content) {
+		for (Metric m : METRICS) {
+			if (isPresent(m)) {
+				content.addDouble(m.name(), get(m));
+			}
+		}
+	}
+
+	/**
+	 * Loads the metrics previously saved with the {@link #saveTo(ModelContentWO)}.
+	 * 
+	 * @param content The model content.
+	 * @throws InvalidSettingsException
+	 */
+	public void loadFrom(ModelContentRO content) throws InvalidSettingsException {
+		for (Metric m : METRICS) {
+			if (content.containsKey(m.name())) {
+				set(m, content.getDouble(m.name()));
+			}
+		}
+	}
+
 	/**
 	 * Sums given scores into one scores object.
 	 * 
@@ -114,8 +185,10 @@ public class Scores {
 		Scores result = new Scores();
 
 		for (Scores s : scores) {
-			for (Metric m : s.metrics.keySet()) {
-				result.add(m, s.get(m));
+			for (Metric m : METRICS) {
+				if (s.isPresent(m)) {
+					result.add(m, s.get(m));
+				}
 			}
 		}
 
@@ -151,6 +224,7 @@ public class Scores {
 	public enum Metric {
 		COUNT, STRICT_MATCH, SOFT_MATCH, ERROR, SINGLE_CLASS, NULL_CLASS, SUM_OF_P_VALUES, UNCONFIDENCE, FUZZINESS,
 		OBSERVED_UNCONFIDENCE, OBSERVED_FUZZINESS, NUMBER_OF_LABELS, MULTIPLE, EXCESS, OBSERVED_MULTIPLE,
-		OBSERVED_EXCESS, VALID, INTERVAL_SIZE, MEDIAN_INTERVAL_SIZE, MAX_INTERVAL_SIZE, MIN_INTERVAL_SIZE
+		OBSERVED_EXCESS, VALID, INTERVAL_SIZE, MEDIAN_INTERVAL_SIZE, MAX_INTERVAL_SIZE, MIN_INTERVAL_SIZE,
+		P90_INTERVAL_SIZE, P99_INTERVAL_SIZE
 	}
 }
@@ -29,12 +29,21 @@ import org.knime.core.node.NodeLogger;
 import org.knime.core.node.NodeModel;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.port.PortObjectSpec;
+import org.knime.core.node.streamable.InputPortRole;
+import org.knime.core.node.streamable.OutputPortRole;
+import org.knime.core.node.streamable.PartitionInfo;
+import org.knime.core.node.streamable.PortInput;
+import org.knime.core.node.streamable.PortObjectInput;
+import org.knime.core.node.streamable.PortOutput;
+import org.knime.core.node.streamable.StreamableOperator;
 
 import se.redfield.cp.core.ClassifierCellFactory;
 import se.redfield.cp.core.calibration.Calibrator;
 import se.redfield.cp.core.prediction.Predictor;
 import se.redfield.cp.settings.ClassifierSettings;
 import se.redfield.cp.settings.CompactClassificationNodeSettigns;
+import se.redfield.cp.utils.ChainedStreamableFunction;
 import se.redfield.cp.utils.PortDef;
 
 /**
@@ -68,8 +77,6 @@ public class CompactConformalClassificationNodeModel extends NodeModel {
 
 	@Override
 	protected BufferedDataTable[] execute(BufferedDataTable[] inData, ExecutionContext exec) throws Exception {
-		pushFlowVariableDouble(ClassifierSettings.KEY_ERROR_RATE, settings.getClassifierSettings().getErrorRate());
-
 		BufferedDataTable inCalibrationTable = inData[PORT_CALIBRATION_TABLE.getIdx()];
 		BufferedDataTable inPredictionTable = inData[PORT_PREDICTION_TABLE.getIdx()];
 		// Calibrate
@@ -86,6 +93,8 @@ public class CompactConformalClassificationNodeModel extends NodeModel {
 	@Override
 	protected DataTableSpec[] configure(DataTableSpec[] inSpecs) throws InvalidSettingsException {
 		settings.validateSettings(inSpecs, this::setWarningMessage);
+		// pushed here so that streaming and table execution expose the same variable
+		pushFlowVariableDouble(ClassifierSettings.KEY_ERROR_RATE, settings.getClassifierSettings().getErrorRate());
 		DataTableSpec predictionTableSpec = predictor.createOuputTableSpec(inSpecs[PORT_CALIBRATION_TABLE.getIdx()],
 				inSpecs[PORT_PREDICTION_TABLE.getIdx()]);
 
@@ -101,6 +110,38 @@ public class CompactConformalClassificationNodeModel extends NodeModel {
 		return r;
 	}
 
+	@Override
+	public InputPortRole[] getInputPortRoles() {
+		return new InputPortRole[] { InputPortRole.NONDISTRIBUTED_NONSTREAMABLE, InputPortRole.DISTRIBUTED_STREAMABLE };
+	}
+
+	@Override
+	public OutputPortRole[] getOutputPortRoles() {
+		return new OutputPortRole[] { OutputPortRole.DISTRIBUTED };
+	}
+
+	@Override
+	public StreamableOperator createStreamableOperator(PartitionInfo partitionInfo, PortObjectSpec[] inSpecs)
+			throws InvalidSettingsException {
+		return new StreamableOperator() {
+
+			@Override
+			public void runFinal(PortInput[] inputs, PortOutput[] outputs, ExecutionContext exec) throws Exception {
+				BufferedDataTable inCalibrationTable = (BufferedDataTable) ((PortObjectInput) inputs[PORT_CALIBRATION_TABLE
+						.getIdx()]).getPortObject();
+				BufferedDataTable calibrationTable = calibrator.process(inCalibrationTable,
+						exec.createSubExecutionContext(0.1));
+
+				ColumnRearranger r = predictor.createRearranger((DataTableSpec) inSpecs[PORT_PREDICTION_TABLE.getIdx()],
+						calibrationTable, exec.createSubExecutionContext(0.1));
+
+				new ChainedStreamableFunction(PORT_PREDICTION_TABLE.getIdx(), 0, r.createStreamableFunction(),
+						classifierRearranger.createStreamableFunction()).runFinal(inputs, outputs,
+								exec.createSubExecutionContext(0.8));
+			}
+		};
+	}
+
 	@Override
 	protected void saveSettingsTo(NodeSettingsWO settings) {
 		this.settings.saveSettingsTo(settings);
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.nodes;
+
+import static se.redfield.cp.nodes.ConformalPredictorNodeModel.PORT_CALIBRATION_TABLE;
+import static se.redfield.cp.nodes.ConformalPredictorNodeModel.PORT_PREDICTION_TABLE;
+
+import org.knime.core.data.DataValue;
+import org.knime.core.data.IntValue;
+import org.knime.core.node.defaultnodesettings.DefaultNodeSettingsPane;
+import org.knime.core.node.defaultnodesettings.DialogComponentBoolean;
+import org.knime.core.node.defaultnodesettings.DialogComponentColumnNameSelection;
+
+import se.redfield.cp.settings.AggregationSettings;
+import se.redfield.cp.settings.PredictorNodeSettings;
+import se.redfield.cp.settings.ui.DialogComponentProbabilityFormat;
+
+/**
+ * Node dialog for Conformal Aggregated Predictor node.
+ *
+ */
+public class ConformalAggregatedPredictorNodeDialog extends DefaultNodeSettingsPane {
+
+	private final PredictorNodeSettings settings = new PredictorNodeSettings();
+	private final AggregationSettings aggregationSettings = new AggregationSettings(PORT_CALIBRATION_TABLE,
+			PORT_PREDICTION_TABLE);
+
+	/**
+	 * Creates new instance
+	 */
+	@SuppressWarnings("unchecked")
+	public ConformalAggregatedPredictorNodeDialog() {
+		super();
+
+		addDialogComponent(new DialogComponentColumnNameSelection(settings.getTargetSettings().getTargetColumnModel(),
+				"Target column:", PORT_CALIBRATION_TABLE.getIdx(), DataValue.class));
+		addDialogComponent(new DialogComponentProbabilityFormat(settings.getTargetSettings()));
+
+		createNewGroup("Iterations");
+		addDialogComponent(
+				new DialogComponentColumnNameSelection(aggregationSettings.getCalibrationIterationColumnModel(),
+						"Calibration iteration column:", PORT_CALIBRATION_TABLE.getIdx(), IntValue.class));
+		addDialogComponent(
+				new DialogComponentColumnNameSelection(aggregationSettings.getPredictionIterationColumnModel(),
+						"Prediction iteration column:", PORT_PREDICTION_TABLE.getIdx(), IntValue.class));
+		addDialogComponent(new DialogComponentBoolean(aggregationSettings.getMatchByIdColumnModel(),
+				"Match rows by ID column"));
+		addDialogComponent(new DialogComponentColumnNameSelection(aggregationSettings.getMatchColumnModel(),
+				"Match column:", PORT_PREDICTION_TABLE.getIdx(), false, DataValue.class));
+
+		createNewGroup("Define output");
+
+		addDialogComponent(
+				new DialogComponentBoolean(settings.getKeepColumns().getKeepAllColumnsModel(), "Keep All Columns"));
+		addDialogComponent(
+				new DialogComponentBoolean(settings.getKeepColumns().getKeepIdColumnModel(), "Keep ID column"));
+		addDialogComponent(new DialogComponentColumnNameSelection(settings.getKeepColumns().getIdColumnModel(),
+				"ID column:", PORT_PREDICTION_TABLE.getIdx(), DataValue.class));
+
+		addDialogComponent(new DialogComponentBoolean(settings.getIncludeRankModel(), "Include Rank column"));
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.nodes;
+
+import static se.redfield.cp.nodes.ConformalPredictorNodeModel.PORT_CALIBRATION_TABLE;
+import static se.redfield.cp.nodes.ConformalPredictorNodeModel.PORT_PREDICTION_TABLE;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+
+import se.redfield.cp.core.prediction.AggregatedPredictor;
+import se.redfield.cp.core.prediction.Predictor;
+import se.redfield.cp.settings.AggregationSettings;
+import se.redfield.cp.settings.PredictorNodeSettings;
+
+/**
+ * Conformal Aggregated Predictor node. Computes the p-values for each
+ * iteration of the iteration-tagged prediction table using the calibration
+ * data of the same iteration and aggregates them by median, without the
+ * Conformal Prediction Loop Start/End nodes.
+ *
+ */
+public class ConformalAggregatedPredictorNodeModel extends NodeModel {
+
+	private final PredictorNodeSettings settings = new PredictorNodeSettings();
+	private final AggregationSettings aggregationSettings = new AggregationSettings(PORT_CALIBRATION_TABLE,
+			PORT_PREDICTION_TABLE);
+
+	private final Predictor predictor = new Predictor(settings);
+	private final AggregatedPredictor aggregatedPredictor = new AggregatedPredictor(aggregationSettings);
+
+	protected ConformalAggregatedPredictorNodeModel() {
+		super(2, 1);
+	}
+
+	@Override
+	protected BufferedDataTable[] execute(BufferedDataTable[] inData, ExecutionContext exec) throws Exception {
+		return new BufferedDataTable[] { aggregatedPredictor.predict(inData[PORT_CALIBRATION_TABLE.getIdx()],
+				inData[PORT_PREDICTION_TABLE.getIdx()], predictor::createRearranger, exec) };
+	}
+
+	@Override
+	protected DataTableSpec[] configure(DataTableSpec[] inSpecs) throws InvalidSettingsException {
+		settings.validateSettings(inSpecs, this::setWarningMessage);
+		aggregationSettings.validateSettings(inSpecs);
+		if (settings.getPValuesAsVector()) {
+			throw new InvalidSettingsException("P-values vector output is not supported by the aggregated predictor");
+		}
+
+		return new DataTableSpec[] { aggregatedPredictor.createOutputTableSpec(predictor.createOuputTableSpec(
+				inSpecs[PORT_CALIBRATION_TABLE.getIdx()], inSpecs[PORT_PREDICTION_TABLE.getIdx()])) };
+	}
+
+	@Override
+	protected void loadValidatedSettingsFrom(NodeSettingsRO settings) throws InvalidSettingsException {
+		this.settings.loadSettingFrom(settings);
+		aggregationSettings.loadSettingFrom(settings);
+	}
+
+	@Override
+	protected void validateSettings(NodeSettingsRO settings) throws InvalidSettingsException {
+		this.settings.validateSettings(settings);
+		aggregationSettings.validateSettings(settings);
+	}
+
+	@Override
+	protected void saveSettingsTo(NodeSettingsWO settings) {
+		this.settings.saveSettingsTo(settings);
+		aggregationSettings.saveSettingsTo(settings);
+	}
+
+	@Override
+	protected void loadInternals(File nodeInternDir, ExecutionMonitor exec)
+			throws IOException, CanceledExecutionException {
+		// no internals
+	}
+
+	@Override
+	protected void saveInternals(File nodeInternDir, ExecutionMonitor exec)
+			throws IOException, CanceledExecutionException {
+		// no internals
+	}
+
+	@Override
+	protected void reset() {
+		// nothing to do
+	}
+}
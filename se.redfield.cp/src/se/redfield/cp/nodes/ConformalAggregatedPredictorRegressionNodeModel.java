@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.nodes;
+
+import static se.redfield.cp.nodes.ConformalPredictorRegressionNodeModel.PORT_CALIBRATION_TABLE;
+import static se.redfield.cp.nodes.ConformalPredictorRegressionNodeModel.PORT_PREDICTION_TABLE;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+
+import se.redfield.cp.core.prediction.AggregatedPredictor;
+import se.redfield.cp.core.prediction.PredictorRegression;
+import se.redfield.cp.settings.AggregationSettings;
+import se.redfield.cp.settings.PredictorRegressionNodeSettings;
+
+/**
+ * Conformal Aggregated Predictor node for regression. Computes the lower and
+ * upper bounds for each iteration of the iteration-tagged prediction table
+ * using the calibration data of the same iteration and aggregates them by
+ * median, without the Conformal Prediction Loop Start/End nodes.
+ *
+ */
+public class ConformalAggregatedPredictorRegressionNodeModel extends NodeModel {
+
+	private final PredictorRegressionNodeSettings settings = new PredictorRegressionNodeSettings();
+	private final AggregationSettings aggregationSettings = new AggregationSettings(PORT_CALIBRATION_TABLE,
+			PORT_PREDICTION_TABLE);
+
+	private final PredictorRegression predictor = new PredictorRegression(settings);
+	private final AggregatedPredictor aggregatedPredictor = new AggregatedPredictor(aggregationSettings);
+
+	protected ConformalAggregatedPredictorRegressionNodeModel() {
+		super(2, 1);
+	}
+
+	@Override
+	protected BufferedDataTable[] execute(BufferedDataTable[] inData, ExecutionContext exec) throws Exception {
+		pushFlowVariableDouble(PredictorRegressionNodeSettings.KEY_ERROR_RATE, settings.getErrorRate());
+		return new BufferedDataTable[] { aggregatedPredictor.predict(inData[PORT_CALIBRATION_TABLE.getIdx()],
+				inData[PORT_PREDICTION_TABLE.getIdx()], predictor::createRearranger, exec) };
+	}
+
+	@Override
+	protected DataTableSpec[] configure(DataTableSpec[] inSpecs) throws InvalidSettingsException {
+		settings.validateSettings(inSpecs);
+		aggregationSettings.validateSettings(inSpecs);
+
+		return new DataTableSpec[] { aggregatedPredictor
+				.createOutputTableSpec(predictor.createOuputTableSpec(inSpecs[PORT_PREDICTION_TABLE.getIdx()])) };
+	}
+
+	@Override
+	protected void loadValidatedSettingsFrom(NodeSettingsRO settings) throws InvalidSettingsException {
+		this.settings.loadSettingFrom(settings);
+		aggregationSettings.loadSettingFrom(settings);
+	}
+
+	@Override
+	protected void validateSettings(NodeSettingsRO settings) throws InvalidSettingsException {
+		this.settings.validateSettings(settings);
+		aggregationSettings.validateSettings(settings);
+	}
+
+	@Override
+	protected void saveSettingsTo(NodeSettingsWO settings) {
+		this.settings.saveSettingsTo(settings);
+		aggregationSettings.saveSettingsTo(settings);
+	}
+
+	@Override
+	protected void loadInternals(File nodeInternDir, ExecutionMonitor exec)
+			throws IOException, CanceledExecutionException {
+		// no internals
+	}
+
+	@Override
+	protected void saveInternals(File nodeInternDir, ExecutionMonitor exec)
+			throws IOException, CanceledExecutionException {
+		// no internals
+	}
+
+	@Override
+	protected void reset() {
+		// nothing to do
+	}
+}
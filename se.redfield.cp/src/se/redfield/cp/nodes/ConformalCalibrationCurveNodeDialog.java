@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.nodes;
+
+import static se.redfield.cp.nodes.ConformalCalibrationCurveNodeModel.PORT_INPUT_TABLE;
+
+import org.knime.core.data.DataValue;
+import org.knime.core.node.defaultnodesettings.DefaultNodeSettingsPane;
+import org.knime.core.node.defaultnodesettings.DialogComponentColumnNameSelection;
+import org.knime.core.node.defaultnodesettings.DialogComponentNumber;
+
+import se.redfield.cp.settings.CalibrationCurveSettings;
+
+/**
+ * Node dialog for Calibration Curve Node.
+ *
+ */
+public class ConformalCalibrationCurveNodeDialog extends DefaultNodeSettingsPane {
+
+	private CalibrationCurveSettings settings = new CalibrationCurveSettings();
+
+	/**
+	 * Creates new instance
+	 */
+	@SuppressWarnings("unchecked")
+	public ConformalCalibrationCurveNodeDialog() {
+		super();
+		addDialogComponent(new DialogComponentColumnNameSelection(settings.getTargetColumnModel(), "Target column:",
+				PORT_INPUT_TABLE.getIdx(), DataValue.class));
+		addDialogComponent(new DialogComponentNumber(settings.getSignificanceLevelsModel(),
+				"Number of significance levels", 10, createFlowVariableModel(settings.getSignificanceLevelsModel())));
+	}
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.nodes;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+
+import se.redfield.cp.core.scoring.CalibrationCurve;
+import se.redfield.cp.settings.CalibrationCurveSettings;
+import se.redfield.cp.settings.ClassifierSettings;
+import se.redfield.cp.utils.ColumnPatternExtractor;
+import se.redfield.cp.utils.PortDef;
+
+/**
+ * Conformal Calibration Curve node. Computes validity and efficiency of the
+ * conformal classifier for a grid of significance levels from the p-values
+ * produced by Conformal Predictor node.
+ *
+ */
+public class ConformalCalibrationCurveNodeModel extends NodeModel {
+	/**
+	 * Input table
+	 */
+	public static final PortDef PORT_INPUT_TABLE = new PortDef(0, "Input table");
+
+	private final CalibrationCurveSettings settings = new CalibrationCurveSettings();
+	private final CalibrationCurve curve = new CalibrationCurve(settings);
+
+	protected ConformalCalibrationCurveNodeModel() {
+		super(1, 1);
+	}
+
+	@Override
+	protected DataTableSpec[] configure(DataTableSpec[] inSpecs) throws InvalidSettingsException {
+		if (settings.getTargetColumn().isEmpty()) {
+			attemptAutoconfig(inSpecs[PORT_INPUT_TABLE.getIdx()]);
+		}
+		settings.validateSettings(inSpecs);
+
+		if (new ColumnPatternExtractor(ClassifierSettings.P_VALUE_COLUMN_REGEX)
+				.match(inSpecs[PORT_INPUT_TABLE.getIdx()]).isEmpty()) {
+			throw new InvalidSettingsException("No p-values columns found in provided table");
+		}
+
+		return new DataTableSpec[] { curve.createOutputSpec() };
+	}
+
+	/**
+	 * Attempts autoconfig by selecting column with the lowest amount of different
+	 * values as a target column
+	 */
+	private void attemptAutoconfig(DataTableSpec spec) {
+		int valuesNum = Integer.MAX_VALUE;
+		for (DataColumnSpec c : spec) {
+			if (c.getDomain().hasValues() && !c.getDomain().getValues().isEmpty()
+					&& c.getDomain().getValues().size() < valuesNum) {
+				valuesNum = c.getDomain().getValues().size();
+				settings.getTargetColumnModel().setStringValue(c.getName());
+			}
+		}
+	}
+
+	@Override
+	protected BufferedDataTable[] execute(BufferedDataTable[] inData, ExecutionContext exec) throws Exception {
+		return new BufferedDataTable[] { curve.process(inData[PORT_INPUT_TABLE.getIdx()], exec) };
+	}
+
+	@Override
+	protected void saveSettingsTo(NodeSettingsWO settings) {
+		this.settings.saveSettingsTo(settings);
+	}
+
+	@Override
+	protected void validateSettings(NodeSettingsRO settings) throws InvalidSettingsException {
+		this.settings.validateSettings(settings);
+	}
+
+	@Override
+	protected void loadValidatedSettingsFrom(NodeSettingsRO settings) throws InvalidSettingsException {
+		this.settings.loadSettingFrom(settings);
+	}
+
+	@Override
+	protected void reset() {
+		// nothing to reset
+	}
+
+	@Override
+	protected void loadInternals(File nodeInternDir, ExecutionMonitor exec)
+			throws IOException, CanceledExecutionException {
+		// no internals
+	}
+
+	@Override
+	protected void saveInternals(File nodeInternDir, ExecutionMonitor exec)
+			throws IOException, CanceledExecutionException {
+		// no internals
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.nodes;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+
+import se.redfield.cp.core.scoring.CalibrationCurveRegression;
+import se.redfield.cp.settings.CalibrationCurveRegressionSettings;
+import se.redfield.cp.utils.PortDef;
+
+/**
+ * Conformal Calibration Curve (Regression) node. Computes validity and
+ * interval sizes of the conformal regressor for a grid of significance levels
+ * from the calibration table and the table with predictions and actual values.
+ *
+ */
+public class ConformalCalibrationCurveRegressionNodeModel extends NodeModel {
+	/**
+	 * Prediction table input port
+	 */
+	public static final PortDef PORT_PREDICTION_TABLE = new PortDef(1, "Prediction table");
+	/**
+	 * Calibration table input port
+	 */
+	public static final PortDef PORT_CALIBRATION_TABLE = new PortDef(0, "Calibration table");
+
+	private final CalibrationCurveRegressionSettings settings = new CalibrationCurveRegressionSettings();
+	private final CalibrationCurveRegression curve = new CalibrationCurveRegression(settings);
+
+	protected ConformalCalibrationCurveRegressionNodeModel() {
+		super(2, 1);
+	}
+
+	@Override
+	protected DataTableSpec[] configure(DataTableSpec[] inSpecs) throws InvalidSettingsException {
+		settings.validateSettings(inSpecs);
+		return new DataTableSpec[] { curve.createOutputSpec() };
+	}
+
+	@Override
+	protected BufferedDataTable[] execute(BufferedDataTable[] inData, ExecutionContext exec) throws Exception {
+		return new BufferedDataTable[] { curve.process(inData[PORT_CALIBRATION_TABLE.getIdx()],
+				inData[PORT_PREDICTION_TABLE.getIdx()], exec) };
+	}
+
+	@Override
+	protected void saveSettingsTo(NodeSettingsWO settings) {
+		this.settings.saveSettingsTo(settings);
+	}
+
+	@Override
+	protected void validateSettings(NodeSettingsRO settings) throws InvalidSettingsException {
+		this.settings.validateSettings(settings);
+	}
+
+	@Override
+	protected void loadValidatedSettingsFrom(NodeSettingsRO settings) throws InvalidSettingsException {
+		this.settings.loadSettingFrom(settings);
+	}
+
+	@Override
+	protected void reset() {
+		// nothing to reset
+	}
+
+	@Override
+	protected void loadInternals(File nodeInternDir, ExecutionMonitor exec)
+			throws IOException, CanceledExecutionException {
+		// no internals
+	}
+
+	@Override
+	protected void saveInternals(File nodeInternDir, ExecutionMonitor exec)
+			throws IOException, CanceledExecutionException {
+		// no internals
+	}
+}
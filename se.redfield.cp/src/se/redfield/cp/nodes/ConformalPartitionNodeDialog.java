@@ -52,12 +52,19 @@ import javax.swing.JPanel;
 
 import org.knime.base.node.preproc.sample.SamplingNodeDialogPanel;
 import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataValue;
 import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.NodeDialogPane;
 import org.knime.core.node.NodeSettings;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
 import org.knime.core.node.NotConfigurableException;
+import org.knime.core.node.defaultnodesettings.DialogComponentBoolean;
+import org.knime.core.node.defaultnodesettings.DialogComponentColumnNameSelection;
+import org.knime.core.node.defaultnodesettings.DialogComponentNumber;
+
+import se.redfield.cp.settings.FoldSettings;
+import se.redfield.cp.settings.HashPartitionSettings;
 
 /**
  * Dialog that allows to define the partitioning of the input table. It is
@@ -67,6 +74,13 @@ import org.knime.core.node.NotConfigurableException;
  */
 public class ConformalPartitionNodeDialog extends NodeDialogPane {
 	private SamplingNodeDialogPanel partitionPanel;
+	private final HashPartitionSettings hashSettings = new HashPartitionSettings();
+	private DialogComponentBoolean hashPartitioningInput;
+	private DialogComponentBoolean useRowIdInput;
+	private DialogComponentColumnNameSelection idColumnInput;
+	private final FoldSettings foldSettings = new FoldSettings();
+	private DialogComponentBoolean assignFoldsInput;
+	private DialogComponentNumber foldsInput;
 
 	/**
 	 * Creates new instance
@@ -82,10 +96,42 @@ public class ConformalPartitionNodeDialog extends NodeDialogPane {
 		panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
 		panel.add(Box.createHorizontalStrut(5));
 		panel.add(partitionPanel);
+		panel.add(createHashPanel());
+		panel.add(createFoldsPanel());
 
 		addTab("Settings", panel);
 	}
 
+	private JPanel createHashPanel() {
+		hashPartitioningInput = new DialogComponentBoolean(hashSettings.getHashPartitioningModel(),
+				"Partition by hash (streamable)");
+		useRowIdInput = new DialogComponentBoolean(hashSettings.getUseRowIdModel(), "Use row ID");
+		idColumnInput = new DialogComponentColumnNameSelection(hashSettings.getIdColumnModel(), "ID column", 0,
+				false, DataValue.class);
+
+		JPanel panel = new JPanel();
+		panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
+		panel.setBorder(BorderFactory.createCompoundBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5),
+				BorderFactory.createTitledBorder("Hash-based partitioning")));
+		panel.add(hashPartitioningInput.getComponentPanel());
+		panel.add(useRowIdInput.getComponentPanel());
+		panel.add(idColumnInput.getComponentPanel());
+		return panel;
+	}
+
+	private JPanel createFoldsPanel() {
+		assignFoldsInput = new DialogComponentBoolean(foldSettings.getAssignFoldsModel(), "Assign folds");
+		foldsInput = new DialogComponentNumber(foldSettings.getFoldsModel(), "Number of folds", 1);
+
+		JPanel panel = new JPanel();
+		panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
+		panel.setBorder(BorderFactory.createCompoundBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5),
+				BorderFactory.createTitledBorder("K-fold assignment")));
+		panel.add(assignFoldsInput.getComponentPanel());
+		panel.add(foldsInput.getComponentPanel());
+		return panel;
+	}
+
 	@Override
 	public void loadSettingsFrom(NodeSettingsRO settings, DataTableSpec[] specs) throws NotConfigurableException {
 		NodeSettingsRO partitionSettings = new NodeSettings(
@@ -99,11 +145,36 @@ public class ConformalPartitionNodeDialog extends NodeDialogPane {
 		}
 
 		partitionPanel.loadSettingsFrom(partitionSettings, specs[0]);
+
+		NodeSettingsRO hashPartitionSettings = new NodeSettings(ConformalPartitionNodeModel.KEY_HASH_SETTINGS);
+		try {
+			hashPartitionSettings = settings.getNodeSettings(ConformalPartitionNodeModel.KEY_HASH_SETTINGS);
+		} catch (InvalidSettingsException e) {
+			// ignore
+		}
+
+		hashPartitioningInput.loadSettingsFrom(hashPartitionSettings, specs);
+		useRowIdInput.loadSettingsFrom(hashPartitionSettings, specs);
+		idColumnInput.loadSettingsFrom(hashPartitionSettings, specs);
+
+		NodeSettingsRO foldsSettings = new NodeSettings(ConformalPartitionNodeModel.KEY_FOLD_SETTINGS);
+		try {
+			foldsSettings = settings.getNodeSettings(ConformalPartitionNodeModel.KEY_FOLD_SETTINGS);
+		} catch (InvalidSettingsException e) {
+			// ignore
+		}
+
+		assignFoldsInput.loadSettingsFrom(foldsSettings, specs);
+		foldsInput.loadSettingsFrom(foldsSettings, specs);
 	}
 
 	@Override
 	public void saveSettingsTo(NodeSettingsWO settings) throws InvalidSettingsException {
 		partitionPanel.saveSettingsTo(
 				settings.addNodeSettings(ConformalPartitionNodeModel.KEY_PARTITION_SETTINGS));
+
+		hashSettings.validate();
+		hashSettings.saveSettingsTo(settings.addNodeSettings(ConformalPartitionNodeModel.KEY_HASH_SETTINGS));
+		foldSettings.saveSettingsTo(settings.addNodeSettings(ConformalPartitionNodeModel.KEY_FOLD_SETTINGS));
 	}
 }
@@ -17,8 +17,14 @@ package se.redfield.cp.nodes;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
 
+import org.knime.base.node.preproc.sample.SamplingNodeSettings.CountMethods;
+import org.knime.core.data.DataCell;
 import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.container.ColumnRearranger;
+import org.knime.core.node.BufferedDataContainer;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
@@ -27,8 +33,20 @@ import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.NodeModel;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
-
+import org.knime.core.node.port.PortObjectSpec;
+import org.knime.core.node.streamable.InputPortRole;
+import org.knime.core.node.streamable.OutputPortRole;
+import org.knime.core.node.streamable.PartitionInfo;
+import org.knime.core.node.streamable.PortInput;
+import org.knime.core.node.streamable.PortOutput;
+import org.knime.core.node.streamable.RowInput;
+import org.knime.core.node.streamable.RowOutput;
+import org.knime.core.node.streamable.StreamableOperator;
+
+import se.redfield.cp.core.HashPartitioner;
 import se.redfield.cp.core.Partitioner;
+import se.redfield.cp.settings.FoldSettings;
+import se.redfield.cp.settings.HashPartitionSettings;
 import se.redfield.cp.settings.SamplingSettings;
 
 /**
@@ -46,8 +64,18 @@ public class ConformalPartitionNodeModel extends NodeModel {
 	 * The settings key for partitionSettings
 	 */
 	public static final String KEY_PARTITION_SETTINGS = "partitionSettings";
+	/**
+	 * The settings key for hashSettings
+	 */
+	public static final String KEY_HASH_SETTINGS = "hashSettings";
+	/**
+	 * The settings key for foldSettings
+	 */
+	public static final String KEY_FOLD_SETTINGS = "foldSettings";
 
 	private final SamplingSettings partitionSettings = new SamplingSettings();
+	private final HashPartitionSettings hashSettings = new HashPartitionSettings();
+	private final FoldSettings foldSettings = new FoldSettings();
 
 	private final Partitioner partitioner = new Partitioner(partitionSettings, false);
     
@@ -62,28 +90,123 @@ public class ConformalPartitionNodeModel extends NodeModel {
 	protected DataTableSpec[] configure(DataTableSpec[] inSpecs) throws InvalidSettingsException {
 		DataTableSpec in = inSpecs[0];
 		partitionSettings.validate(in);
+		hashSettings.validate(in);
+		if (hashSettings.isHashPartitioning() && partitionSettings.countMethod() != CountMethods.Relative) {
+			throw new InvalidSettingsException("Hash-based partitioning requires the relative partition size");
+		}
+		if (foldSettings.isAssignFolds()) {
+			if (hashSettings.isHashPartitioning()) {
+				throw new InvalidSettingsException(
+						"Hash-based partitioning cannot be combined with folds assignment");
+			}
+			DataTableSpec out = createFoldRearranger(in, Collections.emptyMap(), 0).createSpec();
+			return new DataTableSpec[] { out, out };
+		}
 		return new DataTableSpec[] { in, in };
 	}
 
+	private ColumnRearranger createFoldRearranger(DataTableSpec inSpec, Map<DataCell, Long> strataSizes,
+			long rowCount) {
+		String columnName = DataTableSpec.getUniqueColumnName(inSpec, FoldSettings.DEFAULT_FOLD_COLUMN);
+		return partitioner.createFoldRearranger(inSpec, strataSizes, rowCount, foldSettings.getFolds(),
+				columnName);
+	}
+
+	private BufferedDataTable[] assignFolds(BufferedDataTable inTable, ExecutionContext exec)
+			throws CanceledExecutionException {
+		Map<DataCell, Long> strataSizes = partitioner.countStrata(inTable, exec.createSubExecutionContext(0.5));
+		BufferedDataTable folds = exec.createColumnRearrangeTable(inTable,
+				createFoldRearranger(inTable.getDataTableSpec(), strataSizes, inTable.size()),
+				exec.createSubExecutionContext(0.5));
+		BufferedDataContainer empty = exec.createDataContainer(folds.getDataTableSpec());
+		empty.close();
+		return new BufferedDataTable[] { folds, empty.getTable() };
+	}
+
 	@Override
 	protected BufferedDataTable[] execute(BufferedDataTable[] inData, ExecutionContext exec) throws Exception {
-		BufferedDataTable[] parts = partitioner.partition(inData[0], exec, true);
+		BufferedDataTable[] parts;
+		if (foldSettings.isAssignFolds()) {
+			parts = assignFolds(inData[0], exec);
+		} else if (hashSettings.isHashPartitioning()) {
+			parts = createHashPartitioner(inData[0].getDataTableSpec()).partition(inData[0], exec);
+		} else {
+			parts = partitioner.partition(inData[0], exec, true);
+		}
 		return new BufferedDataTable[] { parts[0], parts[1] };
 	}
 
+	private HashPartitioner createHashPartitioner(DataTableSpec inSpec) {
+		int keyColumnIdx = hashSettings.getUseRowId() ? -1 : inSpec.findColumnIndex(hashSettings.getIdColumn());
+		long seed = partitionSettings.seed() != null ? partitionSettings.seed() : 0;
+		return new HashPartitioner(partitionSettings.fraction(), seed, keyColumnIdx);
+	}
+
+	@Override
+	public InputPortRole[] getInputPortRoles() {
+		if (hashSettings.isHashPartitioning()) {
+			return new InputPortRole[] { InputPortRole.DISTRIBUTED_STREAMABLE };
+		}
+		return super.getInputPortRoles();
+	}
+
+	@Override
+	public OutputPortRole[] getOutputPortRoles() {
+		if (hashSettings.isHashPartitioning()) {
+			return new OutputPortRole[] { OutputPortRole.DISTRIBUTED, OutputPortRole.DISTRIBUTED };
+		}
+		return super.getOutputPortRoles();
+	}
+
+	@Override
+	public StreamableOperator createStreamableOperator(PartitionInfo partitionInfo, PortObjectSpec[] inSpecs)
+			throws InvalidSettingsException {
+		if (!hashSettings.isHashPartitioning()) {
+			return super.createStreamableOperator(partitionInfo, inSpecs);
+		}
+
+		HashPartitioner hashPartitioner = createHashPartitioner((DataTableSpec) inSpecs[0]);
+		return new StreamableOperator() {
+
+			@Override
+			public void runFinal(PortInput[] inputs, PortOutput[] outputs, ExecutionContext exec) throws Exception {
+				hashPartitioner.partition((RowInput) inputs[0], (RowOutput) outputs[OUTPORT_A],
+						(RowOutput) outputs[OUTPORT_B], exec);
+			}
+		};
+	}
+
 	@Override
 	protected void saveSettingsTo(NodeSettingsWO settings) {
 		partitionSettings.saveSettingsTo(settings.addNodeSettings(KEY_PARTITION_SETTINGS));
+		hashSettings.saveSettingsTo(settings.addNodeSettings(KEY_HASH_SETTINGS));
+		foldSettings.saveSettingsTo(settings.addNodeSettings(KEY_FOLD_SETTINGS));
 	}
 
 	@Override
 	protected void validateSettings(NodeSettingsRO settings) throws InvalidSettingsException {
 		partitionSettings.validateSettings(settings.getNodeSettings(KEY_PARTITION_SETTINGS));
+		if (settings.containsKey(KEY_HASH_SETTINGS)) {
+			hashSettings.validateSettings(settings.getNodeSettings(KEY_HASH_SETTINGS));
+		}
+		if (settings.containsKey(KEY_FOLD_SETTINGS)) {
+			foldSettings.validateSettings(settings.getNodeSettings(KEY_FOLD_SETTINGS));
+		}
 	}
 
 	@Override
 	protected void loadValidatedSettingsFrom(NodeSettingsRO settings) throws InvalidSettingsException {
 		partitionSettings.loadSettingsFrom(settings.getNodeSettings(KEY_PARTITION_SETTINGS), false);
+		if (settings.containsKey(KEY_HASH_SETTINGS)) {
+			hashSettings.loadSettingFrom(settings.getNodeSettings(KEY_HASH_SETTINGS));
+		} else {
+			hashSettings.getHashPartitioningModel().setBooleanValue(false);
+		}
+		if (settings.containsKey(KEY_FOLD_SETTINGS)) {
+			foldSettings.loadSettingFrom(settings.getNodeSettings(KEY_FOLD_SETTINGS));
+		} else {
+			foldSettings.getAssignFoldsModel().setBooleanValue(false);
+		}
 	}
 
 	@Override
@@ -16,10 +16,15 @@
 package se.redfield.cp.nodes;
 
 import org.knime.core.data.DataValue;
+import org.knime.core.data.collection.ListDataValue;
+import org.knime.core.data.vector.doublevector.DoubleVectorValue;
 import org.knime.core.node.defaultnodesettings.DefaultNodeSettingsPane;
 import org.knime.core.node.defaultnodesettings.DialogComponentBoolean;
 import org.knime.core.node.defaultnodesettings.DialogComponentColumnNameSelection;
+import org.knime.core.node.defaultnodesettings.DialogComponentString;
+import org.knime.core.node.defaultnodesettings.DialogComponentStringSelection;
 
+import se.redfield.cp.core.nonconformity.NonconformityMeasures;
 import se.redfield.cp.settings.CalibratorNodeSettings;
 import se.redfield.cp.settings.ui.DialogComponentProbabilityFormat;
 
@@ -41,6 +46,16 @@ public class ConformalPredictorCalibratorNodeDialog extends DefaultNodeSettingsP
 		addDialogComponent(new DialogComponentColumnNameSelection(settings.getTargetSettings().getTargetColumnModel(),
 				"Target column:", ConformalPredictorCalibratorNodeModel.PORT_INPUT_TABLE.getIdx(), DataValue.class));
 		addDialogComponent(new DialogComponentProbabilityFormat(settings.getTargetSettings()));
+		addDialogComponent(new DialogComponentBoolean(settings.getTargetSettings().getUseProbabilityVectorModel(),
+				"Read probabilities from a vector column"));
+		addDialogComponent(new DialogComponentColumnNameSelection(
+				settings.getTargetSettings().getProbabilityVectorColumnModel(), "Probability vector column:",
+				ConformalPredictorCalibratorNodeModel.PORT_INPUT_TABLE.getIdx(), false, DoubleVectorValue.class,
+				ListDataValue.class));
+		addDialogComponent(new DialogComponentString(
+				settings.getTargetSettings().getProbabilityVectorClassOrderModel(), "Class order (comma separated):"));
+		addDialogComponent(new DialogComponentStringSelection(settings.getNonconformityMeasureModel(),
+				"Nonconformity measure:", NonconformityMeasures.getNames()));
 
 		createNewGroup("Define output");
 
@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.nodes;
+
+import org.knime.core.node.defaultnodesettings.DefaultNodeSettingsPane;
+import org.knime.core.node.defaultnodesettings.DialogComponentBoolean;
+
+/**
+ * Node dialog for Conformal Prediction Loop End Node.
+ *
+ */
+public class ConformalPredictorLoopEndNodeDialog extends DefaultNodeSettingsPane {
+
+	/**
+	 * Creates new instance
+	 */
+	public ConformalPredictorLoopEndNodeDialog() {
+		super();
+		addDialogComponent(
+				new DialogComponentBoolean(ConformalPredictorLoopEndNodeModel.createPositionalAggregationSettings(),
+						"Rows are in the same order in every iteration"));
+	}
+}
@@ -43,12 +43,12 @@ public class ConformalPredictorLoopEndNodeFactory extends NodeFactory<ConformalP
 
 	@Override
 	protected boolean hasDialog() {
-		return false;
+		return true;
 	}
 
 	@Override
 	protected NodeDialogPane createNodeDialogPane() {
-		return null;
+		return new ConformalPredictorLoopEndNodeDialog();
 	}
 
 }
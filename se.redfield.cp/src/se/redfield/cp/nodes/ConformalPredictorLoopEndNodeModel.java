@@ -47,9 +47,11 @@ import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.NodeModel;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.defaultnodesettings.SettingsModelBoolean;
 import org.knime.core.node.workflow.LoopEndNode;
 import org.knime.core.node.workflow.LoopStartNodeTerminator;
 
+import se.redfield.cp.core.PositionalMedianAggregator;
 import se.redfield.cp.utils.KnimeUtils;
 
 /**
@@ -60,18 +62,34 @@ import se.redfield.cp.utils.KnimeUtils;
  * aggregated using median operator. The rest of the columns aggregated by
  * {@link FirstOperator}.<br />
  * 
+ * When positional aggregation is enabled the rows are expected to be in the
+ * same order in every iteration and are aggregated by the
+ * {@link PositionalMedianAggregator} instead.
+ * 
  */
 public class ConformalPredictorLoopEndNodeModel extends NodeModel implements LoopEndNode {
 	private static final String ORIGINAL_ROWID_COLUMN_NAME = "Original RowId";
-	
+	private static final String KEY_POSITIONAL_AGGREGATION = "positionalAggregation";
+
+	private final SettingsModelBoolean positionalAggregationSettings = createPositionalAggregationSettings();
+
 	private int iteration;
 	private BufferedDataContainer container;
+	private PositionalMedianAggregator positionalAggregator;
 	private ColumnAggregator[] columnAggregators;
 
 	protected ConformalPredictorLoopEndNodeModel() {
 		super(1, 1);
 	}
 
+	static SettingsModelBoolean createPositionalAggregationSettings() {
+		return new SettingsModelBoolean(KEY_POSITIONAL_AGGREGATION, false);
+	}
+
+	private boolean isPositionalAggregation() {
+		return positionalAggregationSettings.getBooleanValue();
+	}
+
 	private static List<String> getGroupByCols() {
 		return Arrays.asList(ORIGINAL_ROWID_COLUMN_NAME);
 	}
@@ -150,15 +168,29 @@ public class ConformalPredictorLoopEndNodeModel extends NodeModel implements Loo
 		BufferedDataTable inPredictionTable = inData[0];
 
 		if (iteration == 0) {
-			container = exec.createDataContainer(createConcatenatedTableSpec(inPredictionTable.getDataTableSpec()));
+			if (isPositionalAggregation()) {
+				positionalAggregator = new PositionalMedianAggregator(inPredictionTable.getDataTableSpec());
+			} else {
+				container = exec
+						.createDataContainer(createConcatenatedTableSpec(inPredictionTable.getDataTableSpec()));
+			}
 		}
 
 		boolean terminateLoop = ((LoopStartNodeTerminator) getLoopStartNode()).terminateLoop();
 		double maxSubProgress = terminateLoop ? 0.5 : 1;
 
-		appendTable(container, inPredictionTable, exec.createSubExecutionContext(maxSubProgress));
+		if (isPositionalAggregation()) {
+			positionalAggregator.add(inPredictionTable, exec.createSubExecutionContext(maxSubProgress));
+		} else {
+			appendTable(container, inPredictionTable, exec.createSubExecutionContext(maxSubProgress));
+		}
 
 		if (terminateLoop) {
+			if (isPositionalAggregation()) {
+				return new BufferedDataTable[] {
+						positionalAggregator.createTable(createOutputTableSpec(inPredictionTable.getDataTableSpec()),
+								exec.createSubExecutionContext(maxSubProgress)) };
+			}
 			container.close();
 			return new BufferedDataTable[] { collectPredictionTable(exec.createSubExecutionContext(maxSubProgress)) };
 		} else {
@@ -219,17 +251,23 @@ public class ConformalPredictorLoopEndNodeModel extends NodeModel implements Loo
 
 	@Override
 	protected void saveSettingsTo(NodeSettingsWO settings) {
-		// no settings
+		positionalAggregationSettings.saveSettingsTo(settings);
 	}
 
 	@Override
 	protected void validateSettings(NodeSettingsRO settings) throws InvalidSettingsException {
-		// no settings
+		if (settings.containsKey(KEY_POSITIONAL_AGGREGATION)) {
+			positionalAggregationSettings.validateSettings(settings);
+		}
 	}
 
 	@Override
 	protected void loadValidatedSettingsFrom(NodeSettingsRO settings) throws InvalidSettingsException {
-		// no settings
+		if (settings.containsKey(KEY_POSITIONAL_AGGREGATION)) {
+			positionalAggregationSettings.loadSettingsFrom(settings);
+		} else {
+			positionalAggregationSettings.setBooleanValue(false);
+		}
 	}
 
 	@Override
@@ -248,6 +286,7 @@ public class ConformalPredictorLoopEndNodeModel extends NodeModel implements Loo
 	protected void reset() {
 		iteration = 0;
 		container = null;
+		positionalAggregator = null;
 		columnAggregators = null;
 	}
 
@@ -110,14 +110,19 @@ public class ConformalPredictorLoopStartNodeModel extends NodeModel implements L
 			modelSeparator = new IterationsTableSeparator(inData[PORT_MODEL_TABLE], getModelIterationColumn());
 			calibrationSeparator = new IterationsTableSeparator(inData[PORT_CALIBRATION_TABLE],
 					getCalibrationIterationColumn());
+			validateIterations();
 		}
 
-		validateNextPartitions();
+		if (!modelSeparator.hasNext()) {
+			// Should not happen. Loop should be terminated at this point
+			throw new IllegalStateException("No more data to iterate");
+		}
 
+		int iteration = modelSeparator.getNextIteration();
 		BufferedDataTable outModelTable = modelSeparator.next(exec);
-		BufferedDataTable outCalibrationTable = calibrationSeparator.next(exec);
+		BufferedDataTable outCalibrationTable = calibrationSeparator.get(iteration, exec);
 
-		terminateLoop = !modelSeparator.hasNext() && !calibrationSeparator.hasNext();
+		terminateLoop = !modelSeparator.hasNext();
 
 		return new BufferedDataTable[] { outModelTable, outCalibrationTable };
 	}
@@ -140,31 +145,22 @@ public class ConformalPredictorLoopStartNodeModel extends NodeModel implements L
 	}
 
 	/**
-	 * Checks that both of separators has next segment and these segments correspond
-	 * to the same iteration
+	 * Checks that both of the tables contain data for the same set of iterations.
+	 * The tables don't have to be sorted by the iteration column, the segments are
+	 * paired by the iteration value.
 	 * 
-	 * @throws NoSuchElementException   If one of the separators doesn't have a next
-	 *                                  segment
-	 * @throws IllegalArgumentException If the next segments from two separators
-	 *                                  correspond to different iterations
+	 * @throws NoSuchElementException If one of the tables is missing data for an
+	 *                                iteration present in another table
 	 */
-	private void validateNextPartitions() {
-		Integer nextModelIter = modelSeparator.hasNext() ? modelSeparator.getNextIteration() : null;
-		Integer nextCalibrationIter = calibrationSeparator.hasNext() ? calibrationSeparator.getNextIteration() : null;
-
-		if (nextModelIter == null && nextCalibrationIter == null) {
-			// Should not happen. Loop should be terminated at this point
-			throw new IllegalStateException("No more data to iterate");
-		} else if (nextModelIter == null) {
-			throw new NoSuchElementException("Model table is missing data for iteration: " + nextCalibrationIter);
-		} else if (nextCalibrationIter == null) {
-			throw new NoSuchElementException("Calibration table is missing data for iteration: " + nextModelIter);
-		} else {
-			if (nextModelIter.intValue() != nextCalibrationIter.intValue()) {
-				throw new IllegalArgumentException("Tables are out of sync.\nNext model table iteration is: "
-						+ nextModelIter + "\nNext calibration table iteration is: " + nextCalibrationIter
-						+ ".\nPossible reasons: one of the tables is missing data for required iteration or "
-						+ "isn't propertly sorter (both tables should be sorted by the iteration column).");
+	private void validateIterations() {
+		for (int iter : modelSeparator.getIterations()) {
+			if (!calibrationSeparator.hasIteration(iter)) {
+				throw new NoSuchElementException("Calibration table is missing data for iteration: " + iter);
+			}
+		}
+		for (int iter : calibrationSeparator.getIterations()) {
+			if (!modelSeparator.hasIteration(iter)) {
+				throw new NoSuchElementException("Model table is missing data for iteration: " + iter);
 			}
 		}
 	}
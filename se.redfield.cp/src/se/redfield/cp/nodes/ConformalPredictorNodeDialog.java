@@ -16,9 +16,12 @@
 package se.redfield.cp.nodes;
 
 import org.knime.core.data.DataValue;
+import org.knime.core.data.collection.ListDataValue;
+import org.knime.core.data.vector.doublevector.DoubleVectorValue;
 import org.knime.core.node.defaultnodesettings.DefaultNodeSettingsPane;
 import org.knime.core.node.defaultnodesettings.DialogComponentBoolean;
 import org.knime.core.node.defaultnodesettings.DialogComponentColumnNameSelection;
+import org.knime.core.node.defaultnodesettings.DialogComponentString;
 
 import se.redfield.cp.settings.PredictorNodeSettings;
 import se.redfield.cp.settings.ui.DialogComponentProbabilityFormat;
@@ -41,6 +44,13 @@ public class ConformalPredictorNodeDialog extends DefaultNodeSettingsPane {
 		addDialogComponent(new DialogComponentColumnNameSelection(settings.getTargetSettings().getTargetColumnModel(),
 				"Target column:", ConformalPredictorNodeModel.PORT_CALIBRATION_TABLE.getIdx(), DataValue.class));
 		addDialogComponent(new DialogComponentProbabilityFormat(settings.getTargetSettings()));
+		addDialogComponent(new DialogComponentBoolean(settings.getTargetSettings().getUseProbabilityVectorModel(),
+				"Read probabilities from a vector column"));
+		addDialogComponent(new DialogComponentColumnNameSelection(
+				settings.getTargetSettings().getProbabilityVectorColumnModel(), "Probability vector column:",
+				ConformalPredictorNodeModel.PORT_PREDICTION_TABLE.getIdx(), false, DoubleVectorValue.class, ListDataValue.class));
+		addDialogComponent(new DialogComponentString(
+				settings.getTargetSettings().getProbabilityVectorClassOrderModel(), "Class order (comma separated):"));
 
 		createNewGroup("Define output");
 
@@ -52,5 +62,7 @@ public class ConformalPredictorNodeDialog extends DefaultNodeSettingsPane {
 				"ID column:", ConformalPredictorNodeModel.PORT_PREDICTION_TABLE.getIdx(), DataValue.class));
 
 		addDialogComponent(new DialogComponentBoolean(settings.getIncludeRankModel(), "Include Rank column"));
+		addDialogComponent(
+				new DialogComponentBoolean(settings.getPValuesAsVectorModel(), "Output p-values as a vector"));
 	}
 }
@@ -108,11 +108,10 @@ public class ConformalPredictorRegressionNodeModel extends NodeModel {
 				BufferedDataTable inCalibrationTable = (BufferedDataTable) ((PortObjectInput) inputs[PORT_CALIBRATION_TABLE
 						.getIdx()])
 						.getPortObject();
-				ColumnRearranger rearranger = predictor.createRearranger(
+				predictor.createBatchFunction(PORT_PREDICTION_TABLE.getIdx(), 0,
 						(DataTableSpec) inSpecs[PORT_PREDICTION_TABLE.getIdx()],
-						inCalibrationTable, exec.createSubExecutionContext(0.1));
-				rearranger.createStreamableFunction(PORT_PREDICTION_TABLE.getIdx(), 0).runFinal(inputs, outputs,
-						exec.createSubExecutionContext(0.9));
+						inCalibrationTable, exec.createSubExecutionContext(0.1))
+						.runFinal(inputs, outputs, exec.createSubExecutionContext(0.9));
 			}
 		};
 	}
@@ -21,6 +21,7 @@ import java.util.Set;
 
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.StringValue;
 import org.knime.core.node.BufferedDataTable;
@@ -33,8 +34,20 @@ import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
 import org.knime.core.node.defaultnodesettings.SettingsModelBoolean;
 import org.knime.core.node.defaultnodesettings.SettingsModelString;
-
+import org.knime.core.node.port.PortObjectSpec;
+import org.knime.core.node.streamable.InputPortRole;
+import org.knime.core.node.streamable.MergeOperator;
+import org.knime.core.node.streamable.OutputPortRole;
+import org.knime.core.node.streamable.PartitionInfo;
+import org.knime.core.node.streamable.PortOutput;
+import org.knime.core.node.streamable.RowOutput;
+import org.knime.core.node.streamable.StreamableOperator;
+import org.knime.core.node.streamable.StreamableOperatorInternals;
+import org.knime.core.node.streamable.simple.SimpleStreamableOperatorInternals;
+
+import se.redfield.cp.core.scoring.PartialScoresOperator;
 import se.redfield.cp.core.scoring.Scorer;
+import se.redfield.cp.core.scoring.Scorer.PartialClassificationScores;
 import se.redfield.cp.settings.ClassifierSettings;
 import se.redfield.cp.settings.PredictorSettings;
 
@@ -228,6 +241,45 @@ public class ConformalPredictorScorerNodeModel extends NodeModel {
 		return new BufferedDataTable[] { scorer.process(inData[0], exec) };
 	}
 
+	@Override
+	public InputPortRole[] getInputPortRoles() {
+		return new InputPortRole[] { InputPortRole.DISTRIBUTED_STREAMABLE };
+	}
+
+	@Override
+	public OutputPortRole[] getOutputPortRoles() {
+		return new OutputPortRole[] { OutputPortRole.NONDISTRIBUTED };
+	}
+
+	@Override
+	public StreamableOperator createStreamableOperator(PartitionInfo partitionInfo, PortObjectSpec[] inSpecs)
+			throws InvalidSettingsException {
+		DataTableSpec spec = (DataTableSpec) inSpecs[0];
+		return new PartialScoresOperator<>(() -> scorer.createPartialScores(spec), 0);
+	}
+
+	@Override
+	public StreamableOperatorInternals createInitialStreamableOperatorInternals() {
+		return new SimpleStreamableOperatorInternals();
+	}
+
+	@Override
+	public MergeOperator createMergeOperator() {
+		return PartialScoresOperator.createMergeOperator(() -> scorer.createPartialScores());
+	}
+
+	@Override
+	public void finishStreamableExecution(StreamableOperatorInternals internals, ExecutionContext exec,
+			PortOutput[] output) throws Exception {
+		PartialClassificationScores scores = PartialScoresOperator.fromInternals(internals,
+				() -> scorer.createPartialScores());
+		RowOutput out = (RowOutput) output[0];
+		for (DataRow row : scorer.createOutputRows(scores)) {
+			out.push(row);
+		}
+		out.close();
+	}
+
 	@Override
 	protected void saveSettingsTo(NodeSettingsWO settings) {
 		targetColumnSettings.saveSettingsTo(settings);
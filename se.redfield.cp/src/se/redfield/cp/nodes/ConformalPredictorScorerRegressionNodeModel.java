@@ -29,8 +29,20 @@ import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.NodeModel;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
-
+import org.knime.core.node.port.PortObjectSpec;
+import org.knime.core.node.streamable.InputPortRole;
+import org.knime.core.node.streamable.MergeOperator;
+import org.knime.core.node.streamable.OutputPortRole;
+import org.knime.core.node.streamable.PartitionInfo;
+import org.knime.core.node.streamable.PortOutput;
+import org.knime.core.node.streamable.RowOutput;
+import org.knime.core.node.streamable.StreamableOperator;
+import org.knime.core.node.streamable.StreamableOperatorInternals;
+import org.knime.core.node.streamable.simple.SimpleStreamableOperatorInternals;
+
+import se.redfield.cp.core.scoring.PartialScoresOperator;
 import se.redfield.cp.core.scoring.ScorerRegression;
+import se.redfield.cp.core.scoring.ScorerRegression.PartialRegressionScores;
 import se.redfield.cp.settings.ConformalPredictorScorerRegressionSettings;
 import se.redfield.cp.settings.PredictorRegressionSettings;
 import se.redfield.cp.utils.PortDef;
@@ -86,6 +98,43 @@ public class ConformalPredictorScorerRegressionNodeModel extends NodeModel {
 		return new BufferedDataTable[] { scorer.process(inData[0], exec) };
 	}
 
+	@Override
+	public InputPortRole[] getInputPortRoles() {
+		return new InputPortRole[] { InputPortRole.DISTRIBUTED_STREAMABLE };
+	}
+
+	@Override
+	public OutputPortRole[] getOutputPortRoles() {
+		return new OutputPortRole[] { OutputPortRole.NONDISTRIBUTED };
+	}
+
+	@Override
+	public StreamableOperator createStreamableOperator(PartitionInfo partitionInfo, PortObjectSpec[] inSpecs)
+			throws InvalidSettingsException {
+		DataTableSpec spec = (DataTableSpec) inSpecs[PORT_INPUT_TABLE.getIdx()];
+		return new PartialScoresOperator<>(() -> scorer.createPartialScores(spec), PORT_INPUT_TABLE.getIdx());
+	}
+
+	@Override
+	public StreamableOperatorInternals createInitialStreamableOperatorInternals() {
+		return new SimpleStreamableOperatorInternals();
+	}
+
+	@Override
+	public MergeOperator createMergeOperator() {
+		return PartialScoresOperator.createMergeOperator(() -> scorer.createPartialScores());
+	}
+
+	@Override
+	public void finishStreamableExecution(StreamableOperatorInternals internals, ExecutionContext exec,
+			PortOutput[] output) throws Exception {
+		PartialRegressionScores scores = PartialScoresOperator.fromInternals(internals,
+				() -> scorer.createPartialScores());
+		RowOutput out = (RowOutput) output[0];
+		out.push(scorer.createOutputRow(scores));
+		out.close();
+	}
+
 	@Override
 	protected void saveSettingsTo(NodeSettingsWO settings) {
 		this.settings.saveSettingsTo(settings);
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.nodes;
+
+import org.knime.core.data.DoubleValue;
+import org.knime.core.node.defaultnodesettings.DefaultNodeSettingsPane;
+import org.knime.core.node.defaultnodesettings.DialogComponentBoolean;
+import org.knime.core.node.defaultnodesettings.DialogComponentColumnNameSelection;
+import org.knime.core.node.defaultnodesettings.DialogComponentNumber;
+
+import se.redfield.cp.settings.EarlyStoppingSettings;
+
+/**
+ * Node dialog for Conformal Predictor Training Loop End Node.
+ *
+ */
+public class ConformalPredictorTrainingLoopEndNodeDialog extends DefaultNodeSettingsPane {
+
+	private final EarlyStoppingSettings settings = ConformalPredictorTrainingLoopEndNodeModel
+			.createEarlyStoppingSettings();
+
+	/**
+	 * Creates new instance
+	 */
+	@SuppressWarnings("unchecked")
+	public ConformalPredictorTrainingLoopEndNodeDialog() {
+		super();
+		createNewGroup("Early stopping");
+		addDialogComponent(new DialogComponentBoolean(settings.getEarlyStoppingModel(),
+				"Stop when the calibration converges"));
+		addDialogComponent(new DialogComponentColumnNameSelection(settings.getScoreColumnModel(), "Score column:",
+				ConformalPredictorTrainingLoopEndNodeModel.PORT_CALIBRATION_TABLE, false, DoubleValue.class));
+		addDialogComponent(new DialogComponentNumber(settings.getToleranceModel(), "Tolerance", 0.005));
+		addDialogComponent(new DialogComponentNumber(settings.getMinIterationsModel(), "Minimum iterations", 1));
+	}
+}
@@ -44,12 +44,12 @@ public class ConformalPredictorTrainingLoopEndNodeFactory
 
 	@Override
 	protected boolean hasDialog() {
-		return false;
+		return true;
 	}
 
 	@Override
 	protected NodeDialogPane createNodeDialogPane() {
-		return null;
+		return new ConformalPredictorTrainingLoopEndNodeDialog();
 	}
 
 }
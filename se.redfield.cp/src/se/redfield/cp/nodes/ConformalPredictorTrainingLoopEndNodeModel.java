@@ -17,13 +17,25 @@ package se.redfield.cp.nodes;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
 
+import org.knime.core.data.DataCell;
 import org.knime.core.data.DataColumnSpec;
 import org.knime.core.data.DataColumnSpecCreator;
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DoubleValue;
 import org.knime.core.data.append.AppendedColumnRow;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.container.ColumnRearranger;
+import org.knime.core.data.container.SingleCellFactory;
+import org.knime.core.data.container.filter.TableFilter;
 import org.knime.core.data.def.IntCell;
+import org.knime.core.data.v2.RowCursor;
+import org.knime.core.data.v2.RowRead;
 import org.knime.core.node.BufferedDataContainer;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
@@ -37,13 +49,26 @@ import org.knime.core.node.port.PortType;
 import org.knime.core.node.workflow.LoopEndNode;
 import org.knime.core.node.workflow.LoopStartNodeTerminator;
 
+import se.redfield.cp.core.ConvergenceMonitor;
+import se.redfield.cp.settings.EarlyStoppingSettings;
 import se.redfield.cp.utils.KnimeUtils;
+import se.redfield.cp.utils.PortDef;
 
 /**
  * Conformal Predictor Training Loop End Node. Works with corresponing Start
  * Loop Node. Collects calibration and training model data.<br />
  * 
  * Tables are concatenated, iteration column is added.<br />
+ * 
+ * The loop start node appends the iteration index to the row ids. Tables
+ * whose row ids carry the suffix of the current iteration get the iteration
+ * column through a column rearranger, so only the new column is written. Other
+ * tables (e.g. the model table created in the loop body) are copied with the
+ * suffix added to the row ids. The collected tables are combined with a table
+ * concatenation at the end of the loop.<br />
+ * 
+ * When early stopping is enabled the loop is terminated once the running
+ * median p-values tracked by the {@link ConvergenceMonitor} stop changing.
  *
  */
 public class ConformalPredictorTrainingLoopEndNodeModel extends NodeModel implements LoopEndNode {
@@ -62,21 +87,30 @@ public class ConformalPredictorTrainingLoopEndNodeModel extends NodeModel implem
 	 */
 	public static final String DEFAULT_ITERATION_COLUMN_NAME = "Iteration";
 
+
+	private final EarlyStoppingSettings earlyStoppingSettings = createEarlyStoppingSettings();
+
 	private int iteration;
-	private BufferedDataContainer calibrationContainer;
-	private BufferedDataContainer modelContainer;
+	private ConvergenceMonitor convergenceMonitor;
+	private final List<BufferedDataTable> calibrationTables = new ArrayList<>();
+	private final List<BufferedDataTable> modelTables = new ArrayList<>();
 
 	protected ConformalPredictorTrainingLoopEndNodeModel() {
 		super(new PortType[] { BufferedDataTable.TYPE, BufferedDataTable.TYPE },
 				new PortType[] { BufferedDataTable.TYPE, BufferedDataTable.TYPE });
 	}
 
+	static EarlyStoppingSettings createEarlyStoppingSettings() {
+		return new EarlyStoppingSettings(new PortDef(PORT_CALIBRATION_TABLE, "Calibration table"));
+	}
+
 	private static String getIterationColumnName() {
 		return DEFAULT_ITERATION_COLUMN_NAME;
 	}
 
 	@Override
 	protected DataTableSpec[] configure(DataTableSpec[] inSpecs) throws InvalidSettingsException {
+		earlyStoppingSettings.validateSettings(inSpecs);
 		return new DataTableSpec[] { appendIterationColumn(inSpecs[PORT_MODEL_TABLE]),
 				appendIterationColumn(inSpecs[PORT_CALIBRATION_TABLE]) };
 	}
@@ -88,8 +122,11 @@ public class ConformalPredictorTrainingLoopEndNodeModel extends NodeModel implem
 	 * @return Result spec.
 	 */
 	private static DataTableSpec appendIterationColumn(DataTableSpec inSpec) {
-		DataColumnSpec iterColumn = new DataColumnSpecCreator(getIterationColumnName(), IntCell.TYPE).createSpec();
-		return KnimeUtils.createSpec(inSpec, iterColumn);
+		return KnimeUtils.createSpec(inSpec, createIterationColumnSpec());
+	}
+
+	private static DataColumnSpec createIterationColumnSpec() {
+		return new DataColumnSpecCreator(getIterationColumnName(), IntCell.TYPE).createSpec();
 	}
 
 	@Override
@@ -101,19 +138,19 @@ public class ConformalPredictorTrainingLoopEndNodeModel extends NodeModel implem
 		BufferedDataTable inCalibrationTable = inData[PORT_CALIBRATION_TABLE];
 		BufferedDataTable inModelTable = inData[PORT_MODEL_TABLE];
 
-		if (iteration == 0) {
-			initContainers(inCalibrationTable, inModelTable, exec);
+		boolean terminateLoop = ((LoopStartNodeTerminator) getLoopStartNode()).terminateLoop();
+		if (earlyStoppingSettings.isEarlyStopping() && !terminateLoop) {
+			terminateLoop = hasConverged(inCalibrationTable);
 		}
+		double maxSubProgress = terminateLoop ? 0.25 : 0.5;
 
-		appendTable(calibrationContainer, inCalibrationTable, exec.createSubExecutionContext(0.5));
-		appendTable(modelContainer, inModelTable, exec.createSubExecutionContext(0.5));
-
-		boolean terminateLoop = ((LoopStartNodeTerminator) getLoopStartNode()).terminateLoop();
+		calibrationTables
+				.add(appendIterationColumn(inCalibrationTable, exec.createSubExecutionContext(maxSubProgress)));
+		modelTables.add(appendIterationColumn(inModelTable, exec.createSubExecutionContext(maxSubProgress)));
 
 		if (terminateLoop) {
-			calibrationContainer.close();
-			modelContainer.close();
-			return new BufferedDataTable[] { modelContainer.getTable(), calibrationContainer.getTable() };
+			return new BufferedDataTable[] { concatenate(modelTables, exec.createSubExecutionContext(0.25)),
+					concatenate(calibrationTables, exec.createSubExecutionContext(0.25)) };
 		} else {
 			iteration++;
 			continueLoop();
@@ -122,54 +159,127 @@ public class ConformalPredictorTrainingLoopEndNodeModel extends NodeModel implem
 	}
 
 	/**
-	 * Initializes {@link BufferedDataContainer} objects used to collect data on
-	 * each iteration.
+	 * Adds the calibration scores of the current iteration to the convergence
+	 * monitor.
 	 * 
-	 * @param inCalibrationTable Input calibration table.
-	 * @param inModelTable       Input model table.
-	 * @param exec               Execution context.
+	 * @param table The calibration table.
+	 * @return Whether the calibration has converged.
 	 */
-	private void initContainers(BufferedDataTable inCalibrationTable, BufferedDataTable inModelTable,
-			ExecutionContext exec) {
-		calibrationContainer = exec.createDataContainer(appendIterationColumn(inCalibrationTable.getDataTableSpec()));
-		modelContainer = exec.createDataContainer(appendIterationColumn(inModelTable.getDataTableSpec()));
+	private boolean hasConverged(BufferedDataTable table) {
+		if (convergenceMonitor == null) {
+			convergenceMonitor = new ConvergenceMonitor(EarlyStoppingSettings.PROBES_COUNT,
+					earlyStoppingSettings.getTolerance(), earlyStoppingSettings.getMinIterations());
+		}
+
+		int scoreIdx = table.getDataTableSpec().findColumnIndex(earlyStoppingSettings.getScoreColumn());
+		double[] scores = new double[(int) table.size()];
+		int count = 0;
+		try (RowCursor cursor = table.cursor(TableFilter.materializeCols(scoreIdx))) {
+			while (cursor.canForward()) {
+				RowRead row = cursor.forward();
+				if (!row.isMissing(scoreIdx)) {
+					scores[count++] = row.<DoubleValue> getValue(scoreIdx).getDoubleValue();
+				}
+			}
+		}
+
+		boolean converged = convergenceMonitor.add(Arrays.copyOf(scores, count));
+		if (converged) {
+			getLogger().info("Calibration converged after " + convergenceMonitor.getIterations() + " iterations");
+		}
+		return converged;
 	}
 
 	/**
-	 * Appends all rows from provided table to provided container. Appends an
-	 * iteration cell to each row.
+	 * Appends an iteration column to the provided table. All the rows share the
+	 * same iteration cell. In case the row ids already carry the iteration suffix
+	 * added by the loop start node the column is appended with a column
+	 * rearranger, otherwise the table is copied with the suffix added to the row
+	 * ids, so the tables of different iterations never share a row id.
 	 * 
-	 * @param cont  Container to add rows.
-	 * @param table Table to get rows from.
+	 * @param table Table to append the column to.
 	 * @param exec  Execution context.
+	 * @return The table with the iteration column.
 	 * @throws CanceledExecutionException
 	 */
-	private void appendTable(BufferedDataContainer cont, BufferedDataTable table, ExecutionContext exec)
+	private BufferedDataTable appendIterationColumn(BufferedDataTable table, ExecutionContext exec)
 			throws CanceledExecutionException {
+		DataCell iterationCell = new IntCell(iteration);
+		if (hasIterationRowIds(table)) {
+			ColumnRearranger r = new ColumnRearranger(table.getDataTableSpec());
+			r.append(new SingleCellFactory(createIterationColumnSpec()) {
+				@Override
+				public DataCell getCell(DataRow row) {
+					return iterationCell;
+				}
+			});
+			return exec.createColumnRearrangeTable(table, r, exec);
+		}
+
+		BufferedDataContainer cont = exec.createDataContainer(appendIterationColumn(table.getDataTableSpec()));
 		long count = 0;
 		long totalCount = table.size();
 		for (DataRow row : table) {
 			cont.addRowToTable(new AppendedColumnRow(KnimeUtils.createRowKey(row.getKey(), iteration), row,
-					new IntCell(iteration)));
+					iterationCell));
 
 			exec.checkCanceled();
 			exec.setProgress((double) count++ / totalCount);
 		}
+		cont.close();
+		return cont.getTable();
+	}
+
+	/**
+	 * Checks whether the row ids of the table carry the suffix of the current
+	 * iteration. Only the first row id is checked, no cells are read.
+	 * 
+	 * @param table The table.
+	 * @return Whether the row ids are unique across iterations as they are.
+	 */
+	private boolean hasIterationRowIds(BufferedDataTable table) {
+		try (CloseableRowIterator it = table.filter(TableFilter.materializeCols())) {
+			return !it.hasNext() || KnimeUtils.hasRowKeySuffix(it.next().getKey(), String.valueOf(iteration));
+		}
+	}
+
+	/**
+	 * Concatenates the tables collected on each iteration. Row IDs are unique
+	 * across iterations, so no duplicate check is needed.
+	 * 
+	 * @param tables The tables.
+	 * @param exec   Execution context.
+	 * @return The concatenated table.
+	 * @throws CanceledExecutionException
+	 */
+	private static BufferedDataTable concatenate(List<BufferedDataTable> tables, ExecutionContext exec)
+			throws CanceledExecutionException {
+		if (tables.size() == 1) {
+			return tables.get(0);
+		}
+		return exec.createConcatenateTable(exec, Optional.empty(), false,
+				tables.toArray(new BufferedDataTable[] {}));
 	}
 
 	@Override
 	protected void saveSettingsTo(NodeSettingsWO settings) {
-		// no settings
+		earlyStoppingSettings.saveSettingsTo(settings);
 	}
 
 	@Override
 	protected void validateSettings(NodeSettingsRO settings) throws InvalidSettingsException {
-		// no settings
+		if (settings.containsKey(EarlyStoppingSettings.KEY_EARLY_STOPPING)) {
+			earlyStoppingSettings.validateSettings(settings);
+		}
 	}
 
 	@Override
 	protected void loadValidatedSettingsFrom(NodeSettingsRO settings) throws InvalidSettingsException {
-		// no settings
+		if (settings.containsKey(EarlyStoppingSettings.KEY_EARLY_STOPPING)) {
+			earlyStoppingSettings.loadSettingFrom(settings);
+		} else {
+			earlyStoppingSettings.getEarlyStoppingModel().setBooleanValue(false);
+		}
 	}
 
 	@Override
@@ -187,7 +297,8 @@ public class ConformalPredictorTrainingLoopEndNodeModel extends NodeModel implem
 	@Override
 	protected void reset() {
 		iteration = 0;
-		calibrationContainer = null;
-		modelContainer = null;
+		convergenceMonitor = null;
+		calibrationTables.clear();
+		modelTables.clear();
 	}
 }
@@ -28,6 +28,7 @@ import org.knime.core.node.NodeSettings;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
 import org.knime.core.node.NotConfigurableException;
+import org.knime.core.node.defaultnodesettings.DialogComponentBoolean;
 import org.knime.core.node.defaultnodesettings.DialogComponentNumber;
 
 /**
@@ -36,6 +37,7 @@ import org.knime.core.node.defaultnodesettings.DialogComponentNumber;
  */
 public class ConformalPredictorTrainingLoopStartNodeDialog extends NodeDialogPane {
 	private DialogComponentNumber iterationsInput;
+	private DialogComponentBoolean precomputePartitionsInput;
 	private SamplingNodeDialogPanel partitionPanel;
 
 	/**
@@ -46,6 +48,9 @@ public class ConformalPredictorTrainingLoopStartNodeDialog extends NodeDialogPan
 
 		iterationsInput = new DialogComponentNumber(
 				ConformalPredictorTrainingLoopStartNodeModel.createIterationSettings(), "Number of iterations", 1);
+		precomputePartitionsInput = new DialogComponentBoolean(
+				ConformalPredictorTrainingLoopStartNodeModel.createPrecomputePartitionsSettings(),
+				"Compute partitions for all iterations at once");
 
 		partitionPanel = new SamplingNodeDialogPanel();
 		partitionPanel.setBorder(BorderFactory.createCompoundBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5),
@@ -54,6 +59,7 @@ public class ConformalPredictorTrainingLoopStartNodeDialog extends NodeDialogPan
 		JPanel panel = new JPanel();
 		panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
 		panel.add(iterationsInput.getComponentPanel());
+		panel.add(precomputePartitionsInput.getComponentPanel());
 		panel.add(Box.createHorizontalStrut(5));
 		panel.add(partitionPanel);
 
@@ -73,12 +79,14 @@ public class ConformalPredictorTrainingLoopStartNodeDialog extends NodeDialogPan
 		}
 
 		iterationsInput.loadSettingsFrom(settings, specs);
+		precomputePartitionsInput.loadSettingsFrom(settings, specs);
 		partitionPanel.loadSettingsFrom(partitionSettings, specs[0]);
 	}
 
 	@Override
 	public void saveSettingsTo(NodeSettingsWO settings) throws InvalidSettingsException {
 		iterationsInput.saveSettingsTo(settings);
+		precomputePartitionsInput.saveSettingsTo(settings);
 		partitionPanel.saveSettingsTo(
 				settings.addNodeSettings(ConformalPredictorTrainingLoopStartNodeModel.KEY_PARTITION_SETTINGS));
 	}
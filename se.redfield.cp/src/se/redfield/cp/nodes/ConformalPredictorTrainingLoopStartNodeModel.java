@@ -27,10 +27,12 @@ import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.NodeModel;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.defaultnodesettings.SettingsModelBoolean;
 import org.knime.core.node.defaultnodesettings.SettingsModelIntegerBounded;
 import org.knime.core.node.workflow.LoopStartNodeTerminator;
 
 import se.redfield.cp.core.Partitioner;
+import se.redfield.cp.core.RowSelection;
 import se.redfield.cp.settings.SamplingSettings;
 
 /**
@@ -41,11 +43,14 @@ import se.redfield.cp.settings.SamplingSettings;
  * <li>Calibration Table</li>
  * </ul>
  *
- * Separation is performed on each iteration.
+ * Separation is performed on each iteration. The iteration index is appended
+ * to the row ids, so the tables of different iterations can be collected by
+ * the loop end node without rewriting the row ids.
  */
 public class ConformalPredictorTrainingLoopStartNodeModel extends NodeModel implements LoopStartNodeTerminator {
 
 	private static final String KEY_ITERATIONS = "iterations";
+	private static final String KEY_PRECOMPUTE_PARTITIONS = "precomputePartitions";
 	/**
 	 * The settings key for partition settings
 	 */
@@ -55,15 +60,21 @@ public class ConformalPredictorTrainingLoopStartNodeModel extends NodeModel impl
 	private static final String FW_ITERATIONS_NUM = "iterationsNum";
 
 	private final SettingsModelIntegerBounded iterationsSettings = createIterationSettings();
+	private final SettingsModelBoolean precomputePartitionsSettings = createPrecomputePartitionsSettings();
 	private final SamplingSettings partitionSettings = new SamplingSettings();
 
 	private int iteration = 0;
 	private final Partitioner partitioner = new Partitioner(partitionSettings, true);
+	private RowSelection[] selections;
 
 	static SettingsModelIntegerBounded createIterationSettings() {
 		return new SettingsModelIntegerBounded(KEY_ITERATIONS, 1, 1, 100);
 	}
 
+	static SettingsModelBoolean createPrecomputePartitionsSettings() {
+		return new SettingsModelBoolean(KEY_PRECOMPUTE_PARTITIONS, false);
+	}
+
 	protected ConformalPredictorTrainingLoopStartNodeModel() {
 		super(1, 2);
 	}
@@ -72,6 +83,10 @@ public class ConformalPredictorTrainingLoopStartNodeModel extends NodeModel impl
 		return iterationsSettings.getIntValue();
 	}
 
+	private boolean isPrecomputePartitions() {
+		return precomputePartitionsSettings.getBooleanValue();
+	}
+
 	@Override
 	protected DataTableSpec[] configure(DataTableSpec[] inSpecs) throws InvalidSettingsException {
 		DataTableSpec in = inSpecs[0];
@@ -81,7 +96,19 @@ public class ConformalPredictorTrainingLoopStartNodeModel extends NodeModel impl
 
 	@Override
 	protected BufferedDataTable[] execute(BufferedDataTable[] inData, ExecutionContext exec) throws Exception {
-		BufferedDataTable[] parts = partitioner.partition(inData[0], exec);
+		RowSelection selection;
+		if (isPrecomputePartitions()) {
+			if (selections == null) {
+				selections = partitioner.selectAll(inData[0], getIterationsNum(), exec.createSubExecutionContext(0.5),
+						false);
+			}
+			selection = selections[iteration];
+			selections[iteration] = null;
+		} else {
+			selection = partitioner.select(inData[0], exec.createSubExecutionContext(0.5), false);
+		}
+		BufferedDataTable[] parts = Partitioner.split(inData[0], selection, String.valueOf(iteration),
+				exec.createSubExecutionContext(0.5));
 
 		pushFlowVariableInt(FW_ITERATION, iteration);
 		pushFlowVariableInt(FW_ITERATIONS_NUM, getIterationsNum());
@@ -98,18 +125,27 @@ public class ConformalPredictorTrainingLoopStartNodeModel extends NodeModel impl
 	@Override
 	protected void saveSettingsTo(NodeSettingsWO settings) {
 		iterationsSettings.saveSettingsTo(settings);
+		precomputePartitionsSettings.saveSettingsTo(settings);
 		partitionSettings.saveSettingsTo(settings.addNodeSettings(KEY_PARTITION_SETTINGS));
 	}
 
 	@Override
 	protected void validateSettings(NodeSettingsRO settings) throws InvalidSettingsException {
 		iterationsSettings.validateSettings(settings);
+		if (settings.containsKey(KEY_PRECOMPUTE_PARTITIONS)) {
+			precomputePartitionsSettings.validateSettings(settings);
+		}
 		partitionSettings.validateSettings(settings.getNodeSettings(KEY_PARTITION_SETTINGS));
 	}
 
 	@Override
 	protected void loadValidatedSettingsFrom(NodeSettingsRO settings) throws InvalidSettingsException {
 		iterationsSettings.loadSettingsFrom(settings);
+		if (settings.containsKey(KEY_PRECOMPUTE_PARTITIONS)) {
+			precomputePartitionsSettings.loadSettingsFrom(settings);
+		} else {
+			precomputePartitionsSettings.setBooleanValue(false);
+		}
 		partitionSettings.loadSettingsFrom(settings.getNodeSettings(KEY_PARTITION_SETTINGS), false);
 	}
 
@@ -128,6 +164,7 @@ public class ConformalPredictorTrainingLoopStartNodeModel extends NodeModel impl
 	@Override
 	protected void reset() {
 		iteration = 0;
+		selections = null;
 		partitioner.reset();
 	}
 
@@ -28,10 +28,19 @@ import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.NodeModel;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.port.PortObjectSpec;
+import org.knime.core.node.streamable.InputPortRole;
+import org.knime.core.node.streamable.OutputPortRole;
+import org.knime.core.node.streamable.PartitionInfo;
+import org.knime.core.node.streamable.PortInput;
+import org.knime.core.node.streamable.PortObjectInput;
+import org.knime.core.node.streamable.PortOutput;
+import org.knime.core.node.streamable.StreamableOperator;
 
 import se.redfield.cp.core.PredictiveSystemsClassifierCellFactory;
 import se.redfield.cp.core.calibration.CalibratorRegression;
 import se.redfield.cp.core.prediction.PredictiveSystemsRegressionPredictor;
+import se.redfield.cp.utils.ChainedStreamableFunction;
 import se.redfield.cp.utils.PortDef;
 
 public class CompactPredictiveSystemsRegressionNodeModel extends NodeModel {
@@ -88,6 +97,38 @@ public class CompactPredictiveSystemsRegressionNodeModel extends NodeModel {
 		return r;
 	}
 
+	@Override
+	public InputPortRole[] getInputPortRoles() {
+		return new InputPortRole[] { InputPortRole.NONDISTRIBUTED_NONSTREAMABLE, InputPortRole.DISTRIBUTED_STREAMABLE };
+	}
+
+	@Override
+	public OutputPortRole[] getOutputPortRoles() {
+		return new OutputPortRole[] { OutputPortRole.DISTRIBUTED };
+	}
+
+	@Override
+	public StreamableOperator createStreamableOperator(PartitionInfo partitionInfo, PortObjectSpec[] inSpecs)
+			throws InvalidSettingsException {
+		return new StreamableOperator() {
+
+			@Override
+			public void runFinal(PortInput[] inputs, PortOutput[] outputs, ExecutionContext exec) throws Exception {
+				BufferedDataTable inCalibrationTable = (BufferedDataTable) ((PortObjectInput) inputs[PORT_CALIBRATION_TABLE
+						.getIdx()]).getPortObject();
+				BufferedDataTable calibrationTable = calibrator.process(inCalibrationTable,
+						exec.createSubExecutionContext(0.1));
+
+				ColumnRearranger r = predictor.createRearranger((DataTableSpec) inSpecs[PORT_PREDICTION_TABLE.getIdx()],
+						calibrationTable, exec.createSubExecutionContext(0.1));
+
+				new ChainedStreamableFunction(PORT_PREDICTION_TABLE.getIdx(), 0, r.createStreamableFunction(),
+						classifierRearranger.createStreamableFunction()).runFinal(inputs, outputs,
+								exec.createSubExecutionContext(0.8));
+			}
+		};
+	}
+
 	@Override
 	protected void loadValidatedSettingsFrom(NodeSettingsRO settings) throws InvalidSettingsException {
 		this.settings.loadSettingFrom(settings);
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.settings;
+
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.IntValue;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.defaultnodesettings.SettingsModelBoolean;
+import org.knime.core.node.defaultnodesettings.SettingsModelString;
+
+import se.redfield.cp.nodes.ConformalPredictorTrainingLoopEndNodeModel;
+import se.redfield.cp.utils.KnimeUtils;
+import se.redfield.cp.utils.PortDef;
+
+/**
+ * Settings of the aggregated (loop-free) predictor nodes. Defines the iteration
+ * columns of the calibration and the prediction tables and how the rows of
+ * different iterations are matched.
+ *
+ */
+public class AggregationSettings {
+	private static final String KEY_CALIBRATION_ITERATION_COLUMN = "calibrationIterationColumn";
+	private static final String KEY_PREDICTION_ITERATION_COLUMN = "predictionIterationColumn";
+	private static final String KEY_MATCH_BY_ID_COLUMN = "matchByIdColumn";
+	private static final String KEY_MATCH_COLUMN = "matchColumn";
+
+	private final PortDef calibrationTable;
+	private final PortDef predictionTable;
+
+	private final SettingsModelString calibrationIterationColumn;
+	private final SettingsModelString predictionIterationColumn;
+	private final SettingsModelBoolean matchByIdColumn;
+	private final SettingsModelString matchColumn;
+
+	/**
+	 * @param calibrationTable The calibration table.
+	 * @param predictionTable  The prediction table.
+	 */
+	public AggregationSettings(PortDef calibrationTable, PortDef predictionTable) {
+		this.calibrationTable = calibrationTable;
+		this.predictionTable = predictionTable;
+
+		calibrationIterationColumn = new SettingsModelString(KEY_CALIBRATION_ITERATION_COLUMN,
+				ConformalPredictorTrainingLoopEndNodeModel.DEFAULT_ITERATION_COLUMN_NAME);
+		predictionIterationColumn = new SettingsModelString(KEY_PREDICTION_ITERATION_COLUMN,
+				ConformalPredictorTrainingLoopEndNodeModel.DEFAULT_ITERATION_COLUMN_NAME);
+		matchByIdColumn = new SettingsModelBoolean(KEY_MATCH_BY_ID_COLUMN, false);
+		matchColumn = new SettingsModelString(KEY_MATCH_COLUMN, "");
+
+		matchByIdColumn.addChangeListener(e -> matchColumn.setEnabled(getMatchByIdColumn()));
+		matchColumn.setEnabled(getMatchByIdColumn());
+	}
+
+	/**
+	 * @return The calibrationIterationColumn settings model.
+	 */
+	public SettingsModelString getCalibrationIterationColumnModel() {
+		return calibrationIterationColumn;
+	}
+
+	/**
+	 * @return The iteration column of the calibration table.
+	 */
+	public String getCalibrationIterationColumn() {
+		return calibrationIterationColumn.getStringValue();
+	}
+
+	/**
+	 * @return The predictionIterationColumn settings model.
+	 */
+	public SettingsModelString getPredictionIterationColumnModel() {
+		return predictionIterationColumn;
+	}
+
+	/**
+	 * @return The iteration column of the prediction table.
+	 */
+	public String getPredictionIterationColumn() {
+		return predictionIterationColumn.getStringValue();
+	}
+
+	/**
+	 * @return The matchByIdColumn settings model.
+	 */
+	public SettingsModelBoolean getMatchByIdColumnModel() {
+		return matchByIdColumn;
+	}
+
+	/**
+	 * @return Whether the rows of different iterations are matched by the ID
+	 *         column. Otherwise the rows are matched by the position within the
+	 *         iteration.
+	 */
+	public boolean getMatchByIdColumn() {
+		return matchByIdColumn.getBooleanValue();
+	}
+
+	/**
+	 * @return The matchColumn settings model.
+	 */
+	public SettingsModelString getMatchColumnModel() {
+		return matchColumn;
+	}
+
+	/**
+	 * @return The ID column used to match the rows of different iterations.
+	 */
+	public String getMatchColumn() {
+		return matchColumn.getStringValue();
+	}
+
+	/**
+	 * Loads settings from the provided {@link NodeSettingsRO}
+	 * 
+	 * @param settings
+	 * @throws InvalidSettingsException
+	 */
+	public void loadSettingFrom(NodeSettingsRO settings) throws InvalidSettingsException {
+		calibrationIterationColumn.loadSettingsFrom(settings);
+		predictionIterationColumn.loadSettingsFrom(settings);
+		matchByIdColumn.loadSettingsFrom(settings);
+		matchColumn.loadSettingsFrom(settings);
+	}
+
+	/**
+	 * Saves current settings into the given {@link NodeSettingsWO}.
+	 * 
+	 * @param settings
+	 */
+	public void saveSettingsTo(NodeSettingsWO settings) {
+		calibrationIterationColumn.saveSettingsTo(settings);
+		predictionIterationColumn.saveSettingsTo(settings);
+		matchByIdColumn.saveSettingsTo(settings);
+		matchColumn.saveSettingsTo(settings);
+	}
+
+	/**
+	 * Validates settings stored in the provided {@link NodeSettingsRO}.
+	 * 
+	 * @param settings
+	 * @throws InvalidSettingsException
+	 */
+	public void validateSettings(NodeSettingsRO settings) throws InvalidSettingsException {
+		AggregationSettings temp = new AggregationSettings(calibrationTable, predictionTable);
+		temp.loadSettingFrom(settings);
+		temp.validate();
+	}
+
+	/**
+	 * Validates internal consistency of the current settings
+	 * 
+	 * @throws InvalidSettingsException
+	 */
+	public void validate() throws InvalidSettingsException {
+		if (getCalibrationIterationColumn().isEmpty()) {
+			throw new InvalidSettingsException("Calibration iteration column is not selected");
+		}
+		if (getPredictionIterationColumn().isEmpty()) {
+			throw new InvalidSettingsException("Prediction iteration column is not selected");
+		}
+		if (getMatchByIdColumn() && getMatchColumn().isEmpty()) {
+			throw new InvalidSettingsException("Id column is not selected");
+		}
+	}
+
+	/**
+	 * Validates the settings against input table spec.
+	 * 
+	 * @param inSpecs Input specs
+	 * @throws InvalidSettingsException
+	 */
+	public void validateSettings(DataTableSpec[] inSpecs) throws InvalidSettingsException {
+		validate();
+
+		validateIterationColumn(calibrationTable, inSpecs, getCalibrationIterationColumn());
+		validateIterationColumn(predictionTable, inSpecs, getPredictionIterationColumn());
+		if (getMatchByIdColumn()) {
+			KnimeUtils.validateColumnExists(predictionTable, inSpecs, getMatchColumn(), "ID");
+		}
+	}
+
+	private static void validateIterationColumn(PortDef table, DataTableSpec[] inSpecs, String column)
+			throws InvalidSettingsException {
+		KnimeUtils.validateColumnExists(table, inSpecs, column, "Iteration");
+
+		DataType type = inSpecs[table.getIdx()].getColumnSpec(column).getType();
+		if (!type.isCompatible(IntValue.class)) {
+			throw new InvalidSettingsException(
+					table.getName() + " has unsupported iteration column type: " + type.getName());
+		}
+	}
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.settings;
+
+import static se.redfield.cp.nodes.ConformalCalibrationCurveRegressionNodeModel.PORT_CALIBRATION_TABLE;
+import static se.redfield.cp.nodes.ConformalCalibrationCurveRegressionNodeModel.PORT_PREDICTION_TABLE;
+
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.defaultnodesettings.SettingsModelIntegerBounded;
+import org.knime.core.node.defaultnodesettings.SettingsModelString;
+
+import se.redfield.cp.utils.KnimeUtils;
+
+/**
+ * The node settings for the Conformal Calibration Curve (Regression) node.
+ *
+ */
+public class CalibrationCurveRegressionSettings {
+	private static final String KEY_TARGET_COLUMN = "targetColumn";
+	private static final String KEY_PREDICTION_COLUMN_NAME = "predictionColumn";
+
+	private final SettingsModelString targetColumn;
+	private final SettingsModelString predictionColumn;
+	private final RegressionSettings regressionSettings;
+	private final SettingsModelIntegerBounded significanceLevels;
+
+	/**
+	 * Creates new instance.
+	 */
+	public CalibrationCurveRegressionSettings() {
+		targetColumn = new SettingsModelString(KEY_TARGET_COLUMN, "");
+		predictionColumn = new SettingsModelString(KEY_PREDICTION_COLUMN_NAME, "");
+		regressionSettings = new RegressionSettings(PORT_PREDICTION_TABLE);
+		significanceLevels = CalibrationCurveSettings.createSignificanceLevelsModel();
+	}
+
+	/**
+	 * @return The target column model.
+	 */
+	public SettingsModelString getTargetColumnModel() {
+		return targetColumn;
+	}
+
+	/**
+	 * @return The target column.
+	 */
+	public String getTargetColumn() {
+		return targetColumn.getStringValue();
+	}
+
+	/**
+	 * @return The prediction column model.
+	 */
+	public SettingsModelString getPredictionColumnModel() {
+		return predictionColumn;
+	}
+
+	/**
+	 * @return The prediction column name.
+	 */
+	public String getPredictionColumnName() {
+		return predictionColumn.getStringValue();
+	}
+
+	/**
+	 * @return The regression settings.
+	 */
+	public RegressionSettings getRegressionSettings() {
+		return regressionSettings;
+	}
+
+	/**
+	 * @return The Alpha column name.
+	 */
+	public String getCalibrationAlphaColumnName() {
+		return CalibratorRegressionSettings.CALIBRATION_ALHPA_COLUMN_DEFAULT_NAME;
+	}
+
+	/**
+	 * @return The number of significance levels model.
+	 */
+	public SettingsModelIntegerBounded getSignificanceLevelsModel() {
+		return significanceLevels;
+	}
+
+	/**
+	 * @return The significance levels the curve is computed for.
+	 */
+	public double[] getSignificanceLevels() {
+		return CalibrationCurveSettings.createSignificanceLevels(significanceLevels.getIntValue());
+	}
+
+	/**
+	 * Loads settings from the provided {@link NodeSettingsRO}
+	 * 
+	 * @param settings
+	 * @throws InvalidSettingsException
+	 */
+	public void loadSettingFrom(NodeSettingsRO settings) throws InvalidSettingsException {
+		targetColumn.loadSettingsFrom(settings);
+		predictionColumn.loadSettingsFrom(settings);
+		regressionSettings.loadSettingFrom(settings);
+		significanceLevels.loadSettingsFrom(settings);
+	}
+
+	/**
+	 * Saves current settings into the given {@link NodeSettingsWO}.
+	 * 
+	 * @param settings
+	 */
+	public void saveSettingsTo(NodeSettingsWO settings) {
+		targetColumn.saveSettingsTo(settings);
+		predictionColumn.saveSettingsTo(settings);
+		regressionSettings.saveSettingsTo(settings);
+		significanceLevels.saveSettingsTo(settings);
+	}
+
+	private void validate() throws InvalidSettingsException {
+		if (getTargetColumn().isEmpty()) {
+			throw new InvalidSettingsException("Target column is not selected.");
+		}
+		if (getPredictionColumnName().isEmpty()) {
+			throw new InvalidSettingsException("Prediction column is not selected");
+		}
+		regressionSettings.validate();
+	}
+
+	/**
+	 * Validates settings stored in the provided {@link NodeSettingsRO}.
+	 * 
+	 * @param settings
+	 * @throws InvalidSettingsException
+	 */
+	public void validateSettings(NodeSettingsRO settings) throws InvalidSettingsException {
+		CalibrationCurveRegressionSettings temp = new CalibrationCurveRegressionSettings();
+		temp.loadSettingFrom(settings);
+		temp.validate();
+	}
+
+	/**
+	 * Validates the settings against input table spec.
+	 * 
+	 * @param inSpecs Input specs
+	 * @throws InvalidSettingsException
+	 */
+	public void validateSettings(DataTableSpec[] inSpecs) throws InvalidSettingsException {
+		KnimeUtils.validateDoubleColumn(PORT_PREDICTION_TABLE, inSpecs, getTargetColumn(), "Target");
+		KnimeUtils.validateDoubleColumn(PORT_PREDICTION_TABLE, inSpecs, getPredictionColumnName(), "Prediction");
+		KnimeUtils.validateDoubleColumn(PORT_CALIBRATION_TABLE, inSpecs, getCalibrationAlphaColumnName(),
+				"Alpha (Nonconformity)");
+
+		regressionSettings.validateSettings(inSpecs);
+
+		validate();
+	}
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.settings;
+
+import static se.redfield.cp.nodes.ConformalCalibrationCurveNodeModel.PORT_INPUT_TABLE;
+
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.defaultnodesettings.SettingsModelIntegerBounded;
+import org.knime.core.node.defaultnodesettings.SettingsModelString;
+
+import se.redfield.cp.utils.KnimeUtils;
+
+/**
+ * The node settings for the Conformal Calibration Curve node.
+ *
+ */
+public class CalibrationCurveSettings {
+	private static final String KEY_TARGET_COLUMN = "targetColumn";
+	/**
+	 * The number of significance levels settings key.
+	 */
+	public static final String KEY_SIGNIFICANCE_LEVELS = "significanceLevels";
+
+	/**
+	 * The default number of significance levels.
+	 */
+	public static final int DEFAULT_SIGNIFICANCE_LEVELS = 100;
+	/**
+	 * The maximal number of significance levels.
+	 */
+	public static final int MAX_SIGNIFICANCE_LEVELS = 100000;
+
+	private final SettingsModelString targetColumn;
+	private final SettingsModelIntegerBounded significanceLevels;
+
+	/**
+	 * Creates new instance.
+	 */
+	public CalibrationCurveSettings() {
+		targetColumn = new SettingsModelString(KEY_TARGET_COLUMN, "");
+		significanceLevels = createSignificanceLevelsModel();
+	}
+
+	/**
+	 * @return The number of significance levels model.
+	 */
+	static SettingsModelIntegerBounded createSignificanceLevelsModel() {
+		return new SettingsModelIntegerBounded(KEY_SIGNIFICANCE_LEVELS, DEFAULT_SIGNIFICANCE_LEVELS, 1,
+				MAX_SIGNIFICANCE_LEVELS);
+	}
+
+	/**
+	 * Creates the grid of significance levels evenly covering the [0, 1] range.
+	 * 
+	 * @param steps The number of steps.
+	 * @return The significance levels.
+	 */
+	static double[] createSignificanceLevels(int steps) {
+		double[] levels = new double[steps + 1];
+		for (int i = 0; i <= steps; i++) {
+			levels[i] = (double) i / steps;
+		}
+		return levels;
+	}
+
+	/**
+	 * @return The target column model.
+	 */
+	public SettingsModelString getTargetColumnModel() {
+		return targetColumn;
+	}
+
+	/**
+	 * @return The target column.
+	 */
+	public String getTargetColumn() {
+		return targetColumn.getStringValue();
+	}
+
+	/**
+	 * @return The number of significance levels model.
+	 */
+	public SettingsModelIntegerBounded getSignificanceLevelsModel() {
+		return significanceLevels;
+	}
+
+	/**
+	 * @return The significance levels the curve is computed for.
+	 */
+	public double[] getSignificanceLevels() {
+		return createSignificanceLevels(significanceLevels.getIntValue());
+	}
+
+	/**
+	 * Loads settings from the provided {@link NodeSettingsRO}
+	 * 
+	 * @param settings
+	 * @throws InvalidSettingsException
+	 */
+	public void loadSettingFrom(NodeSettingsRO settings) throws InvalidSettingsException {
+		targetColumn.loadSettingsFrom(settings);
+		significanceLevels.loadSettingsFrom(settings);
+	}
+
+	/**
+	 * Saves current settings into the given {@link NodeSettingsWO}.
+	 * 
+	 * @param settings
+	 */
+	public void saveSettingsTo(NodeSettingsWO settings) {
+		targetColumn.saveSettingsTo(settings);
+		significanceLevels.saveSettingsTo(settings);
+	}
+
+	private void validate() throws InvalidSettingsException {
+		if (getTargetColumn().isEmpty()) {
+			throw new InvalidSettingsException("Target column is not selected.");
+		}
+	}
+
+	/**
+	 * Validates settings stored in the provided {@link NodeSettingsRO}.
+	 * 
+	 * @param settings
+	 * @throws InvalidSettingsException
+	 */
+	public void validateSettings(NodeSettingsRO settings) throws InvalidSettingsException {
+		CalibrationCurveSettings temp = new CalibrationCurveSettings();
+		temp.loadSettingFrom(settings);
+		temp.validate();
+	}
+
+	/**
+	 * Validates the settings against input table spec.
+	 * 
+	 * @param inSpecs Input specs
+	 * @throws InvalidSettingsException
+	 */
+	public void validateSettings(DataTableSpec[] inSpecs) throws InvalidSettingsException {
+		validate();
+		KnimeUtils.validateColumnExists(PORT_INPUT_TABLE, inSpecs, getTargetColumn(), "Target");
+	}
+}
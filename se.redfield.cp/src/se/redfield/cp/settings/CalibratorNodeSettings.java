@@ -21,6 +21,10 @@ import org.knime.core.data.DataTableSpec;
 import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.defaultnodesettings.SettingsModelString;
+
+import se.redfield.cp.core.nonconformity.InverseProbabilityNonconformity;
+import se.redfield.cp.core.nonconformity.NonconformityMeasures;
 
 import se.redfield.cp.nodes.ConformalPredictorCalibratorNodeModel;
 
@@ -32,8 +36,11 @@ import se.redfield.cp.nodes.ConformalPredictorCalibratorNodeModel;
  */
 public class CalibratorNodeSettings implements CalibratorSettings {
 
+	private static final String KEY_NONCONFORMITY_MEASURE = "nonconformityMeasure";
+
 	private final TargetSettings targetSettings;
 	private final KeepColumnsSettings keepColumns;
+	private final SettingsModelString nonconformityMeasure;
 
 	/**
 	 * Creates new instance
@@ -42,6 +49,8 @@ public class CalibratorNodeSettings implements CalibratorSettings {
 		targetSettings = new TargetSettings(ConformalPredictorCalibratorNodeModel.PORT_INPUT_TABLE,
 				ConformalPredictorCalibratorNodeModel.PORT_INPUT_TABLE);
 		keepColumns = new KeepColumnsSettings(ConformalPredictorCalibratorNodeModel.PORT_INPUT_TABLE);
+		nonconformityMeasure = new SettingsModelString(KEY_NONCONFORMITY_MEASURE,
+				InverseProbabilityNonconformity.NAME);
 	}
 
 	@Override
@@ -54,6 +63,18 @@ public class CalibratorNodeSettings implements CalibratorSettings {
 		return keepColumns;
 	}
 
+	/**
+	 * @return The nonconformity measure model.
+	 */
+	public SettingsModelString getNonconformityMeasureModel() {
+		return nonconformityMeasure;
+	}
+
+	@Override
+	public String getNonconformityMeasure() {
+		return nonconformityMeasure.getStringValue();
+	}
+
 	/**
 	 * Loads settings from the provided {@link NodeSettingsRO}
 	 * 
@@ -63,6 +84,11 @@ public class CalibratorNodeSettings implements CalibratorSettings {
 	public void loadSettingFrom(NodeSettingsRO settings) throws InvalidSettingsException {
 		targetSettings.loadSettingsFrom(settings);
 		keepColumns.loadSettingFrom(settings);
+		if (settings.containsKey(KEY_NONCONFORMITY_MEASURE)) {
+			nonconformityMeasure.loadSettingsFrom(settings);
+		} else {
+			nonconformityMeasure.setStringValue(InverseProbabilityNonconformity.NAME);
+		}
 	}
 
 	/**
@@ -73,6 +99,7 @@ public class CalibratorNodeSettings implements CalibratorSettings {
 	public void saveSettingsTo(NodeSettingsWO settings) {
 		targetSettings.saveSettingsTo(settings);
 		keepColumns.saveSettingsTo(settings);
+		nonconformityMeasure.saveSettingsTo(settings);
 	}
 
 	/**
@@ -83,6 +110,10 @@ public class CalibratorNodeSettings implements CalibratorSettings {
 	private void validate() throws InvalidSettingsException {
 		targetSettings.validate();
 		keepColumns.validate();
+
+		if (!NonconformityMeasures.contains(getNonconformityMeasure())) {
+			throw new InvalidSettingsException("Unknown nonconformity measure: " + getNonconformityMeasure());
+		}
 	}
 
 	/**
@@ -15,6 +15,8 @@
  */
 package se.redfield.cp.settings;
 
+import se.redfield.cp.core.nonconformity.InverseProbabilityNonconformity;
+
 /**
  * Calibrator configuration.
  * 
@@ -48,6 +50,13 @@ public interface CalibratorSettings {
 		return CALIBRATION_P_COLUMN_DEFAULT_NAME;
 	}
 
+	/**
+	 * @return The nonconformity measure name.
+	 */
+	public default String getNonconformityMeasure() {
+		return InverseProbabilityNonconformity.NAME;
+	}
+
 	/**
 	 * @return The Rank column name
 	 */
@@ -15,9 +15,13 @@
  */
 package se.redfield.cp.settings;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
+import org.knime.core.data.DataColumnSpec;
 import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.vector.doublevector.DoubleVectorValue;
 import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
@@ -61,6 +65,8 @@ public class ClassifierSettings {
 	private final SettingsModelString stringSeparator;
 
 	private Map<String, Integer> scoreColumns;
+	private int pValuesVectorColumn = -1;
+	private List<String> vectorLabels;
 
 	/**
 	 * Creates new instance
@@ -127,6 +133,22 @@ public class ClassifierSettings {
 		return scoreColumns;
 	}
 
+	/**
+	 * @return The index of the p-values vector column or -1 if the p-values are
+	 *         provided as separate columns.
+	 */
+	public int getPValuesVectorColumn() {
+		return pValuesVectorColumn;
+	}
+
+	/**
+	 * @return The class labels corresponding to the elements of the p-values
+	 *         vector.
+	 */
+	public List<String> getVectorLabels() {
+		return vectorLabels;
+	}
+
 	/**
 	 * @return The classes column name.
 	 */
@@ -182,18 +204,38 @@ public class ClassifierSettings {
 
 	/**
 	 * Configures and validates the settings against input table spec. Score columns
-	 * are extracted as a part of configure process.
+	 * are extracted as a part of configure process. In case there are no separate
+	 * p-value columns the p-values vector column is looked up instead.
 	 * 
 	 * @param inSpecs Input table spec.
 	 * @throws InvalidSettingsException
 	 */
 	public void configure(DataTableSpec inSpecs) throws InvalidSettingsException {
 		scoreColumns = new ColumnPatternExtractor(getScoreColumnPattern()).match(inSpecs);
+		pValuesVectorColumn = -1;
+		vectorLabels = Collections.emptyList();
 
 		if (scoreColumns.isEmpty()) {
+			configureVector(inSpecs);
+		}
+	}
+
+	private void configureVector(DataTableSpec inSpecs) throws InvalidSettingsException {
+		int idx = inSpecs.findColumnIndex(PredictorSettings.PREDICTION_P_VALUES_VECTOR_COLUMN_DEFAULT_NAME);
+		if (idx < 0) {
 			throw new InvalidSettingsException("No p-values columns found in provided table");
 		}
 
+		DataColumnSpec spec = inSpecs.getColumnSpec(idx);
+		if (!spec.getType().isCompatible(DoubleVectorValue.class)) {
+			throw new InvalidSettingsException("Column " + spec.getName() + " is not a double vector column");
+		}
+		if (spec.getElementNames().isEmpty()) {
+			throw new InvalidSettingsException("Column " + spec.getName() + " has no class labels assigned");
+		}
+
+		pValuesVectorColumn = idx;
+		vectorLabels = spec.getElementNames();
 	}
 
 	private static String getScoreColumnPattern() {
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.settings;
+
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.defaultnodesettings.SettingsModelBoolean;
+import org.knime.core.node.defaultnodesettings.SettingsModelDoubleBounded;
+import org.knime.core.node.defaultnodesettings.SettingsModelIntegerBounded;
+import org.knime.core.node.defaultnodesettings.SettingsModelString;
+
+import se.redfield.cp.utils.KnimeUtils;
+import se.redfield.cp.utils.PortDef;
+
+/**
+ * Settings of the adaptive early stopping of the training loop.
+ *
+ */
+public class EarlyStoppingSettings {
+	/**
+	 * The early stopping settings key.
+	 */
+	public static final String KEY_EARLY_STOPPING = "earlyStopping";
+	private static final String KEY_SCORE_COLUMN = "scoreColumn";
+	private static final String KEY_TOLERANCE = "tolerance";
+	private static final String KEY_MIN_ITERATIONS = "minIterations";
+
+	private static final double DEFAULT_TOLERANCE = 0.01;
+	private static final int DEFAULT_MIN_ITERATIONS = 5;
+
+	/**
+	 * The number of probe values used to track the convergence.
+	 */
+	public static final int PROBES_COUNT = 99;
+
+	private final PortDef calibrationTable;
+
+	private final SettingsModelBoolean earlyStopping;
+	private final SettingsModelString scoreColumn;
+	private final SettingsModelDoubleBounded tolerance;
+	private final SettingsModelIntegerBounded minIterations;
+
+	/**
+	 * @param calibrationTable The calibration table.
+	 */
+	public EarlyStoppingSettings(PortDef calibrationTable) {
+		this.calibrationTable = calibrationTable;
+
+		earlyStopping = new SettingsModelBoolean(KEY_EARLY_STOPPING, false);
+		scoreColumn = new SettingsModelString(KEY_SCORE_COLUMN, CalibratorSettings.CALIBRATION_P_COLUMN_DEFAULT_NAME);
+		tolerance = new SettingsModelDoubleBounded(KEY_TOLERANCE, DEFAULT_TOLERANCE, 0, 1);
+		minIterations = new SettingsModelIntegerBounded(KEY_MIN_ITERATIONS, DEFAULT_MIN_ITERATIONS, 2, 100);
+
+		earlyStopping.addChangeListener(e -> updateEnabled());
+		updateEnabled();
+	}
+
+	private void updateEnabled() {
+		scoreColumn.setEnabled(isEarlyStopping());
+		tolerance.setEnabled(isEarlyStopping());
+		minIterations.setEnabled(isEarlyStopping());
+	}
+
+	/**
+	 * @return The earlyStopping settings model.
+	 */
+	public SettingsModelBoolean getEarlyStoppingModel() {
+		return earlyStopping;
+	}
+
+	/**
+	 * @return Whether the loop is stopped once the calibration converges.
+	 */
+	public boolean isEarlyStopping() {
+		return earlyStopping.getBooleanValue();
+	}
+
+	/**
+	 * @return The scoreColumn settings model.
+	 */
+	public SettingsModelString getScoreColumnModel() {
+		return scoreColumn;
+	}
+
+	/**
+	 * @return The calibration score column used to track the convergence.
+	 */
+	public String getScoreColumn() {
+		return scoreColumn.getStringValue();
+	}
+
+	/**
+	 * @return The tolerance settings model.
+	 */
+	public SettingsModelDoubleBounded getToleranceModel() {
+		return tolerance;
+	}
+
+	/**
+	 * @return The largest change of the median p-values considered as converged.
+	 */
+	public double getTolerance() {
+		return tolerance.getDoubleValue();
+	}
+
+	/**
+	 * @return The minIterations settings model.
+	 */
+	public SettingsModelIntegerBounded getMinIterationsModel() {
+		return minIterations;
+	}
+
+	/**
+	 * @return The minimal number of iterations.
+	 */
+	public int getMinIterations() {
+		return minIterations.getIntValue();
+	}
+
+	/**
+	 * Loads settings from the provided {@link NodeSettingsRO}
+	 * 
+	 * @param settings
+	 * @throws InvalidSettingsException
+	 */
+	public void loadSettingFrom(NodeSettingsRO settings) throws InvalidSettingsException {
+		earlyStopping.loadSettingsFrom(settings);
+		scoreColumn.loadSettingsFrom(settings);
+		tolerance.loadSettingsFrom(settings);
+		minIterations.loadSettingsFrom(settings);
+	}
+
+	/**
+	 * Saves current settings into the given {@link NodeSettingsWO}.
+	 * 
+	 * @param settings
+	 */
+	public void saveSettingsTo(NodeSettingsWO settings) {
+		earlyStopping.saveSettingsTo(settings);
+		scoreColumn.saveSettingsTo(settings);
+		tolerance.saveSettingsTo(settings);
+		minIterations.saveSettingsTo(settings);
+	}
+
+	/**
+	 * Validates settings stored in the provided {@link NodeSettingsRO}.
+	 * 
+	 * @param settings
+	 * @throws InvalidSettingsException
+	 */
+	public void validateSettings(NodeSettingsRO settings) throws InvalidSettingsException {
+		EarlyStoppingSettings temp = new EarlyStoppingSettings(calibrationTable);
+		temp.loadSettingFrom(settings);
+		temp.validate();
+	}
+
+	/**
+	 * Validates internal consistency of the current settings
+	 * 
+	 * @throws InvalidSettingsException
+	 */
+	public void validate() throws InvalidSettingsException {
+		if (isEarlyStopping() && getScoreColumn().isEmpty()) {
+			throw new InvalidSettingsException("Score column is not selected");
+		}
+	}
+
+	/**
+	 * Validates the settings against input table spec.
+	 * 
+	 * @param inSpecs Input specs
+	 * @throws InvalidSettingsException
+	 */
+	public void validateSettings(DataTableSpec[] inSpecs) throws InvalidSettingsException {
+		validate();
+
+		if (isEarlyStopping()) {
+			KnimeUtils.validateDoubleColumn(calibrationTable, inSpecs, getScoreColumn(), "Score");
+		}
+	}
+}
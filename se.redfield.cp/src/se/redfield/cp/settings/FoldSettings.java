@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.settings;
+
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.defaultnodesettings.SettingsModelBoolean;
+import org.knime.core.node.defaultnodesettings.SettingsModelIntegerBounded;
+
+/**
+ * Settings of the K-fold assignment mode, where the fold index column is
+ * appended to the table instead of splitting it.
+ *
+ */
+public class FoldSettings {
+	private static final String KEY_ASSIGN_FOLDS = "assignFolds";
+	private static final String KEY_FOLDS = "folds";
+
+	/**
+	 * The default name of the fold column.
+	 */
+	public static final String DEFAULT_FOLD_COLUMN = "Fold";
+
+	private final SettingsModelBoolean assignFolds;
+	private final SettingsModelIntegerBounded folds;
+
+	/**
+	 * Creates new instance
+	 */
+	public FoldSettings() {
+		assignFolds = new SettingsModelBoolean(KEY_ASSIGN_FOLDS, false);
+		folds = new SettingsModelIntegerBounded(KEY_FOLDS, 5, 2, 100);
+
+		assignFolds.addChangeListener(e -> folds.setEnabled(isAssignFolds()));
+		folds.setEnabled(isAssignFolds());
+	}
+
+	/**
+	 * @return The assignFolds settings model.
+	 */
+	public SettingsModelBoolean getAssignFoldsModel() {
+		return assignFolds;
+	}
+
+	/**
+	 * @return Whether the fold indexes are assigned instead of partitioning.
+	 */
+	public boolean isAssignFolds() {
+		return assignFolds.getBooleanValue();
+	}
+
+	/**
+	 * @return The folds settings model.
+	 */
+	public SettingsModelIntegerBounded getFoldsModel() {
+		return folds;
+	}
+
+	/**
+	 * @return The number of folds.
+	 */
+	public int getFolds() {
+		return folds.getIntValue();
+	}
+
+	/**
+	 * Loads settings from the provided {@link NodeSettingsRO}
+	 * 
+	 * @param settings
+	 * @throws InvalidSettingsException
+	 */
+	public void loadSettingFrom(NodeSettingsRO settings) throws InvalidSettingsException {
+		assignFolds.loadSettingsFrom(settings);
+		folds.loadSettingsFrom(settings);
+	}
+
+	/**
+	 * Saves current settings into the given {@link NodeSettingsWO}.
+	 * 
+	 * @param settings
+	 */
+	public void saveSettingsTo(NodeSettingsWO settings) {
+		assignFolds.saveSettingsTo(settings);
+		folds.saveSettingsTo(settings);
+	}
+
+	/**
+	 * Validates settings stored in the provided {@link NodeSettingsRO}.
+	 * 
+	 * @param settings
+	 * @throws InvalidSettingsException
+	 */
+	public void validateSettings(NodeSettingsRO settings) throws InvalidSettingsException {
+		FoldSettings temp = new FoldSettings();
+		temp.loadSettingFrom(settings);
+	}
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.settings;
+
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.defaultnodesettings.SettingsModelBoolean;
+import org.knime.core.node.defaultnodesettings.SettingsModelString;
+
+/**
+ * Settings of the hash-based partitioning, where each row is assigned to a
+ * partition by the hash of its row ID or of an ID column.
+ *
+ */
+public class HashPartitionSettings {
+	private static final String KEY_HASH_PARTITIONING = "hashPartitioning";
+	private static final String KEY_USE_ROW_ID = "useRowId";
+	private static final String KEY_ID_COLUMN = "idColumn";
+
+	private final SettingsModelBoolean hashPartitioning;
+	private final SettingsModelBoolean useRowId;
+	private final SettingsModelString idColumn;
+
+	/**
+	 * Creates new instance
+	 */
+	public HashPartitionSettings() {
+		hashPartitioning = new SettingsModelBoolean(KEY_HASH_PARTITIONING, false);
+		useRowId = new SettingsModelBoolean(KEY_USE_ROW_ID, true);
+		idColumn = new SettingsModelString(KEY_ID_COLUMN, "");
+
+		hashPartitioning.addChangeListener(e -> updateEnabled());
+		useRowId.addChangeListener(e -> updateEnabled());
+		updateEnabled();
+	}
+
+	private void updateEnabled() {
+		useRowId.setEnabled(isHashPartitioning());
+		idColumn.setEnabled(isHashPartitioning() && !getUseRowId());
+	}
+
+	/**
+	 * @return The hashPartitioning settings model.
+	 */
+	public SettingsModelBoolean getHashPartitioningModel() {
+		return hashPartitioning;
+	}
+
+	/**
+	 * @return Whether the hash-based partitioning is used.
+	 */
+	public boolean isHashPartitioning() {
+		return hashPartitioning.getBooleanValue();
+	}
+
+	/**
+	 * @return The useRowId settings model.
+	 */
+	public SettingsModelBoolean getUseRowIdModel() {
+		return useRowId;
+	}
+
+	/**
+	 * @return Whether the row ID is hashed instead of the ID column.
+	 */
+	public boolean getUseRowId() {
+		return useRowId.getBooleanValue();
+	}
+
+	/**
+	 * @return The idColumn settings model.
+	 */
+	public SettingsModelString getIdColumnModel() {
+		return idColumn;
+	}
+
+	/**
+	 * @return The ID column name.
+	 */
+	public String getIdColumn() {
+		return idColumn.getStringValue();
+	}
+
+	/**
+	 * Loads settings from the provided {@link NodeSettingsRO}
+	 * 
+	 * @param settings
+	 * @throws InvalidSettingsException
+	 */
+	public void loadSettingFrom(NodeSettingsRO settings) throws InvalidSettingsException {
+		hashPartitioning.loadSettingsFrom(settings);
+		useRowId.loadSettingsFrom(settings);
+		idColumn.loadSettingsFrom(settings);
+	}
+
+	/**
+	 * Saves current settings into the given {@link NodeSettingsWO}.
+	 * 
+	 * @param settings
+	 */
+	public void saveSettingsTo(NodeSettingsWO settings) {
+		hashPartitioning.saveSettingsTo(settings);
+		useRowId.saveSettingsTo(settings);
+		idColumn.saveSettingsTo(settings);
+	}
+
+	/**
+	 * Validates settings stored in the provided {@link NodeSettingsRO}.
+	 * 
+	 * @param settings
+	 * @throws InvalidSettingsException
+	 */
+	public void validateSettings(NodeSettingsRO settings) throws InvalidSettingsException {
+		HashPartitionSettings temp = new HashPartitionSettings();
+		temp.loadSettingFrom(settings);
+		temp.validate();
+	}
+
+	/**
+	 * Validates internal consistency of the current settings
+	 * 
+	 * @throws InvalidSettingsException
+	 */
+	public void validate() throws InvalidSettingsException {
+		if (isHashPartitioning() && !getUseRowId() && getIdColumn().isEmpty()) {
+			throw new InvalidSettingsException("Id column is not selected");
+		}
+	}
+
+	/**
+	 * Validates the settings against input table spec.
+	 * 
+	 * @param inSpec Input table spec
+	 * @throws InvalidSettingsException
+	 */
+	public void validate(DataTableSpec inSpec) throws InvalidSettingsException {
+		validate();
+
+		if (isHashPartitioning() && !getUseRowId() && !inSpec.containsName(getIdColumn())) {
+			throw new InvalidSettingsException("Id column not found: " + getIdColumn());
+		}
+	}
+}
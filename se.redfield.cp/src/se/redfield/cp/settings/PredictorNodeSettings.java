@@ -37,10 +37,12 @@ import se.redfield.cp.nodes.ConformalPredictorNodeModel;
 public class PredictorNodeSettings implements PredictorSettings {
 
 	private static final String KEY_INCLUDE_RANK_COLUMN = "includeRankColumn";
+	private static final String KEY_P_VALUES_AS_VECTOR = "pValuesAsVector";
 
 	private final TargetSettings targetSettings;
 	private final KeepColumnsSettings keepColumns;
 	private final SettingsModelBoolean includeRank;
+	private final SettingsModelBoolean pValuesAsVector;
 
 	/**
 	 * Creates new instance.
@@ -49,6 +51,9 @@ public class PredictorNodeSettings implements PredictorSettings {
 		targetSettings = new TargetSettings(PORT_CALIBRATION_TABLE, PORT_PREDICTION_TABLE);
 		keepColumns = new KeepColumnsSettings(PORT_PREDICTION_TABLE);
 		includeRank = new SettingsModelBoolean(KEY_INCLUDE_RANK_COLUMN, false);
+		pValuesAsVector = new SettingsModelBoolean(KEY_P_VALUES_AS_VECTOR, false);
+
+		pValuesAsVector.addChangeListener(e -> includeRank.setEnabled(!pValuesAsVector.getBooleanValue()));
 	}
 
 	@Override
@@ -70,7 +75,19 @@ public class PredictorNodeSettings implements PredictorSettings {
 
 	@Override
 	public boolean getIncludeRankColumn() {
-		return includeRank.getBooleanValue();
+		return includeRank.getBooleanValue() && !getPValuesAsVector();
+	}
+
+	/**
+	 * @return The p-values as vector model.
+	 */
+	public SettingsModelBoolean getPValuesAsVectorModel() {
+		return pValuesAsVector;
+	}
+
+	@Override
+	public boolean getPValuesAsVector() {
+		return pValuesAsVector.getBooleanValue();
 	}
 
 	/**
@@ -83,6 +100,11 @@ public class PredictorNodeSettings implements PredictorSettings {
 		targetSettings.loadSettingsFrom(settings);
 		keepColumns.loadSettingFrom(settings);
 		includeRank.loadSettingsFrom(settings);
+		if (settings.containsKey(KEY_P_VALUES_AS_VECTOR)) {
+			pValuesAsVector.loadSettingsFrom(settings);
+		} else {
+			pValuesAsVector.setBooleanValue(false);
+		}
 	}
 
 	/**
@@ -94,6 +116,7 @@ public class PredictorNodeSettings implements PredictorSettings {
 		targetSettings.saveSettingsTo(settings);
 		keepColumns.saveSettingsTo(settings);
 		includeRank.saveSettingsTo(settings);
+		pValuesAsVector.saveSettingsTo(settings);
 	}
 
 	private void validate() throws InvalidSettingsException {
@@ -30,6 +30,10 @@ public interface PredictorSettings {
 	 * The p-value column default format.
 	 */
 	public static final String PREDICTION_P_VALUE_COLUMN_DEFAULT_FORMAT = "p-value (%s)";
+	/**
+	 * The p-values vector column default name.
+	 */
+	public static final String PREDICTION_P_VALUES_VECTOR_COLUMN_DEFAULT_NAME = "p-values";
 
 	/**
 	 * @return The target settings.
@@ -46,6 +50,14 @@ public interface PredictorSettings {
 	 */
 	public boolean getIncludeRankColumn();
 
+	/**
+	 * @return Whether to output the p-values of all the classes as a single vector
+	 *         column instead of the per-class columns.
+	 */
+	public default boolean getPValuesAsVector() {
+		return false;
+	}
+
 	/**
 	 * @return The probability column name from the calibration table.
 	 */
@@ -66,4 +78,11 @@ public interface PredictorSettings {
 	public default String getPredictionPValueColumnFormat() {
 		return PREDICTION_P_VALUE_COLUMN_DEFAULT_FORMAT;
 	}
+
+	/**
+	 * @return The p-values vector column name.
+	 */
+	public default String getPredictionPValuesVectorColumnName() {
+		return PREDICTION_P_VALUES_VECTOR_COLUMN_DEFAULT_NAME;
+	}
 }
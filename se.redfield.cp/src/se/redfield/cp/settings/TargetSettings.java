@@ -15,22 +15,33 @@
  */
 package se.redfield.cp.settings;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.function.Consumer;
 
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataColumnSpec;
 import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.collection.ListDataValue;
+import org.knime.core.data.vector.doublevector.DoubleVectorValue;
 import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.defaultnodesettings.SettingsModelBoolean;
 import org.knime.core.node.defaultnodesettings.SettingsModelString;
 
 import se.redfield.cp.utils.PortDef;
 
 /**
  * Target settings used by classification nodes. Consist of target column and
- * probability columns format.
+ * probability columns format, or the probability vector column holding the
+ * probabilities of all the classes. The vector elements are matched to the
+ * classes by the element names of the column or, in case the column has no
+ * element names, by the class order setting.
  * 
  * @author Alexander Bondaletov
  *
@@ -39,11 +50,19 @@ public class TargetSettings {
 
 	private static final String KEY_TARGET_COLUMN_NAME = "targetColumn";
 	private static final String KEY_PROBABILITY_COLUMN_FORMAT = "probabilityColumnFormat";
+	private static final String KEY_USE_PROBABILITY_VECTOR = "useProbabilityVector";
+	private static final String KEY_PROBABILITY_VECTOR_COLUMN = "probabilityVectorColumn";
+	private static final String KEY_PROBABILITY_VECTOR_CLASS_ORDER = "probabilityVectorClassOrder";
+
+	private static final String CLASS_ORDER_SEPARATOR = ",";
 
 	private static final String DEFAULT_FORMAT = "P (%1$s=%2$s)";
 
 	private final SettingsModelString targetColumn;
 	private final SettingsModelString probabilityFormat;
+	private final SettingsModelBoolean useProbabilityVector;
+	private final SettingsModelString probabilityVectorColumn;
+	private final SettingsModelString probabilityVectorClassOrder;
 
 	private final PortDef targetColumnTable;
 	private final PortDef[] probabilityColumnsTables;
@@ -58,6 +77,18 @@ public class TargetSettings {
 
 		targetColumn = new SettingsModelString(KEY_TARGET_COLUMN_NAME, "");
 		probabilityFormat = new SettingsModelString(KEY_PROBABILITY_COLUMN_FORMAT, DEFAULT_FORMAT);
+		useProbabilityVector = new SettingsModelBoolean(KEY_USE_PROBABILITY_VECTOR, false);
+		probabilityVectorColumn = new SettingsModelString(KEY_PROBABILITY_VECTOR_COLUMN, "");
+		probabilityVectorClassOrder = new SettingsModelString(KEY_PROBABILITY_VECTOR_CLASS_ORDER, "");
+
+		useProbabilityVector.addChangeListener(e -> updateEnabled());
+		updateEnabled();
+	}
+
+	private void updateEnabled() {
+		probabilityFormat.setEnabled(!getUseProbabilityVector());
+		probabilityVectorColumn.setEnabled(getUseProbabilityVector());
+		probabilityVectorClassOrder.setEnabled(getUseProbabilityVector());
 	}
 
 	/**
@@ -89,6 +120,68 @@ public class TargetSettings {
 		return probabilityFormat.getStringValue();
 	}
 
+	/**
+	 * @return The use probability vector settings model.
+	 */
+	public SettingsModelBoolean getUseProbabilityVectorModel() {
+		return useProbabilityVector;
+	}
+
+	/**
+	 * @return Whether the probabilities are provided as a single vector column.
+	 */
+	public boolean getUseProbabilityVector() {
+		return useProbabilityVector.getBooleanValue();
+	}
+
+	/**
+	 * @return The probability vector column settings model.
+	 */
+	public SettingsModelString getProbabilityVectorColumnModel() {
+		return probabilityVectorColumn;
+	}
+
+	/**
+	 * @return The probability vector column name.
+	 */
+	public String getProbabilityVectorColumn() {
+		return probabilityVectorColumn.getStringValue();
+	}
+
+	/**
+	 * @return The probability vector class order settings model.
+	 */
+	public SettingsModelString getProbabilityVectorClassOrderModel() {
+		return probabilityVectorClassOrder;
+	}
+
+	/**
+	 * @return The class labels in the order of the probability vector elements.
+	 *         Used when the vector column has no element names.
+	 */
+	public List<String> getProbabilityVectorClassOrder() {
+		List<String> result = new ArrayList<>();
+		for (String label : probabilityVectorClassOrder.getStringValue().split(CLASS_ORDER_SEPARATOR)) {
+			if (!label.trim().isEmpty()) {
+				result.add(label.trim());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the class labels of the probability vector elements. Those are the
+	 * element names of the column, or the class order setting in case the column
+	 * has no element names.
+	 * 
+	 * @param columnSpec The probability vector column spec.
+	 * @return The class labels by the element index.
+	 */
+	public List<String> getProbabilityVectorElementNames(DataColumnSpec columnSpec) {
+		List<String> names = columnSpec.getElementNames();
+		return names.isEmpty() ? getProbabilityVectorClassOrder() : names;
+	}
+
 	/**
 	 * @param value The class value
 	 * @return The probability column name for a given value.
@@ -122,6 +215,17 @@ public class TargetSettings {
 		if (settings.containsKey(KEY_PROBABILITY_COLUMN_FORMAT)) {
 			probabilityFormat.loadSettingsFrom(settings);
 		}
+		if (settings.containsKey(KEY_USE_PROBABILITY_VECTOR)) {
+			useProbabilityVector.loadSettingsFrom(settings);
+			probabilityVectorColumn.loadSettingsFrom(settings);
+		} else {
+			useProbabilityVector.setBooleanValue(false);
+		}
+		if (settings.containsKey(KEY_PROBABILITY_VECTOR_CLASS_ORDER)) {
+			probabilityVectorClassOrder.loadSettingsFrom(settings);
+		} else {
+			probabilityVectorClassOrder.setStringValue("");
+		}
 	}
 
 	/**
@@ -132,6 +236,9 @@ public class TargetSettings {
 	public void saveSettingsTo(NodeSettingsWO settings) {
 		targetColumn.saveSettingsTo(settings);
 		probabilityFormat.saveSettingsTo(settings);
+		useProbabilityVector.saveSettingsTo(settings);
+		probabilityVectorColumn.saveSettingsTo(settings);
+		probabilityVectorClassOrder.saveSettingsTo(settings);
 	}
 
 	/**
@@ -144,7 +251,11 @@ public class TargetSettings {
 			throw new InvalidSettingsException("Class column is not selected");
 		}
 
-		if (getProbabilityFormat().isEmpty()) {
+		if (getUseProbabilityVector()) {
+			if (getProbabilityVectorColumn().isEmpty()) {
+				throw new InvalidSettingsException("Probability vector column is not selected");
+			}
+		} else if (getProbabilityFormat().isEmpty()) {
 			throw new InvalidSettingsException("Probability column format is not specified");
 		}
 	}
@@ -172,6 +283,10 @@ public class TargetSettings {
 		Set<DataCell> values = columnSpec.getDomain().getValues();
 
 		for (PortDef table : probabilityColumnsTables) {
+			if (getUseProbabilityVector()) {
+				validateProbabilityVector(inSpecs, table, values);
+				continue;
+			}
 			for (DataCell cell : values) {
 				String value = cell.toString();
 				String pColumnName = getProbabilityColumnName(value);
@@ -185,6 +300,41 @@ public class TargetSettings {
 		validate();
 	}
 
+	private void validateProbabilityVector(DataTableSpec[] inSpecs, PortDef table, Set<DataCell> values)
+			throws InvalidSettingsException {
+		DataColumnSpec spec = inSpecs[table.getIdx()].getColumnSpec(getProbabilityVectorColumn());
+		if (spec == null) {
+			throw new InvalidSettingsException(
+					table.getName() + ": Probability vector column not found: " + getProbabilityVectorColumn());
+		}
+
+		DataType type = spec.getType();
+		boolean isList = type.isCompatible(ListDataValue.class) && type.getCollectionElementType() != null
+				&& type.getCollectionElementType().isCompatible(DoubleValue.class);
+		if (!isList && !type.isCompatible(DoubleVectorValue.class)) {
+			throw new InvalidSettingsException(
+					table.getName() + ": Column " + spec.getName() + " is not a double vector or list column");
+		}
+
+		List<String> names = getProbabilityVectorElementNames(spec);
+		if (names.isEmpty()) {
+			throw new InvalidSettingsException(table.getName() + ": Probability vector column " + spec.getName()
+					+ " has no element names, the class order has to be specified");
+		}
+		if (spec.getElementNames().isEmpty()) {
+			if (names.size() != values.size() || new HashSet<>(names).size() != names.size()) {
+				throw new InvalidSettingsException("The class order has to list each of the " + values.size()
+						+ " classes exactly once, but lists " + names.size() + " values");
+			}
+		}
+		for (DataCell cell : values) {
+			if (!names.contains(cell.toString())) {
+				throw new InvalidSettingsException(table.getName() + ": Probability vector column "
+						+ spec.getName() + " has no element for the class: " + cell.toString());
+			}
+		}
+	}
+
 	private void attemptAutoconfig(DataTableSpec[] inSpecs, Consumer<String> msgConsumer) {
 		String[] columnNames = inSpecs[targetColumnTable.getIdx()].getColumnNames();
 		for (String column : columnNames) {
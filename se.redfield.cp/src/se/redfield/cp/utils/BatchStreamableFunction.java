@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.utils;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.streamable.PortInput;
+import org.knime.core.node.streamable.PortOutput;
+import org.knime.core.node.streamable.RowInput;
+import org.knime.core.node.streamable.RowOutput;
+import org.knime.core.node.streamable.StreamableFunction;
+
+/**
+ * {@link StreamableFunction} that appends double columns computed from a set of
+ * double input columns. Instead of computing the output row by row, the input
+ * values are collected into primitive arrays of {@link #BATCH_SIZE} rows and
+ * passed to {@link #compute(double[][], int, double[][])} at once.<br/>
+ * 
+ * Meant for the streaming execution only, where the complete output rows are
+ * built anyway. The table execution should keep using the column rearranger,
+ * which stores only the appended columns but provides one row at a time, so
+ * the computation is not batched there.
+ *
+ */
+public abstract class BatchStreamableFunction extends StreamableFunction {
+
+	/**
+	 * Number of rows processed by a single {@link #compute(double[][], int, double[][])} call.
+	 */
+	public static final int BATCH_SIZE = 1024;
+
+	private final int inPortIndex;
+	private final int outPortIndex;
+	private final DataTableSpec outputSpec;
+	private final int[] keptColumns;
+	private final int[] inputColumns;
+	private final String[] missingMessages;
+	private final int outputCount;
+
+	/**
+	 * @param inPortIndex     The input port index.
+	 * @param outPortIndex    The output port index.
+	 * @param inputSpec       The input table spec.
+	 * @param outputSpec      The output table spec. Consists of the kept input
+	 *                        columns followed by the <code>outputCount</code>
+	 *                        appended columns.
+	 * @param inputColumns    The indices of the input columns, <code>-1</code> for
+	 *                        the inputs that are not used.
+	 * @param missingMessages The error messages used when the corresponding input
+	 *                        column contains missing values.
+	 * @param outputCount     The number of the appended columns.
+	 */
+	protected BatchStreamableFunction(int inPortIndex, int outPortIndex, DataTableSpec inputSpec,
+			DataTableSpec outputSpec, int[] inputColumns, String[] missingMessages, int outputCount) {
+		super(inPortIndex, outPortIndex);
+		this.inPortIndex = inPortIndex;
+		this.outPortIndex = outPortIndex;
+		this.outputSpec = outputSpec;
+		this.inputColumns = inputColumns;
+		this.missingMessages = missingMessages;
+		this.outputCount = outputCount;
+
+		keptColumns = new int[outputSpec.getNumColumns() - outputCount];
+		for (int i = 0; i < keptColumns.length; i++) {
+			keptColumns[i] = inputSpec.findColumnIndex(outputSpec.getColumnSpec(i).getName());
+		}
+	}
+
+	/**
+	 * Computes the appended values for a batch of rows.
+	 * 
+	 * @param inputs  The input values, one array per input column. Arrays of the
+	 *                unused inputs are left unfilled.
+	 * @param length  The number of rows in the batch.
+	 * @param outputs The output arrays, one per appended column.
+	 */
+	protected abstract void compute(double[][] inputs, int length, double[][] outputs);
+
+	/**
+	 * @return The output table spec.
+	 */
+	public DataTableSpec getOutputSpec() {
+		return outputSpec;
+	}
+
+	@Override
+	public void runFinal(PortInput[] inputs, PortOutput[] outputs, ExecutionContext exec) throws Exception {
+		init(exec);
+		run((RowInput) inputs[inPortIndex], (RowOutput) outputs[outPortIndex], exec);
+		finish();
+	}
+
+	private void run(RowInput input, RowOutput output, ExecutionMonitor exec)
+			throws CanceledExecutionException, InterruptedException {
+		DataRow[] rows = new DataRow[BATCH_SIZE];
+		double[][] in = new double[inputColumns.length][BATCH_SIZE];
+		double[][] out = new double[outputCount][BATCH_SIZE];
+
+		int length = 0;
+		DataRow row;
+		while ((row = input.poll()) != null) {
+			read(row, length, in);
+			rows[length++] = row;
+
+			if (length == BATCH_SIZE) {
+				flush(rows, length, in, out, output);
+				length = 0;
+
+				exec.checkCanceled();
+			}
+		}
+		flush(rows, length, in, out, output);
+
+		input.close();
+		output.close();
+	}
+
+	@Override
+	public DataRow compute(DataRow input) throws Exception {
+		double[][] in = new double[inputColumns.length][1];
+		double[][] out = new double[outputCount][1];
+		read(input, 0, in);
+		compute(in, 1, out);
+		return createRow(input, 0, out);
+	}
+
+	private void read(DataRow row, int idx, double[][] in) {
+		for (int c = 0; c < inputColumns.length; c++) {
+			if (inputColumns[c] >= 0) {
+				in[c][idx] = KnimeUtils.getDouble(row.getCell(inputColumns[c]), missingMessages[c]);
+			}
+		}
+	}
+
+	private void flush(DataRow[] rows, int length, double[][] in, double[][] out, RowOutput output)
+			throws InterruptedException {
+		if (length == 0) {
+			return;
+		}
+		compute(in, length, out);
+		for (int i = 0; i < length; i++) {
+			output.push(createRow(rows[i], i, out));
+			rows[i] = null;
+		}
+	}
+
+	private DataRow createRow(DataRow row, int idx, double[][] out) {
+		DataCell[] cells = new DataCell[keptColumns.length + outputCount];
+		for (int i = 0; i < keptColumns.length; i++) {
+			cells[i] = row.getCell(keptColumns[i]);
+		}
+		for (int i = 0; i < outputCount; i++) {
+			cells[keptColumns.length + i] = new DoubleCell(out[i][idx]);
+		}
+		return new DefaultRow(row.getKey(), cells);
+	}
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.utils;
+
+import org.knime.core.data.DataRow;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.streamable.StreamableFunction;
+
+/**
+ * {@link StreamableFunction} that applies a sequence of functions to each row,
+ * passing the output row of one function as the input row of the next one.
+ * Used by the nodes that would otherwise apply several column rearrangers one
+ * after another and create an intermediate table for each of them.
+ *
+ */
+public class ChainedStreamableFunction extends StreamableFunction {
+
+	private final StreamableFunction[] functions;
+
+	/**
+	 * @param inPortIndex  The input port index.
+	 * @param outPortIndex The output port index.
+	 * @param functions    The functions to apply, in order.
+	 */
+	public ChainedStreamableFunction(int inPortIndex, int outPortIndex, StreamableFunction... functions) {
+		super(inPortIndex, outPortIndex);
+		this.functions = functions;
+	}
+
+	@Override
+	public void init(ExecutionContext ctx) throws Exception {
+		for (StreamableFunction f : functions) {
+			f.init(ctx);
+		}
+	}
+
+	@Override
+	public DataRow compute(DataRow input) throws Exception {
+		DataRow row = input;
+		for (StreamableFunction f : functions) {
+			row = f.compute(row);
+		}
+		return row;
+	}
+
+	@Override
+	public void finish() {
+		for (StreamableFunction f : functions) {
+			f.finish();
+		}
+	}
+}
@@ -19,11 +19,15 @@ import org.knime.core.data.DataCell;
 import org.knime.core.data.DataColumnSpec;
 import org.knime.core.data.DataColumnSpecCreator;
 import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DataValue;
 import org.knime.core.data.DoubleValue;
 import org.knime.core.data.MissingValue;
 import org.knime.core.data.MissingValueException;
 import org.knime.core.data.RowKey;
 import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.v2.ReadValue;
+import org.knime.core.data.v2.RowRead;
 import org.knime.core.node.InvalidSettingsException;
 
 /**
@@ -59,6 +63,18 @@ public class KnimeUtils {
 		return new RowKey(base.getString() + SEPARATOR + suffix);
 	}
 
+	/**
+	 * Checks whether the {@link RowKey} ends with the suffix added by
+	 * {@link #createRowKey(RowKey, String)}.
+	 * 
+	 * @param key    The {@link RowKey}
+	 * @param suffix The suffix.
+	 * @return Whether the key has the suffix.
+	 */
+	public static boolean hasRowKeySuffix(RowKey key, String suffix) {
+		return key.getString().endsWith(SEPARATOR + suffix);
+	}
+
 	/**
 	 * Creates new {@link DataTableSpec} by appending provided columns to existing
 	 * {@link DataTableSpec}
@@ -110,6 +126,40 @@ public class KnimeUtils {
 		return ((DoubleValue) nonMissing(cell, message)).getDoubleValue();
 	}
 
+	/**
+	 * Gets the double value of a given column from the provided {@link RowRead}
+	 * without materializing a {@link DataCell}. Throws
+	 * {@link MissingValueException} in case the value is missing.
+	 * 
+	 * @param row     The row.
+	 * @param index   The column index.
+	 * @param message The message provided to the {@link MissingValueException}.
+	 * @return The double value.
+	 * @throws MissingValueException If the value is missing.
+	 */
+	public static double getDouble(RowRead row, int index, String message) throws MissingValueException {
+		if (row.isMissing(index)) {
+			throw new MissingValueException((MissingValue) DataType.getMissingCell(), message);
+		}
+		return row.<DoubleValue> getValue(index).getDoubleValue();
+	}
+
+	/**
+	 * Gets the value of a given column from the provided {@link RowRead} as a
+	 * {@link DataCell}.
+	 * 
+	 * @param row   The row.
+	 * @param index The column index.
+	 * @return The data cell, or a missing cell if the value is missing.
+	 */
+	public static DataCell getCell(RowRead row, int index) {
+		if (row.isMissing(index)) {
+			return DataType.getMissingCell();
+		}
+		DataValue value = row.getValue(index);
+		return value instanceof DataCell ? (DataCell) value : ((ReadValue) value).getDataCell();
+	}
+
 	/**
 	 * Ensures that specified column exists in a given table and it's data type is
 	 * compatible with the {@link DoubleValue} type.
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2023 Redfield AB.
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License, Version 3, as
+ * published by the Free Software Foundation.
+ *  
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, see <http://www.gnu.org/licenses>.
+ */
+package se.redfield.cp.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.knime.core.data.container.filter.TableFilter;
+import org.knime.core.data.v2.RowCursor;
+import org.knime.core.data.v2.RowRead;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.KNIMEConstants;
+
+/**
+ * Utility class used to process a table in several chunks in parallel. Each
+ * chunk is a continuous range of rows consumed by its own accumulator, so the
+ * accumulators do not need any synchronization. It is up to the caller to
+ * combine the returned accumulators. Rows are read with a {@link RowCursor},
+ * so the {@link RowRead} passed to an accumulator is only valid until the next
+ * row is read.
+ *
+ */
+public class ParallelTableProcessor {
+
+	/**
+	 * Minimal number of rows processed by a single thread.
+	 */
+	private static final long MIN_CHUNK_SIZE = 10000;
+	/**
+	 * Number of rows processed between progress updates and cancellation checks.
+	 */
+	private static final long PROGRESS_STEP = 1000;
+
+	private ParallelTableProcessor() {
+	}
+
+	/**
+	 * Processes the table using the global KNIME thread pool.
+	 * 
+	 * @param <T>     The accumulator type.
+	 * @param table   The input table.
+	 * @param columns The indices of the columns read by the accumulators. Only
+	 *                these columns are materialized.
+	 * @param factory The factory creating an accumulator for each chunk.
+	 * @param exec    Execution monitor.
+	 * @return The list of accumulators, one for each processed chunk, in the table
+	 *         order.
+	 * @throws CanceledExecutionException
+	 */
+	public static <T extends Consumer<RowRead>> List<T> process(BufferedDataTable table, int[] columns,
+			Supplier<T> factory, ExecutionMonitor exec) throws CanceledExecutionException {
+		long size = table.size();
+		int chunks = (int) Math.max(1,
+				Math.min(KNIMEConstants.GLOBAL_THREAD_POOL.getMaxThreads(), size / MIN_CHUNK_SIZE));
+		AtomicLong counter = new AtomicLong();
+
+		if (chunks == 1) {
+			T acc = factory.get();
+			try (RowCursor cursor = table.cursor(TableFilter.materializeCols(columns))) {
+				consume(cursor, acc, size, counter, exec);
+			}
+			return List.of(acc);
+		}
+
+		long chunkSize = (size + chunks - 1) / chunks;
+		List<Future<T>> futures = new ArrayList<>();
+		for (int i = 0; i < chunks; i++) {
+			long from = i * chunkSize;
+			long to = Math.min(size, from + chunkSize) - 1;
+			futures.add(KNIMEConstants.GLOBAL_THREAD_POOL.enqueue(() -> {
+				T acc = factory.get();
+				TableFilter filter = new TableFilter.Builder().withFromRowIndex(from).withToRowIndex(to)
+						.withMaterializeColumnIndices(columns).build();
+				try (RowCursor cursor = table.cursor(filter)) {
+					consume(cursor, acc, size, counter, exec);
+				}
+				return acc;
+			}));
+		}
+
+		try {
+			return KNIMEConstants.GLOBAL_THREAD_POOL.runInvisible(() -> {
+				List<T> result = new ArrayList<>();
+				for (Future<T> f : futures) {
+					result.add(f.get());
+				}
+				return result;
+			});
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CanceledExecutionException();
+		} catch (ExecutionException e) {
+			throw rethrow(e);
+		} finally {
+			futures.forEach(f -> f.cancel(true));
+		}
+	}
+
+	private static <T extends Consumer<RowRead>> void consume(RowCursor cursor, T acc, long size,
+			AtomicLong counter, ExecutionMonitor exec) throws CanceledExecutionException {
+		long count = 0;
+		while (cursor.canForward()) {
+			acc.accept(cursor.forward());
+
+			if (++count % PROGRESS_STEP == 0) {
+				exec.checkCanceled();
+				exec.setProgress((double) counter.addAndGet(PROGRESS_STEP) / size);
+			}
+		}
+		counter.addAndGet(count % PROGRESS_STEP);
+	}
+
+	private static CanceledExecutionException rethrow(ExecutionException e) {
+		Throwable cause = e;
+		while (cause instanceof ExecutionException && cause.getCause() != null) {
+			cause = cause.getCause();
+		}
+
+		if (cause instanceof CanceledExecutionException) {
+			return (CanceledExecutionException) cause;
+		} else if (cause instanceof RuntimeException) {
+			throw (RuntimeException) cause;
+		} else if (cause instanceof Error) {
+			throw (Error) cause;
+		}
+		throw new IllegalStateException(cause.getMessage(), cause);
+	}
+}